@@ -3,9 +3,11 @@ package de.angr2301.genericllmadapter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients(basePackages = "de.angr2301.genericllmadapter")
+@EnableScheduling
 public class GenericLLMAdapterApplication {
 
     public static void main(String[] args) {
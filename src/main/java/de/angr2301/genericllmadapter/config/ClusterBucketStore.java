@@ -0,0 +1,85 @@
+package de.angr2301.genericllmadapter.config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.postgresql.PostgreSQLadvisoryLockBasedProxyManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+
+/**
+ * Rate-limit buckets shared by all instances in operational_data.rate_limit_buckets
+ * (rate-limit.mode: cluster). Each state change runs under a Postgres advisory lock.
+ *
+ * To avoid a round trip per request, every proxy consumes up to
+ * rate-limit.cluster.max-unsynchronized-tokens locally before it synchronizes, or
+ * after max-unsynchronized-timeout at the latest. Instances can therefore admit up to
+ * that many requests each beyond the shared limit.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.mode", havingValue = "cluster")
+@Slf4j
+public class ClusterBucketStore {
+
+    static final String TABLE = "operational_data.rate_limit_buckets";
+
+    private final ProxyManager<String> proxyManager;
+    private final Optimization optimization;
+    private final JdbcTemplate jdbcTemplate;
+    private final RateLimitProperties properties;
+
+    public ClusterBucketStore(DataSource dataSource, RateLimitProperties properties) {
+        this.proxyManager = new PostgreSQLadvisoryLockBasedProxyManager<>(SQLProxyConfiguration.builder()
+                .withTableSettings(BucketTableSettings.customSettings(TABLE, "id", "state"))
+                .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                .build(dataSource));
+        RateLimitProperties.Cluster cluster = properties.getCluster();
+        this.optimization = cluster.getMaxUnsynchronizedTokens() > 0
+                ? Optimizations.delaying(new DelayParameters(
+                        cluster.getMaxUnsynchronizedTokens(), cluster.getMaxUnsynchronizedTimeout()))
+                : Optimizations.batching();
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.properties = properties;
+        log.info("Rate limiting in cluster mode (max {} unsynchronized tokens per bucket)",
+                cluster.getMaxUnsynchronizedTokens());
+    }
+
+    /**
+     * Local proxy for a shared bucket; keep it around, the unsynchronized tokens live in the proxy
+     */
+    Bucket bucket(String key, Bandwidth limit) {
+        return proxyManager.builder()
+                .withOptimization(optimization)
+                .build(key, () -> BucketConfiguration.builder().addLimit(limit).build());
+    }
+
+    /**
+     * Drop shared buckets idle for longer than rate-limit.idle-expiry; they would be full again anyway
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.cluster.purge-interval:PT10M}")
+    public void purgeIdleBuckets() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE updated_at < ?",
+                    OffsetDateTime.now().minus(properties.getIdleExpiry()));
+            if (deleted > 0) {
+                log.debug("Purged {} idle rate-limit buckets", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Rate-limit bucket purge failed: {}", e.getMessage());
+        }
+    }
+}
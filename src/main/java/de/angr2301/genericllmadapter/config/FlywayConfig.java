@@ -0,0 +1,28 @@
+package de.angr2301.genericllmadapter.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Migrations run before JPA starts, except in the class-data-sharing training run of the Dockerfile
+ * (-Dspring.context.exit=onRefresh): it only loads the classes of a startup and has no database.
+ * The check is made at runtime because AOT processing fixes spring.flyway.enabled at build time.
+ */
+@Configuration
+@Slf4j
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${spring.context.exit:}") String contextExit) {
+        return flyway -> {
+            if ("onRefresh".equalsIgnoreCase(contextExit)) {
+                log.info("Training run, skipping database migrations");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package de.angr2301.genericllmadapter.config;
+
+import feign.Client;
+import feign.http2client.Http2Client;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * One java.net.http.HttpClient for all upstream calls: LLM providers, embeddings and the Feign clients.
+ *
+ * Each HttpClient owns a selector thread and a connection pool, so a client per request cost a platform
+ * thread per in-flight chat and a new (TLS) connection per call. With spring.threads.virtual.enabled the
+ * client also runs its internal tasks on virtual threads.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient upstreamHttpClient(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${upstream.connect-timeout:PT10S}") Duration connectTimeout) {
+        HttpClient.Builder builder = HttpClient.newBuilder().connectTimeout(connectTimeout);
+        if (virtualThreads) {
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Feign's default client uses HttpURLConnection with its own keep-alive cache; share the HttpClient instead
+     */
+    @Bean
+    public Client feignClient(HttpClient upstreamHttpClient) {
+        return new Http2Client(upstreamHttpClient);
+    }
+}
@@ -1,35 +1,53 @@
 package de.angr2301.genericllmadapter.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs.
+ * Key and parser are built once; tokens carry the user's authorities and enabled state,
+ * so a verified token is enough to build the principal without a database lookup.
+ */
 @Service
 public class JwtService {
 
-    @Value("${application.security.jwt.secret-key:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
-    private String secretKey;
+    static final String AUTHORITIES_CLAIM = "authorities";
+    static final String ENABLED_CLAIM = "enabled";
 
-    @Value("${application.security.jwt.expiration:86400000}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final Key signInKey;
+    private final JwtParser parser;
+
+    public JwtService(
+            @Value("${application.security.jwt.secret-key:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}") String secretKey,
+            @Value("${application.security.jwt.expiration:86400000}") long jwtExpiration) {
+        this.jwtExpiration = jwtExpiration;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
 
@@ -38,7 +56,10 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.put(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        claims.put(ENABLED_CLAIM, userDetails.isEnabled());
+        return buildToken(claims, userDetails, jwtExpiration);
     }
 
     private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
@@ -47,33 +68,42 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        // Parsing rejects expired tokens and bad signatures
+        return parseToken(token).getSubject().equals(userDetails.getUsername());
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Verify signature and expiry once and return the claims
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims parseToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Principal from the claims of a verified token.
+     * Tokens issued before authorities were added as claims yield null; callers load those from the database.
+     */
+    public UserDetails toUserDetails(Claims claims) {
+        List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        Boolean enabled = claims.get(ENABLED_CLAIM, Boolean.class);
+        if (authorities == null || enabled == null) {
+            return null;
+        }
+        return User.builder()
+                .username(claims.getSubject())
+                .password("")
+                .authorities(authorities.stream().map(String::valueOf).toArray(String[]::new))
+                .disabled(!enabled)
+                .build();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public long getExpiration() {
+        return jwtExpiration;
     }
 }
@@ -0,0 +1,149 @@
+package de.angr2301.genericllmadapter.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import de.angr2301.genericllmadapter.domain.user.CustomUserDetailsService;
+import de.angr2301.genericllmadapter.domain.user.User;
+import de.angr2301.genericllmadapter.domain.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of verified principals, keyed by token.
+ *
+ * A hit costs neither a signature check nor a database query. Principals come from the token
+ * claims; only tokens issued before the user's tokens_valid_after (role change, disabling)
+ * are resolved against the database, so changes take effect without forcing a new login.
+ * Revocations made on other instances are picked up by polling users.tokens_valid_after.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private record Entry(UserDetails principal, Instant expiresAt) {
+    }
+
+    private final JwtService jwtService;
+    private final CustomUserDetailsService userDetailsService;
+    private final UserRepository userRepository;
+    private final Cache<String, Entry> principals;
+    /** Lower-case email to the instant before which its tokens need a database check */
+    private final Map<String, Instant> validAfter = new ConcurrentHashMap<>();
+    private volatile Instant lastRefresh = Instant.EPOCH;
+
+    public PrincipalCache(JwtService jwtService,
+                          CustomUserDetailsService userDetailsService,
+                          UserRepository userRepository,
+                          @Value("${application.security.jwt.principal-cache.max-entries:10000}") long maxEntries,
+                          @Value("${application.security.jwt.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                // Never outlive the token itself
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String token, Entry entry, long currentTime) {
+                        Duration remaining = Duration.between(Instant.now(), entry.expiresAt());
+                        return (remaining.compareTo(ttl) < 0 ? remaining : ttl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Principal for a bearer token
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public UserDetails resolve(String token) {
+        Entry cached = principals.getIfPresent(token);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached.principal();
+        }
+        Claims claims = jwtService.parseToken(token);
+        String email = claims.getSubject();
+        Instant revokedBefore = validAfter.get(key(email));
+        UserDetails principal = null;
+        if (!isRevoked(email, claims.getIssuedAt().toInstant())) {
+            principal = jwtService.toUserDetails(claims);
+        }
+        if (principal == null) {
+            // Cold path: token predates a role/enabled change or carries no claims
+            principal = userDetailsService.loadUserByUsername(email);
+        }
+        principals.put(token, new Entry(principal, claims.getExpiration().toInstant()));
+        if (!Objects.equals(validAfter.get(key(email)), revokedBefore)) {
+            // invalidated while this principal was built; it may predate the change
+            principals.invalidate(token);
+        }
+        return principal;
+    }
+
+    /**
+     * Make tokens of the user issued up to now fall back to the database and drop cached principals
+     */
+    public void invalidate(String email, Instant tokensValidAfter) {
+        validAfter.merge(key(email), tokensValidAfter, (a, b) -> a.isAfter(b) ? a : b);
+        principals.asMap().values().removeIf(entry -> entry.principal().getUsername().equalsIgnoreCase(email));
+        log.debug("Cached principals invalidated for {}", email);
+    }
+
+    /**
+     * Pick up revocations from other instances; entries older than the token lifetime no longer matter
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation-refresh-interval:PT30S}")
+    public void refreshRevocations() {
+        Instant now = Instant.now();
+        Instant horizon = now.minusMillis(jwtService.getExpiration());
+        Instant since = lastRefresh.isAfter(horizon) ? lastRefresh.minusSeconds(5) : horizon;
+        try {
+            for (User user : userRepository.findByTokensValidAfterAfter(since)) {
+                Instant previous = validAfter.get(key(user.getEmail()));
+                // at the database's precision: the local instant of the same change may carry nanoseconds
+                if (previous == null || user.getTokensValidAfter().truncatedTo(ChronoUnit.MICROS)
+                        .isAfter(previous.truncatedTo(ChronoUnit.MICROS))) {
+                    invalidate(user.getEmail(), user.getTokensValidAfter());
+                }
+            }
+            lastRefresh = now;
+        } catch (DataAccessException e) {
+            log.warn("Could not refresh token revocations: {}", e.getMessage());
+        }
+        validAfter.values().removeIf(instant -> instant.isBefore(horizon));
+    }
+
+    private boolean isRevoked(String email, Instant issuedAt) {
+        Instant after = validAfter.get(key(email));
+        // iat has second precision, so a token from the same second is checked against the database too
+        return after != null && !issuedAt.isAfter(after);
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package de.angr2301.genericllmadapter.config;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a charge taken after the {@link RateLimitFilter}, such as the further providers of a
+ * comparison, does not fit the caller's bucket
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
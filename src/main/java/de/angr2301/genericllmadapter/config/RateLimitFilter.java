@@ -1,31 +1,35 @@
 package de.angr2301.genericllmadapter.config;
 
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Refill;
+import de.angr2301.genericllmadapter.domain.user.Role;
+import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Rate limiting per authenticated user (falling back to the client address) with
+ * limits by role and endpoint group. Runs after {@link JwtAuthenticationFilter}.
+ * A provider comparison is charged one LLM token here; ChatService charges its further providers.
+ */
 @Component
+@RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private static final String SUPER_USER_AUTHORITY = "ROLE_" + Role.SUPER_USER.name();
 
-    private Bucket createNewBucket() {
-        // Allow 20 requests per minute with a burst of 10
-        Bandwidth limit = Bandwidth.classic(20, Refill.greedy(20, Duration.ofMinutes(1)));
-        return Bucket.builder().addLimit(limit).build();
-    }
+    private final RateLimiter rateLimiter;
 
     @Override
     protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request,
@@ -33,19 +37,44 @@ public class RateLimitFilter extends OncePerRequestFilter {
             @org.springframework.lang.NonNull FilterChain filterChain)
             throws ServletException, IOException {
 
-        // Only rate limit API calls
-        if (request.getRequestURI().startsWith("/api/")) {
-            String ip = request.getRemoteAddr();
-            Bucket bucket = buckets.computeIfAbsent(ip, k -> createNewBucket());
+        String uri = request.getRequestURI();
+        // Only rate limit API and auth calls
+        if (!uri.startsWith("/api/") && !uri.startsWith("/auth/")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-            if (bucket.tryConsume(1)) {
-                filterChain.doFilter(request, response);
-            } else {
-                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-                response.getWriter().write("Too many requests - please slow down.");
-            }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String identity;
+        RateLimiter.Tier tier;
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            identity = authentication.getName();
+            tier = isSuperUser(authentication) ? RateLimiter.Tier.SUPER_USER : RateLimiter.Tier.USER;
         } else {
+            identity = request.getRemoteAddr();
+            tier = RateLimiter.Tier.ANONYMOUS;
+        }
+        RateLimiter.EndpointGroup group = RateLimiter.EndpointGroup.of(request.getMethod(), uri);
+        ConsumptionProbe probe = rateLimiter.tryConsume(identity, tier, group);
+        response.setHeader("X-RateLimit-Limit", Long.toString(rateLimiter.limit(tier, group)));
+        response.setHeader("X-RateLimit-Remaining", Long.toString(probe.getRemainingTokens()));
+        if (probe.isConsumed()) {
             filterChain.doFilter(request, response);
+        } else {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + 999_999_999));
+            response.setHeader("Retry-After", Long.toString(retryAfter));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.getWriter().write("Too many requests - please slow down.");
+        }
+    }
+
+    private static boolean isSuperUser(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (SUPER_USER_AUTHORITY.equals(authority.getAuthority())) {
+                return true;
+            }
         }
+        return false;
     }
 }
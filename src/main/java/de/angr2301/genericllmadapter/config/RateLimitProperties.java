@@ -0,0 +1,58 @@
+package de.angr2301.genericllmadapter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Request limits per tier and endpoint group (rate-limit.* in application.yml).
+ * Values are requests per minute; groups missing for a tier fall back to its DEFAULT group.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /** local: buckets per instance; cluster: buckets shared through Postgres (see ClusterBucketStore) */
+    private Mode mode = Mode.LOCAL;
+
+    private Cluster cluster = new Cluster();
+
+    /** Upper bound of buckets kept in memory; least recently used ones are dropped first */
+    private long maxBuckets = 100_000;
+
+    /** Buckets idle for this long are dropped; a dropped bucket starts full again */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    private Map<RateLimiter.Tier, Map<RateLimiter.EndpointGroup, Integer>> tiers = defaults();
+
+    public enum Mode {
+        LOCAL,
+        CLUSTER
+    }
+
+    @Data
+    public static class Cluster {
+        /** Requests a proxy may admit locally before synchronizing; 0 synchronizes every request */
+        private long maxUnsynchronizedTokens = 5;
+        private Duration maxUnsynchronizedTimeout = Duration.ofSeconds(1);
+    }
+
+    private static Map<RateLimiter.Tier, Map<RateLimiter.EndpointGroup, Integer>> defaults() {
+        Map<RateLimiter.Tier, Map<RateLimiter.EndpointGroup, Integer>> tiers = new EnumMap<>(RateLimiter.Tier.class);
+        tiers.put(RateLimiter.Tier.ANONYMOUS, new EnumMap<>(Map.of(
+                RateLimiter.EndpointGroup.DEFAULT, 20,
+                RateLimiter.EndpointGroup.AUTH, 10)));
+        tiers.put(RateLimiter.Tier.USER, new EnumMap<>(Map.of(
+                RateLimiter.EndpointGroup.DEFAULT, 120,
+                RateLimiter.EndpointGroup.LLM, 20)));
+        tiers.put(RateLimiter.Tier.SUPER_USER, new EnumMap<>(Map.of(
+                RateLimiter.EndpointGroup.DEFAULT, 600,
+                RateLimiter.EndpointGroup.LLM, 60)));
+        return tiers;
+    }
+}
@@ -0,0 +1,203 @@
+package de.angr2301.genericllmadapter.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.angr2301.genericllmadapter.domain.user.Role;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per identity and endpoint group, sized by the identity's tier.
+ * Buckets live in a size-bounded cache with idle expiry, so many distinct clients
+ * (or a scan) cannot grow memory without bound. In cluster mode the cached buckets are
+ * proxies of buckets shared through Postgres. When the database cannot be reached the request is
+ * counted in a local bucket with the same limit instead (rate_limit.cluster.fallbacks), so a database
+ * outage limits per instance rather than failing every request.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    private static final long FALLBACK_LOG_INTERVAL_NANOS = 60_000_000_000L;
+
+    /** Anonymous callers plus one tier per {@link Role} */
+    public enum Tier {
+        ANONYMOUS,
+        USER,
+        SUPER_USER;
+
+        public static Tier of(Role role) {
+            return role == Role.SUPER_USER ? SUPER_USER : USER;
+        }
+    }
+
+    public enum EndpointGroup {
+        /** Login and registration */
+        AUTH,
+        /** Calls that reach an LLM provider; a comparison costs one token per provider */
+        LLM,
+        DEFAULT;
+
+        public static EndpointGroup of(String method, String uri) {
+            if (uri.startsWith("/auth/")) {
+                return AUTH;
+            }
+            if ("POST".equals(method) && uri.startsWith("/api/chat/sessions/")
+                    && (uri.endsWith("/messages") || uri.endsWith("/compare"))) {
+                return LLM;
+            }
+            return DEFAULT;
+        }
+    }
+
+    /**
+     * All buckets of one identity, so a request costs a single lookup by the (hash-cached) string.
+     * fallback holds the local buckets used while the cluster store fails.
+     */
+    private record ClientBuckets(Tier tier, Bucket[] byGroup, Bucket[] fallback) {
+    }
+
+    private final Cache<String, ClientBuckets> buckets;
+    /** Null in local mode */
+    private final ClusterBucketStore clusterStore;
+    private final Map<Tier, Map<EndpointGroup, Bandwidth>> limits = new EnumMap<>(Tier.class);
+    private final Counter clusterFallbacks;
+    private final AtomicLong lastFallbackLog = new AtomicLong(System.nanoTime() - FALLBACK_LOG_INTERVAL_NANOS);
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, null);
+    }
+
+    public RateLimiter(RateLimitProperties properties, @Nullable ClusterBucketStore clusterStore) {
+        this(properties, clusterStore, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties, @Nullable ClusterBucketStore clusterStore,
+                       MeterRegistry registry) {
+        if (properties.getMode() == RateLimitProperties.Mode.CLUSTER && clusterStore == null) {
+            throw new IllegalStateException("rate-limit.mode is cluster but no cluster bucket store is available");
+        }
+        this.clusterStore = clusterStore;
+        this.clusterFallbacks = Counter.builder("rate_limit.cluster.fallbacks")
+                .description("Requests limited by a local bucket because the shared bucket failed")
+                .register(registry);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleExpiry())
+                // Amortized maintenance on the calling thread instead of waking a pool thread per drain
+                .executor(Runnable::run)
+                .build();
+        for (Tier tier : Tier.values()) {
+            Map<EndpointGroup, Integer> configured = properties.getTiers().getOrDefault(tier, Map.of());
+            Map<EndpointGroup, Bandwidth> tierLimits = new EnumMap<>(EndpointGroup.class);
+            for (EndpointGroup group : EndpointGroup.values()) {
+                Integer perMinute = configured.getOrDefault(group, configured.get(EndpointGroup.DEFAULT));
+                if (perMinute == null) {
+                    throw new IllegalStateException("No rate limit configured for tier " + tier);
+                }
+                tierLimits.put(group, Bandwidth.builder()
+                        .capacity(perMinute)
+                        .refillGreedy(perMinute, Duration.ofMinutes(1))
+                        .build());
+            }
+            limits.put(tier, tierLimits);
+        }
+    }
+
+    /**
+     * Take one token from the caller's bucket
+     * @param identity User name, or client address for anonymous callers
+     * @return Probe with the consumption result, remaining tokens and wait time
+     */
+    public ConsumptionProbe tryConsume(String identity, Tier tier, EndpointGroup group) {
+        return tryConsume(identity, tier, group, 1);
+    }
+
+    /**
+     * Take tokens from the caller's bucket, all or none
+     * @param tokens at most {@link #limit}; more could never be granted
+     */
+    public ConsumptionProbe tryConsume(String identity, Tier tier, EndpointGroup group, long tokens) {
+        ClientBuckets client = buckets.get(identity, key -> newBuckets(tier));
+        if (client.tier() != tier) {
+            // Role changed: start over with the new tier's limits
+            client = newBuckets(tier);
+            buckets.put(identity, client);
+        }
+        if (clusterStore == null) {
+            return bucket(identity, client, group).tryConsumeAndReturnRemaining(tokens);
+        }
+        try {
+            return bucket(identity, client, group).tryConsumeAndReturnRemaining(tokens);
+        } catch (RuntimeException e) {
+            // Advisory lock or bucket state unreachable (bucket4j wraps the SQLException)
+            clusterFallbacks.increment();
+            long now = System.nanoTime();
+            long last = lastFallbackLog.get();
+            if (now - last >= FALLBACK_LOG_INTERVAL_NANOS && lastFallbackLog.compareAndSet(last, now)) {
+                log.warn("Shared rate-limit bucket unavailable, limiting per instance: {}", e.getMessage());
+            }
+            return localBucket(client, group).tryConsumeAndReturnRemaining(tokens);
+        }
+    }
+
+    /** Groups are created on first use; most clients only ever hit one or two */
+    private Bucket bucket(String identity, ClientBuckets client, EndpointGroup group) {
+        if (clusterStore == null) {
+            return localBucket(client, group);
+        }
+        synchronized (client) {
+            Bucket bucket = client.byGroup()[group.ordinal()];
+            if (bucket == null) {
+                bucket = clusterStore.bucket(identity + ":" + client.tier() + ":" + group,
+                        limits.get(client.tier()).get(group));
+                client.byGroup()[group.ordinal()] = bucket;
+            }
+            return bucket;
+        }
+    }
+
+    /** The caller's bucket in local mode, its fallback in cluster mode */
+    private Bucket localBucket(ClientBuckets client, EndpointGroup group) {
+        Bucket[] local = clusterStore == null ? client.byGroup() : client.fallback();
+        synchronized (client) {
+            Bucket bucket = local[group.ordinal()];
+            if (bucket == null) {
+                bucket = Bucket.builder()
+                        .addLimit(limits.get(client.tier()).get(group))
+                        // A lock per bucket is cheaper than lock-free CAS, which allocates on every consume
+                        .withSynchronizationStrategy(SynchronizationStrategy.SYNCHRONIZED)
+                        .build();
+                local[group.ordinal()] = bucket;
+            }
+            return bucket;
+        }
+    }
+
+    private ClientBuckets newBuckets(Tier tier) {
+        int groups = EndpointGroup.values().length;
+        return new ClientBuckets(tier, new Bucket[groups], clusterStore != null ? new Bucket[groups] : null);
+    }
+
+    /**
+     * Requests per minute for the given tier and group
+     */
+    public long limit(Tier tier, EndpointGroup group) {
+        return limits.get(tier).get(group).getCapacity();
+    }
+}
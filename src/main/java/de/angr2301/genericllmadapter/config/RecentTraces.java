@@ -0,0 +1,166 @@
+package de.angr2301.genericllmadapter.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory ring buffer of the most recent request traces.
+ *
+ * Registered with the OpenTelemetry SDK as a span processor: spans are grouped by trace until
+ * the local root (the HTTP server span) ends, then the trace is stored with its spans as a
+ * stage breakdown. Only request traces are kept; scheduled jobs and other background work are
+ * dropped. Memory is bounded by the ring size, the spans kept per trace and the number of
+ * traces still in flight.
+ */
+@Component
+public class RecentTraces implements SpanProcessor {
+
+    public record Stage(String name, String spanId, String parentSpanId, double offsetMs, double durationMs,
+                        boolean error, Map<String, String> attributes) {
+    }
+
+    public record Trace(String traceId, String name, Instant start, double durationMs, boolean error,
+                        List<Stage> stages) {
+    }
+
+    private final int maxSpansPerTrace;
+    /** Finished child spans by trace id, waiting for their root */
+    private final Cache<String, List<SpanData>> pending;
+    private final Trace[] ring;
+    private long written;
+
+    public RecentTraces(@Value("${tracing.recent.capacity:1000}") int capacity,
+                        @Value("${tracing.recent.max-spans-per-trace:200}") int maxSpansPerTrace,
+                        @Value("${tracing.recent.max-pending-traces:10000}") long maxPendingTraces,
+                        @Value("${tracing.recent.pending-timeout:PT5M}") Duration pendingTimeout) {
+        if (capacity <= 0 || maxSpansPerTrace <= 0) {
+            throw new IllegalArgumentException("capacity and max-spans-per-trace must be positive");
+        }
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.ring = new Trace[capacity];
+        this.pending = Caffeine.newBuilder()
+                .maximumSize(maxPendingTraces)
+                // Children of roots that never end (or were not sampled locally) must not pile up
+                .expireAfterWrite(pendingTimeout)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        String traceId = span.getSpanContext().getTraceId();
+        SpanContext parent = span.getParentSpanContext();
+        if (parent.isValid() && !parent.isRemote()) {
+            pending.asMap().compute(traceId, (id, spans) -> {
+                List<SpanData> list = spans != null ? spans : new ArrayList<>();
+                if (list.size() < maxSpansPerTrace) {
+                    list.add(span.toSpanData());
+                }
+                return list;
+            });
+            return;
+        }
+        List<SpanData> children = pending.asMap().remove(traceId);
+        if (span.getKind() == SpanKind.SERVER) {
+            add(summarize(span.toSpanData(), children != null ? children : List.of()));
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    /**
+     * The slowest of the recorded requests, slowest first
+     */
+    public List<Trace> slowest(int limit) {
+        return snapshot().stream()
+                .sorted(Comparator.comparingDouble(Trace::durationMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * A recorded request by trace id, or null if it is not (or no longer) in the buffer
+     */
+    public Trace find(String traceId) {
+        return snapshot().stream()
+                .filter(trace -> trace.traceId().equals(traceId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private synchronized void add(Trace trace) {
+        ring[(int) (written++ % ring.length)] = trace;
+    }
+
+    private synchronized List<Trace> snapshot() {
+        return Arrays.stream(ring).filter(Objects::nonNull).toList();
+    }
+
+    private static Trace summarize(SpanData root, List<SpanData> children) {
+        long start = root.getStartEpochNanos();
+        List<Stage> stages = children.stream()
+                .sorted(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                .map(span -> new Stage(
+                        span.getName(),
+                        span.getSpanId(),
+                        span.getParentSpanId(),
+                        millis(span.getStartEpochNanos() - start),
+                        millis(span.getEndEpochNanos() - span.getStartEpochNanos()),
+                        isError(span),
+                        attributes(span)))
+                .toList();
+        return new Trace(
+                root.getTraceId(),
+                root.getName(),
+                Instant.ofEpochSecond(0, start),
+                millis(root.getEndEpochNanos() - start),
+                isError(root),
+                stages);
+    }
+
+    private static boolean isError(SpanData span) {
+        return span.getStatus().getStatusCode() == StatusCode.ERROR;
+    }
+
+    private static Map<String, String> attributes(SpanData span) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        return attributes;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,43 @@
+package de.angr2301.genericllmadapter.config;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Returns the trace id of every request as X-Trace-Id, so a slow or failed call can be looked up
+ * under /api/admin/traces and in the logs. Runs right after Boot's HTTP observation filter, which
+ * opens the server span, and before the security chain, so rejected requests carry it too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private final Tracer tracer;
+
+    @Override
+    protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request,
+            @org.springframework.lang.NonNull HttpServletResponse response,
+            @org.springframework.lang.NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            response.setHeader(HEADER, span.context().traceId());
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,53 @@
+package de.angr2301.genericllmadapter.controller;
+
+import de.angr2301.genericllmadapter.domain.prompt.SystemPrompt;
+import de.angr2301.genericllmadapter.domain.prompt.SystemPromptRequest;
+import de.angr2301.genericllmadapter.domain.prompt.SystemPromptService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * System prompt templates (admin only, see SecurityConfig). Variables: {{date}}, {{tenant}}.
+ * A template that does not compile is rejected with 400 and the reason.
+ */
+@RestController
+@RequestMapping("/api/admin/system-prompts")
+@RequiredArgsConstructor
+public class AdminSystemPromptController {
+
+    private final SystemPromptService systemPromptService;
+
+    @GetMapping
+    public List<SystemPrompt> list() {
+        return systemPromptService.findAll();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> create(@RequestBody SystemPromptRequest request) {
+        try {
+            return ResponseEntity.ok(systemPromptService.create(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{promptId}")
+    public ResponseEntity<?> update(@PathVariable UUID promptId, @RequestBody SystemPromptRequest request) {
+        try {
+            return ResponseEntity.ok(systemPromptService.update(promptId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{promptId}")
+    public ResponseEntity<Void> delete(@PathVariable UUID promptId) {
+        systemPromptService.delete(promptId);
+        return ResponseEntity.noContent().build();
+    }
+}
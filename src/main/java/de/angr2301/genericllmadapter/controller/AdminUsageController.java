@@ -0,0 +1,75 @@
+package de.angr2301.genericllmadapter.controller;
+
+import de.angr2301.genericllmadapter.domain.usage.UsageLedger;
+import de.angr2301.genericllmadapter.domain.usage.UsageSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Token usage of all users (admin only, see SecurityConfig).
+ * Ranges are UTC days, inclusive, by default the last 30 days.
+ */
+@RestController
+@RequestMapping("/api/admin/usage")
+@RequiredArgsConstructor
+public class AdminUsageController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final UsageLedger usageLedger;
+
+    @GetMapping
+    public ResponseEntity<UsageSummary> summary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = end(to);
+        LocalDate start = start(from, end);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(usageLedger.summary(start, end));
+    }
+
+    /**
+     * Users ordered by tokens used, largest first
+     */
+    @GetMapping("/users")
+    public ResponseEntity<List<UsageLedger.UserUsage>> topUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "50") int limit) {
+        LocalDate end = end(to);
+        LocalDate start = start(from, end);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(usageLedger.topUsers(start, end, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<UsageSummary> userSummary(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = end(to);
+        LocalDate start = start(from, end);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(usageLedger.summary(userId, start, end));
+    }
+
+    private static LocalDate end(LocalDate to) {
+        return to != null ? to : UsageLedger.today();
+    }
+
+    private static LocalDate start(LocalDate from, LocalDate end) {
+        return from != null ? from : end.minusDays(UsageLedger.DEFAULT_DAYS - 1);
+    }
+}
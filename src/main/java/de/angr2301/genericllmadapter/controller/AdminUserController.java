@@ -0,0 +1,26 @@
+package de.angr2301.genericllmadapter.controller;
+
+import de.angr2301.genericllmadapter.domain.user.UpdateAccessRequest;
+import de.angr2301.genericllmadapter.domain.user.UserResponse;
+import de.angr2301.genericllmadapter.domain.user.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Role and enabled management (admin only, see SecurityConfig)
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+public class AdminUserController {
+
+    private final UserService userService;
+
+    @PatchMapping("/{userId}/access")
+    public ResponseEntity<UserResponse> updateAccess(@PathVariable UUID userId, @RequestBody UpdateAccessRequest request) {
+        return ResponseEntity.ok(UserResponse.fromUser(userService.updateAccess(userId, request)));
+    }
+}
@@ -0,0 +1,71 @@
+package de.angr2301.genericllmadapter.controller;
+
+import de.angr2301.genericllmadapter.config.RateLimitExceededException;
+import de.angr2301.genericllmadapter.domain.admission.AdmissionRejectedException;
+import de.angr2301.genericllmadapter.domain.quota.TokenQuotaExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps domain exceptions that clients should react to onto HTTP responses
+ */
+@RestControllerAdvice
+@Slf4j
+public class ApiExceptionHandler {
+
+    /**
+     * 429 with Retry-After (whole seconds, rounded up) when the budget refills in time,
+     * 413 when the request is larger than the budget itself
+     */
+    @ExceptionHandler(TokenQuotaExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleTokenQuota(TokenQuotaExceededException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", e.getMessage());
+        if (e.getRetryAfter() == null) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(body);
+        }
+        long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        body.put("retryAfterSeconds", seconds);
+        log.debug("Token quota exceeded: {} (retry after {}s)", e.getMessage(), seconds);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(body);
+    }
+
+    /**
+     * 429 with Retry-After, as from the RateLimitFilter, when a charge after it does not fit the bucket
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimit(RateLimitExceededException e) {
+        long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", e.getMessage());
+        body.put("retryAfterSeconds", seconds);
+        log.debug("Rate limit exceeded: {} (retry after {}s)", e.getMessage(), seconds);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(body);
+    }
+
+    /**
+     * 503 with Retry-After when the provider's admission queue is full or the wait timed out
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleAdmission(AdmissionRejectedException e) {
+        long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", e.getMessage());
+        body.put("retryAfterSeconds", seconds);
+        log.debug("Provider call not admitted: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(body);
+    }
+}
@@ -1,19 +1,35 @@
 package de.angr2301.genericllmadapter.controller;
 
+import de.angr2301.genericllmadapter.domain.admission.Lane;
+import de.angr2301.genericllmadapter.domain.chat.ChatExportService;
 import de.angr2301.genericllmadapter.domain.chat.ChatService;
 import de.angr2301.genericllmadapter.domain.chat.InteractionLog;
 import de.angr2301.genericllmadapter.domain.chat.LlmHealthCheckService;
 import de.angr2301.genericllmadapter.domain.chat.Session;
+import de.angr2301.genericllmadapter.domain.chat.TrafficCapture;
+import de.angr2301.genericllmadapter.domain.prompt.SystemPrompt;
+import de.angr2301.genericllmadapter.domain.prompt.SystemPromptService;
+import de.angr2301.genericllmadapter.domain.user.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import de.angr2301.genericllmadapter.dto.chat.ChatReply;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -23,7 +39,12 @@ import java.util.UUID;
 public class ChatController {
 
     private final ChatService chatService;
+    private final ChatExportService chatExportService;
     private final LlmHealthCheckService llmHealthCheckService;
+    private final TrafficCapture trafficCapture;
+    private final ObjectMapper objectMapper;
+    private final SystemPromptService systemPromptService;
+    private final UserService userService;
 
     @PostMapping("/sessions")
     public Session createSession() {
@@ -38,20 +59,119 @@ public class ChatController {
         return chatService.getUserSessions(email);
     }
 
+    /**
+     * System prompts the current user can choose for a session
+     */
+    @GetMapping("/system-prompts")
+    public List<SystemPrompt> getSystemPrompts() {
+        return systemPromptService.available(userService.getUserByEmail(getCurrentUserEmail()).getTenantId());
+    }
+
+    /**
+     * Choose the session's system prompt; {"systemPromptId": null} goes back to the default
+     */
+    @PutMapping("/sessions/{sessionId}/system-prompt")
+    public Session selectSystemPrompt(@PathVariable UUID sessionId, @RequestBody SystemPromptSelection request) {
+        return chatService.selectSystemPrompt(sessionId, request.systemPromptId(), getCurrentUserEmail());
+    }
+
+    /**
+     * @param priority "batch" for scripts and background work: queued behind interactive chats when
+     *                 the provider is busy (see AdmissionScheduler)
+     */
     @PostMapping("/sessions/{sessionId}/messages")
     public ResponseEntity<de.angr2301.genericllmadapter.dto.chat.ChatReply> sendMessage(
             @PathVariable UUID sessionId,
             @RequestBody de.angr2301.genericllmadapter.controller.ChatRequest request,
+            @RequestHeader(name = "X-Request-Priority", defaultValue = "interactive") String priority,
             Authentication authentication) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        return ResponseEntity.ok(
-                chatService.sendMessage(sessionId, request.prompt(), request.provider(), userDetails.getUsername()));
+        trafficCapture.record(sessionId, userDetails.getUsername(), request.provider(), request.prompt());
+        Lane lane = "batch".equalsIgnoreCase(priority) ? Lane.BATCH : Lane.INTERACTIVE;
+        return ResponseEntity.ok(chatService.sendMessage(
+                sessionId, request.prompt(), request.provider(), userDetails.getUsername(), lane));
     }
 
+    /**
+     * Send one prompt to several providers at once, for comparing their answers. The response is
+     * newline-delimited JSON: one CompareCandidate per provider in the order they finish, then
+     * {"turnId": ...} once the turn is saved.
+     */
+    @PostMapping("/sessions/{sessionId}/compare")
+    public ResponseEntity<StreamingResponseBody> compare(
+            @PathVariable UUID sessionId,
+            @RequestBody CompareRequest request) {
+        String email = getCurrentUserEmail();
+        ChatService.Comparison comparison =
+                chatService.startComparison(sessionId, request.prompt(), request.providers(), email);
+
+        StreamingResponseBody body = out -> {
+            try {
+                UUID turnId = comparison.run(candidate -> writeLine(out, candidate));
+                writeLine(out, Map.of("turnId", turnId));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Messages of a session, for polling clients: the response carries an ETag, and a request with a
+     * matching If-None-Match is answered 304 without loading the messages. JSON above
+     * server.compression.min-response-size is gzip-compressed.
+     *
+     * @param after only messages with a greater seq, normally the newest one the client already has
+     */
     @GetMapping("/sessions/{sessionId}/messages")
-    public List<InteractionLog> getMessages(@PathVariable UUID sessionId) {
+    public ResponseEntity<List<InteractionLog>> getMessages(
+            @PathVariable UUID sessionId,
+            @RequestParam(required = false) Long after,
+            WebRequest request) {
         String email = getCurrentUserEmail();
-        return chatService.getMessages(sessionId, email);
+        String eTag = chatService.getMessagesETag(sessionId, email);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(chatService.getMessages(sessionId, email, after));
+    }
+
+    /**
+     * Export all sessions and messages of the current user as newline-delimited JSON.
+     * The response is streamed straight from a database cursor, so the export size is
+     * not limited by server memory.
+     *
+     * @param gzip whether to deliver the export as a gzip-compressed file
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSessions(
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        String email = getCurrentUserEmail();
+        UUID userId = chatExportService.resolveUserId(email);
+        log.debug("Streaming NDJSON export for user: {} (gzip={})", email, gzip);
+
+        StreamingResponseBody body = out -> chatExportService.export(userId, out, gzip);
+        String fileName = gzip ? "chat-export.ndjson.gz" : "chat-export.ndjson";
+
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
 
     /**
@@ -0,0 +1,5 @@
+package de.angr2301.genericllmadapter.controller;
+
+import java.util.List;
+
+public record CompareRequest(String prompt, List<String> providers) {}
@@ -0,0 +1,23 @@
+package de.angr2301.genericllmadapter.controller;
+
+import de.angr2301.genericllmadapter.domain.embedding.EmbeddingCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Hit rates of the embedding cache (admin only, see SecurityConfig)
+ */
+@RestController
+@RequestMapping("/api/admin/embedding-cache")
+@RequiredArgsConstructor
+public class EmbeddingCacheController {
+
+    private final EmbeddingCache embeddingCache;
+
+    @GetMapping
+    public EmbeddingCache.Stats stats() {
+        return embeddingCache.stats();
+    }
+}
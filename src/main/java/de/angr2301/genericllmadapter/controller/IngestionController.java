@@ -0,0 +1,64 @@
+package de.angr2301.genericllmadapter.controller;
+
+import de.angr2301.genericllmadapter.domain.ingestion.IngestionService;
+import de.angr2301.genericllmadapter.domain.user.User;
+import de.angr2301.genericllmadapter.domain.user.UserService;
+import de.angr2301.genericllmadapter.dto.ingestion.IngestionRequest;
+import de.angr2301.genericllmadapter.dto.ingestion.IngestionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk loading of reference documents (admin only, see SecurityConfig).
+ * Embeddings are computed with the calling admin's OpenAI key.
+ */
+@RestController
+@RequestMapping("/api/admin/ingestion")
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionController {
+
+    private final IngestionService ingestionService;
+    private final UserService userService;
+
+    @PostMapping
+    public ResponseEntity<IngestionStatus> start(@RequestBody IngestionRequest request, Authentication authentication) {
+        User user = currentUser(authentication);
+        log.info("Ingestion of {} started by {}", request.path(), user.getEmail());
+        return ResponseEntity.accepted().body(ingestionService.start(request.path(), user.getOpenaiKey()));
+    }
+
+    @GetMapping
+    public List<IngestionStatus> listJobs() {
+        return ingestionService.listJobs();
+    }
+
+    @GetMapping("/{jobId}")
+    public IngestionStatus status(@PathVariable UUID jobId) {
+        return ingestionService.status(jobId);
+    }
+
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<IngestionStatus> resume(@PathVariable UUID jobId, Authentication authentication) {
+        User user = currentUser(authentication);
+        return ResponseEntity.accepted().body(ingestionService.resume(jobId, user.getOpenaiKey()));
+    }
+
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<Void> cancel(@PathVariable UUID jobId) {
+        ingestionService.cancel(jobId);
+        return ResponseEntity.accepted().build();
+    }
+
+    private User currentUser(Authentication authentication) {
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return userService.getUserByEmail(userDetails.getUsername());
+    }
+}
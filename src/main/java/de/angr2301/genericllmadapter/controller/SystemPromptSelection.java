@@ -0,0 +1,5 @@
+package de.angr2301.genericllmadapter.controller;
+
+import java.util.UUID;
+
+public record SystemPromptSelection(UUID systemPromptId) {}
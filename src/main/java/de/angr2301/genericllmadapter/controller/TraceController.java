@@ -0,0 +1,39 @@
+package de.angr2301.genericllmadapter.controller;
+
+import de.angr2301.genericllmadapter.config.RecentTraces;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Stage breakdown of recent requests (admin only, see SecurityConfig)
+ */
+@RestController
+@RequestMapping("/api/admin/traces")
+@RequiredArgsConstructor
+public class TraceController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final RecentTraces recentTraces;
+
+    @GetMapping("/slowest")
+    public List<RecentTraces.Trace> slowest(@RequestParam(defaultValue = "20") int limit) {
+        return recentTraces.slowest(Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    /**
+     * Look up a request by the X-Trace-Id it was answered with
+     */
+    @GetMapping("/{traceId}")
+    public ResponseEntity<RecentTraces.Trace> trace(@PathVariable String traceId) {
+        RecentTraces.Trace trace = recentTraces.find(traceId);
+        return trace != null ? ResponseEntity.ok(trace) : ResponseEntity.notFound().build();
+    }
+}
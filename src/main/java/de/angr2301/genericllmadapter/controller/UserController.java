@@ -1,21 +1,27 @@
 package de.angr2301.genericllmadapter.controller;
 
+import de.angr2301.genericllmadapter.domain.usage.UsageLedger;
+import de.angr2301.genericllmadapter.domain.usage.UsageSummary;
 import de.angr2301.genericllmadapter.domain.user.UpdateKeysRequest;
 import de.angr2301.genericllmadapter.domain.user.User;
 import de.angr2301.genericllmadapter.domain.user.UserResponse;
 import de.angr2301.genericllmadapter.domain.user.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
 
     private final UserService userService;
+    private final UsageLedger usageLedger;
 
     @GetMapping("/me")
     public ResponseEntity<UserResponse> getCurrentUser(Authentication authentication) {
@@ -33,4 +39,22 @@ public class UserController {
         User updatedUser = userService.updateApiKeys(user.getId(), request);
         return ResponseEntity.ok(UserResponse.fromUser(updatedUser));
     }
+
+    /**
+     * Own token usage between two UTC days (inclusive), by default the last 30 days
+     */
+    @GetMapping("/me/usage")
+    public ResponseEntity<UsageSummary> getUsage(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : UsageLedger.today();
+        LocalDate start = from != null ? from : end.minusDays(UsageLedger.DEFAULT_DAYS - 1);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userService.getUserByEmail(userDetails.getUsername());
+        return ResponseEntity.ok(usageLedger.summary(user.getId(), start, end));
+    }
 }
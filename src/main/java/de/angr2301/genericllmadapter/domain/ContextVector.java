@@ -5,7 +5,6 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 // import com.pgvector.PGvector; // If using explicit type mapping, but usually double[] or custom binder used
-import org.hibernate.annotations.Array;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -29,14 +28,22 @@ public class ContextVector {
     @Column(columnDefinition = "text")
     private String content;
 
+    // Source document of ingested reference material, null for chat messages
+    @Column(columnDefinition = "text")
+    private String source;
+
+    // embedding.dimensions long; Flyway sets the column type to match (R__Context_Vectors_Quantized_Index.sql)
     @Column(name = "embedding", columnDefinition = "vector")
     @JdbcTypeCode(SqlTypes.VECTOR)
-    @Array(length = 1536) // Assuming OpenAI dim
-    private float[] embedding; // Hibernate 6.4+ / pgvector-java support float[] directly often
+    private float[] embedding;
 
     @Column(name = "created_at")
     private OffsetDateTime createdAt;
 
+    // Writing transaction, set by the database (see V13__Context_Vectors_Created_Xid.sql)
+    @Column(name = "created_xid", insertable = false, updatable = false)
+    private Long createdXid;
+
     @PrePersist
     public void prePersist() {
         if (createdAt == null) {
@@ -0,0 +1,41 @@
+package de.angr2301.genericllmadapter.domain.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admission of provider calls (admission.* in application.yml)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /** Calls in flight per provider and instance; more wait in the fair queue */
+    private int maxConcurrent = 32;
+
+    /** Overrides of max-concurrent by provider name (openai, deepseek, huggingface, local-vllm) */
+    private Map<String, Integer> providers = new HashMap<>();
+
+    /** Waiting calls per provider beyond which new ones are rejected at once */
+    private int maxQueued = 1000;
+
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    /** Suggested to rejected clients */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /** Estimated prompt tokens a tenant of weight 1 may send per round before the next tenant's turn */
+    private long quantumTokens = 4096;
+
+    /** Share of capacity per lane while several lanes are waiting */
+    private Map<Lane, Integer> lanes = new EnumMap<>(Map.of(Lane.INTERACTIVE, 9, Lane.BATCH, 1));
+}
@@ -0,0 +1,19 @@
+package de.angr2301.genericllmadapter.domain.admission;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a provider call is not admitted: its queue is full or it waited longer than admission.max-wait
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,220 @@
+package de.angr2301.genericllmadapter.domain.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission of provider calls: at most admission.max-concurrent calls per provider are in flight,
+ * the rest wait in a {@link FairQueue} by lane, tenant and user. One user's script can therefore
+ * only use its tenant's share of a busy provider instead of queueing everyone else behind it.
+ *
+ * llm.admission.wait     time from arrival to admission (or rejection) by provider, lane and outcome
+ * llm.admission.queued   calls waiting by provider and lane
+ * llm.admission.inflight admitted calls by provider
+ *
+ * Tenant weights come from defining_data.tenants.scheduling_weight and are refreshed periodically;
+ * a user without tenant is scheduled as a tenant of weight 1.
+ */
+@Service
+@Slf4j
+public class AdmissionScheduler {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry registry;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Integer> providerLimits = new HashMap<>();
+    private final Map<String, ProviderQueue> queues = new ConcurrentHashMap<>();
+    private volatile Map<UUID, Integer> tenantWeights = Map.of();
+
+    public AdmissionScheduler(AdmissionProperties properties, MeterRegistry registry, JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.registry = registry;
+        this.jdbcTemplate = jdbcTemplate;
+        properties.getProviders().forEach((provider, limit) -> providerLimits.put(providerKey(provider), limit));
+    }
+
+    /**
+     * Admitted call; close it when the provider has answered
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private static final Permit NONE = new Permit(null);
+
+        private final ProviderQueue queue;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(ProviderQueue queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void close() {
+            if (queue != null && closed.compareAndSet(false, true)) {
+                queue.release();
+            }
+        }
+    }
+
+    /**
+     * Wait until the call may go to the provider
+     *
+     * @param tenantId        null if the user has no tenant
+     * @param estimatedTokens what the call costs in the fair queue (the prompt estimate)
+     * @throws AdmissionRejectedException if the queue is full or the wait exceeds admission.max-wait
+     */
+    public Permit acquire(String provider, UUID tenantId, UUID userId, Lane lane, long estimatedTokens) {
+        if (!properties.isEnabled()) {
+            return Permit.NONE;
+        }
+        ProviderQueue queue = queues.computeIfAbsent(providerKey(provider), ProviderQueue::new);
+        UUID tenant = tenantId != null ? tenantId : userId;
+        int weight = tenantId != null ? tenantWeights.getOrDefault(tenantId, 1) : 1;
+        FairQueue.Ticket ticket = new FairQueue.Ticket(tenant, userId, lane, estimatedTokens, weight);
+        return queue.acquire(ticket);
+    }
+
+    /**
+     * Reload tenant weights (admission.tenant-refresh-interval)
+     */
+    @Scheduled(fixedDelayString = "${admission.tenant-refresh-interval:PT1M}")
+    public void refreshTenantWeights() {
+        try {
+            Map<UUID, Integer> weights = new HashMap<>();
+            jdbcTemplate.query("SELECT id, scheduling_weight FROM defining_data.tenants",
+                    rs -> {
+                        weights.put(rs.getObject("id", UUID.class), rs.getInt("scheduling_weight"));
+                    });
+            tenantWeights = Map.copyOf(weights);
+        } catch (DataAccessException e) {
+            log.warn("Could not load tenant weights, keeping the previous ones: {}", e.getMessage());
+        }
+    }
+
+    private final class ProviderQueue {
+
+        private final String provider;
+        private final int capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final FairQueue waiting = new FairQueue(properties.getQuantumTokens(), properties.getLanes());
+        private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+        private int inFlight;
+
+        ProviderQueue(String provider) {
+            this.provider = provider;
+            this.capacity = Math.max(1, providerLimits.getOrDefault(provider, properties.getMaxConcurrent()));
+            Gauge.builder("llm.admission.inflight", this, queue -> queue.inFlight)
+                    .description("Admitted provider calls")
+                    .tag("provider", provider)
+                    .register(registry);
+            for (Lane lane : Lane.values()) {
+                Gauge.builder("llm.admission.queued", this, queue -> queue.waiting.size(lane))
+                        .description("Provider calls waiting for admission")
+                        .tag("provider", provider)
+                        .tag("lane", laneTag(lane))
+                        .register(registry);
+            }
+        }
+
+        Permit acquire(FairQueue.Ticket ticket) {
+            lock.lock();
+            try {
+                if (inFlight < capacity && waiting.size() == 0) {
+                    inFlight++;
+                    record(ticket, "admitted");
+                    return new Permit(this);
+                }
+                if (waiting.size() >= properties.getMaxQueued()) {
+                    record(ticket, "rejected");
+                    throw new AdmissionRejectedException(
+                            "Too many waiting requests for " + provider, properties.getRetryAfter());
+                }
+                waiting.add(ticket);
+            } finally {
+                lock.unlock();
+            }
+
+            boolean interrupted = false;
+            try {
+                ticket.admitted().await(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!ticket.isAdmitted()) {
+                lock.lock();
+                try {
+                    if (waiting.remove(ticket)) {
+                        record(ticket, "timeout");
+                        if (interrupted) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new AdmissionRejectedException("Waited too long for " + provider,
+                                properties.getRetryAfter());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // Admitted while giving up
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            record(ticket, "admitted");
+            return new Permit(this);
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                inFlight--;
+                while (inFlight < capacity) {
+                    FairQueue.Ticket next = waiting.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    inFlight++;
+                    next.admit();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void record(FairQueue.Ticket ticket, String outcome) {
+            waitTimers.computeIfAbsent(laneTag(ticket.lane) + ':' + outcome, key -> Timer.builder("llm.admission.wait")
+                            .description("Wait for admission of a provider call")
+                            .tag("provider", provider)
+                            .tag("lane", laneTag(ticket.lane))
+                            .tag("outcome", outcome)
+                            .publishPercentiles(PERCENTILES)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(Duration.ofNanos(System.nanoTime() - ticket.enqueuedNanos));
+        }
+    }
+
+    private static String laneTag(Lane lane) {
+        return lane.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String providerKey(String provider) {
+        return provider.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+}
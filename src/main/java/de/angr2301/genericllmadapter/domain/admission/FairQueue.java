@@ -0,0 +1,198 @@
+package de.angr2301.genericllmadapter.domain.admission;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Waiting provider calls of one provider, in admission order. Not thread-safe; AdmissionScheduler guards it.
+ *
+ * Lanes: the waiting lane that has been served the fewest tokens per lane weight goes next. A lane that
+ * was idle starts level with the others instead of catching up on what it did not use.
+ *
+ * Within a lane: deficit round robin over users. Each turn a user is credited
+ * quantum * tenant weight / waiting users of the tenant and sends calls while the credit covers their
+ * estimated tokens, so tenants share by weight and users of a tenant share equally, however many calls
+ * each of them queues.
+ */
+final class FairQueue {
+
+    /** One waiting call */
+    static final class Ticket {
+        final UUID tenant;
+        final UUID user;
+        final Lane lane;
+        final long cost;
+        final int tenantWeight;
+        final long enqueuedNanos = System.nanoTime();
+        private final CountDownLatch admitted = new CountDownLatch(1);
+
+        Ticket(UUID tenant, UUID user, Lane lane, long cost, int tenantWeight) {
+            this.tenant = tenant;
+            this.user = user;
+            this.lane = lane;
+            this.cost = Math.max(1, cost);
+            this.tenantWeight = Math.max(1, tenantWeight);
+        }
+
+        void admit() {
+            admitted.countDown();
+        }
+
+        boolean isAdmitted() {
+            return admitted.getCount() == 0;
+        }
+
+        CountDownLatch admitted() {
+            return admitted;
+        }
+    }
+
+    private static final class Flow {
+        final UUID user;
+        final UUID tenant;
+        final ArrayDeque<Ticket> tickets = new ArrayDeque<>();
+        double deficit;
+        boolean credited;
+
+        Flow(UUID user, UUID tenant) {
+            this.user = user;
+            this.tenant = tenant;
+        }
+    }
+
+    private final class LaneQueue {
+        final int weight;
+        final ArrayDeque<Flow> active = new ArrayDeque<>();
+        final Map<UUID, Flow> flows = new HashMap<>();
+        final Map<UUID, Integer> usersPerTenant = new HashMap<>();
+        /** Tokens served divided by weight */
+        double served;
+        int size;
+
+        LaneQueue(int weight) {
+            this.weight = Math.max(1, weight);
+        }
+
+        void add(Ticket ticket) {
+            Flow flow = flows.get(ticket.user);
+            if (flow == null) {
+                flow = new Flow(ticket.user, ticket.tenant);
+                flows.put(ticket.user, flow);
+                active.addLast(flow);
+                usersPerTenant.merge(ticket.tenant, 1, Integer::sum);
+            }
+            flow.tickets.addLast(ticket);
+            size++;
+        }
+
+        Ticket poll() {
+            while (true) {
+                Flow flow = active.peekFirst();
+                Ticket head = flow.tickets.peekFirst();
+                if (!flow.credited) {
+                    flow.deficit += quantumTokens * (double) head.tenantWeight / usersPerTenant.get(flow.tenant);
+                    flow.credited = true;
+                }
+                if (flow.deficit >= head.cost) {
+                    flow.tickets.pollFirst();
+                    flow.deficit -= head.cost;
+                    size--;
+                    served += (double) head.cost / weight;
+                    if (flow.tickets.isEmpty()) {
+                        drop(flow);
+                    }
+                    return head;
+                }
+                // Credit used up: next user's turn
+                active.pollFirst();
+                flow.credited = false;
+                active.addLast(flow);
+            }
+        }
+
+        boolean remove(Ticket ticket) {
+            Flow flow = flows.get(ticket.user);
+            if (flow == null || !flow.tickets.remove(ticket)) {
+                return false;
+            }
+            size--;
+            if (flow.tickets.isEmpty()) {
+                drop(flow);
+            }
+            return true;
+        }
+
+        /** An idle user keeps no credit */
+        private void drop(Flow flow) {
+            active.remove(flow);
+            flows.remove(flow.user);
+            usersPerTenant.computeIfPresent(flow.tenant, (tenant, users) -> users > 1 ? users - 1 : null);
+        }
+    }
+
+    private final long quantumTokens;
+    private final Map<Lane, LaneQueue> lanes = new EnumMap<>(Lane.class);
+    private int size;
+
+    FairQueue(long quantumTokens, Map<Lane, Integer> laneWeights) {
+        this.quantumTokens = Math.max(1, quantumTokens);
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneQueue(laneWeights.getOrDefault(lane, 1)));
+        }
+    }
+
+    void add(Ticket ticket) {
+        LaneQueue lane = lanes.get(ticket.lane);
+        if (lane.size == 0) {
+            double level = Double.MAX_VALUE;
+            for (LaneQueue other : lanes.values()) {
+                if (other.size > 0) {
+                    level = Math.min(level, other.served);
+                }
+            }
+            lane.served = level == Double.MAX_VALUE ? 0 : Math.max(lane.served, level);
+        }
+        lane.add(ticket);
+        size++;
+    }
+
+    /**
+     * @return the next call to admit, null if none is waiting
+     */
+    Ticket poll() {
+        LaneQueue next = null;
+        for (LaneQueue lane : lanes.values()) {
+            if (lane.size > 0 && (next == null || lane.served < next.served)) {
+                next = lane;
+            }
+        }
+        if (next == null) {
+            return null;
+        }
+        size--;
+        return next.poll();
+    }
+
+    /**
+     * @return false if the ticket is not waiting (any more)
+     */
+    boolean remove(Ticket ticket) {
+        if (lanes.get(ticket.lane).remove(ticket)) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int size(Lane lane) {
+        return lanes.get(lane).size;
+    }
+}
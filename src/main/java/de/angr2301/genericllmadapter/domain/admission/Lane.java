@@ -0,0 +1,12 @@
+package de.angr2301.genericllmadapter.domain.admission;
+
+/**
+ * Priority lane of a provider call. Lanes share upstream capacity by weight (admission.lanes),
+ * so batch work cannot crowd out interactive chats and still makes progress under load.
+ */
+public enum Lane {
+    /** A user waiting for the answer */
+    INTERACTIVE,
+    /** Scripts and background work (X-Request-Priority: batch) */
+    BATCH
+}
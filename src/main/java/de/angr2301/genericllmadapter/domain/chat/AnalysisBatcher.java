@@ -0,0 +1,231 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import de.angr2301.genericllmadapter.dto.analysis.AnalysisRequest;
+import de.angr2301.genericllmadapter.dto.analysis.AnalysisResponse;
+import de.angr2301.genericllmadapter.feign.AnalysisClient;
+import feign.FeignException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent analysis calls (analysis.batch.enabled) into one POST /analyze_batch.
+ *
+ * The first waiting request opens a window of analysis.batch.window; everything arriving within it, up to
+ * analysis.batch.max-size, goes out as one JSON array and the answers (same order) are handed back to the
+ * waiting callers. A batch of one is sent to /analyze. When the analysis service has no batch endpoint
+ * (404/405), requests go out one by one until analysis.batch.retry-after has passed.
+ *
+ * A caller waits analysis.batch.wait-timeout, by default the window plus two analysisClient read timeouts:
+ * the batch call and, when the endpoint is missing, the single call that follows it.
+ *
+ * analysis.batch.size  requests per upstream call, by endpoint
+ */
+@Service
+@Slf4j
+public class AnalysisBatcher {
+
+    private record Pending(AnalysisRequest request, CompletableFuture<AnalysisResponse> result) {
+    }
+
+    private final AnalysisClient client;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxSize;
+    private final Duration waitTimeout;
+    private final Duration retryAfter;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService senders;
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary singleSizes;
+    private final Thread dispatcher;
+    /** System.nanoTime() before which /analyze_batch is not tried again */
+    private volatile long singleCallsUntil = System.nanoTime();
+    private volatile boolean closed;
+
+    public AnalysisBatcher(AnalysisClient client, MeterRegistry registry,
+                           @Value("${analysis.batch.enabled:true}") boolean enabled,
+                           @Value("${analysis.batch.window:PT0.005S}") Duration window,
+                           @Value("${analysis.batch.max-size:32}") int maxSize,
+                           @Value("${analysis.batch.wait-timeout:#{null}}") Duration waitTimeout,
+                           @Value("${spring.cloud.openfeign.client.config.analysisClient.read-timeout:60000}")
+                           long readTimeoutMillis,
+                           @Value("${analysis.batch.retry-after:PT5M}") Duration retryAfter,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.client = client;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxSize = Math.max(1, maxSize);
+        // The request timeout of the shared HttpClient also covers connecting
+        Duration slowest = window.plusMillis(2 * readTimeoutMillis);
+        if (waitTimeout == null) {
+            waitTimeout = slowest;
+        } else if (enabled && waitTimeout.compareTo(slowest) < 0) {
+            log.warn("analysis.batch.wait-timeout {} is shorter than a batch call plus its single-call fallback ({}),"
+                    + " callers may give up on answers still on their way", waitTimeout, slowest);
+        }
+        this.waitTimeout = waitTimeout;
+        this.retryAfter = retryAfter;
+        this.batchSizes = sizes(registry, "batch");
+        this.singleSizes = sizes(registry, "single");
+        // Without virtual threads a fixed pool: a burst of slow calls queues instead of starting a thread each
+        this.senders = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analysis-batch-", 0).factory())
+                : Executors.newFixedThreadPool(this.maxSize,
+                        Thread.ofPlatform().daemon().name("analysis-batch-", 0).factory());
+        this.dispatcher = enabled
+                ? Thread.ofPlatform().name("analysis-batcher").daemon().start(this::dispatch)
+                : null;
+    }
+
+    /**
+     * Analyze one turn; blocks until its batch has been answered
+     *
+     * @throws IllegalStateException if no answer arrives within analysis.batch.wait-timeout
+     */
+    public AnalysisResponse analyze(AnalysisRequest request) {
+        if (!enabled || closed) {
+            singleSizes.record(1);
+            return client.analyze(request);
+        }
+        Pending pending = new Pending(request, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            return pending.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        } catch (TimeoutException e) {
+            pending.result().cancel(false);
+            throw new IllegalStateException("No analysis result within " + waitTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the analysis", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Callers still waiting get their answer one by one
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> senders.execute(() -> sendSingle(pending)));
+        senders.shutdown();
+    }
+
+    private void dispatch() {
+        List<Pending> batch = new ArrayList<>(maxSize);
+        while (!closed) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                queue.drainTo(batch, maxSize - batch.size());
+                while (batch.size() < maxSize) {
+                    long left = deadline - System.nanoTime();
+                    Pending next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // closing; what was collected still goes out
+            }
+            if (!batch.isEmpty()) {
+                List<Pending> sending = List.copyOf(batch);
+                batch.clear();
+                senders.execute(() -> send(sending));
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        if (batch.size() == 1 || System.nanoTime() - singleCallsUntil < 0) {
+            sendSingles(batch);
+            return;
+        }
+        List<AnalysisResponse> responses;
+        try {
+            responses = client.analyzeBatch(batch.stream().map(Pending::request).toList());
+        } catch (FeignException.NotFound | FeignException.MethodNotAllowed e) {
+            singleCallsUntil = System.nanoTime() + retryAfter.toNanos();
+            log.info("Analysis service has no /analyze_batch (HTTP {}), sending single calls for {}",
+                    e.status(), retryAfter);
+            sendSingles(batch);
+            return;
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        batchSizes.record(batch.size());
+        if (responses == null || responses.size() != batch.size()) {
+            IllegalStateException mismatch = new IllegalStateException("Analysis batch of " + batch.size()
+                    + " requests answered with " + (responses == null ? 0 : responses.size()) + " results");
+            batch.forEach(pending -> pending.result().completeExceptionally(mismatch));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(responses.get(i));
+        }
+    }
+
+    /** One call per request; the first on this sender thread, the others in parallel on further senders */
+    private void sendSingles(List<Pending> batch) {
+        for (int i = 1; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            senders.execute(() -> sendSingle(pending));
+        }
+        sendSingle(batch.get(0));
+    }
+
+    private void sendSingle(Pending pending) {
+        if (pending.result().isDone()) {
+            return;
+        }
+        try {
+            singleSizes.record(1);
+            pending.result().complete(client.analyze(pending.request()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private static DistributionSummary sizes(MeterRegistry registry, String endpoint) {
+        return DistributionSummary.builder("analysis.batch.size")
+                .description("Analysis requests per upstream call")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry);
+    }
+}
@@ -0,0 +1,176 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.angr2301.genericllmadapter.domain.user.User;
+import de.angr2301.genericllmadapter.domain.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams all sessions and interaction logs of a user as newline-delimited JSON.
+ * Rows are read through a server-side cursor (fixed fetch size inside a read-only
+ * transaction) and written as they arrive, so memory use does not depend on the
+ * size of the history.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChatExportService {
+
+    private static final String EXPORT_QUERY = """
+            SELECT s.id AS session_id, s.started_at, s.last_interaction_at,
+                   l.id AS log_id, l.role, l.content, l.reasoning, l.metrics,
+                   l.token_count, l.provider, l.timestamp
+            FROM operational_data.sessions s
+            LEFT JOIN log_data.interaction_logs l ON l.session_id = s.id
+            WHERE s.user_id = ?
+            ORDER BY s.started_at, s.id, l.timestamp, l.id
+            """;
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Resolve the user up front so an unknown principal fails before the response is committed.
+     */
+    public UUID resolveUserId(String email) {
+        return userRepository.findByEmailIgnoreCase(email)
+                .map(User::getId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+
+    /**
+     * Write the export for the given user to the output stream.
+     *
+     * @param userId user whose sessions are exported
+     * @param out    target stream, not closed by this method
+     * @param gzip   whether to gzip-compress the NDJSON stream
+     */
+    public void export(UUID userId, OutputStream out, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(target);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are terminated explicitly, suppress Jackson's default space between root values
+        generator.setRootValueSeparator(null);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        long[] counts = new long[2];
+        try {
+            tx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(EXPORT_QUERY,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setObject(1, userId);
+                return ps;
+            }, new ExportRowHandler(generator, counts)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        generator.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        log.debug("Exported {} sessions and {} messages for user {}", counts[0], counts[1], userId);
+    }
+
+    /**
+     * Emits one "session" line whenever the session changes and one "message" line per log row.
+     */
+    @RequiredArgsConstructor
+    private static class ExportRowHandler implements RowCallbackHandler {
+
+        private final JsonGenerator generator;
+        private final long[] counts;
+        private UUID currentSession;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                UUID sessionId = rs.getObject("session_id", UUID.class);
+                if (!sessionId.equals(currentSession)) {
+                    currentSession = sessionId;
+                    writeSession(rs, sessionId);
+                    counts[0]++;
+                }
+                if (rs.getObject("log_id") != null) {
+                    writeMessage(rs, sessionId);
+                    counts[1]++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeSession(ResultSet rs, UUID sessionId) throws IOException, SQLException {
+            generator.writeStartObject();
+            generator.writeStringField("type", "session");
+            generator.writeStringField("id", sessionId.toString());
+            writeTimestamp("startedAt", rs.getObject("started_at", OffsetDateTime.class));
+            writeTimestamp("lastInteractionAt", rs.getObject("last_interaction_at", OffsetDateTime.class));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeMessage(ResultSet rs, UUID sessionId) throws IOException, SQLException {
+            generator.writeStartObject();
+            generator.writeStringField("type", "message");
+            generator.writeStringField("sessionId", sessionId.toString());
+            generator.writeStringField("id", rs.getObject("log_id", UUID.class).toString());
+            generator.writeStringField("role", rs.getString("role"));
+            generator.writeStringField("content", rs.getString("content"));
+            generator.writeStringField("reasoning", rs.getString("reasoning"));
+            generator.writeStringField("provider", rs.getString("provider"));
+            int tokenCount = rs.getInt("token_count");
+            if (rs.wasNull()) {
+                generator.writeNullField("tokenCount");
+            } else {
+                generator.writeNumberField("tokenCount", tokenCount);
+            }
+            String metrics = rs.getString("metrics");
+            generator.writeFieldName("metrics");
+            if (metrics == null) {
+                generator.writeNull();
+            } else {
+                // Metrics are stored as serialized JSON, copy them through without re-parsing
+                generator.writeRawValue(metrics);
+            }
+            writeTimestamp("timestamp", rs.getObject("timestamp", OffsetDateTime.class));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeTimestamp(String field, OffsetDateTime value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeStringField(field, value.toString());
+            }
+        }
+    }
+}
@@ -1,33 +1,71 @@
 package de.angr2301.genericllmadapter.domain.chat;
 
+import de.angr2301.genericllmadapter.config.RateLimitExceededException;
+import de.angr2301.genericllmadapter.config.RateLimiter;
 import de.angr2301.genericllmadapter.dto.analysis.AnalysisRequest;
 import de.angr2301.genericllmadapter.dto.analysis.AnalysisResponse;
 import de.angr2301.genericllmadapter.dto.chat.ChatReply;
+import de.angr2301.genericllmadapter.dto.chat.CompareCandidate;
+import de.angr2301.genericllmadapter.domain.admission.AdmissionScheduler;
+import de.angr2301.genericllmadapter.domain.admission.Lane;
+import de.angr2301.genericllmadapter.domain.prompt.SystemPromptService;
+import de.angr2301.genericllmadapter.domain.quota.TokenQuotaService;
+import de.angr2301.genericllmadapter.domain.usage.UsageLedger;
 import de.angr2301.genericllmadapter.domain.user.User;
 import de.angr2301.genericllmadapter.domain.user.UserRepository;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ChatService {
 
+    private static final Pattern THINK_BLOCK = Pattern.compile("<think>(.*?)</think>", Pattern.DOTALL);
+
     private final SessionRepository sessionRepository;
     private final InteractionLogRepository interactionLogRepository;
     private final UserRepository userRepository;
     private final LlmProviderFactory llmProviderFactory;
-    private final de.angr2301.genericllmadapter.feign.AnalysisClient analysisClient;
+    private final ContextRetrievalService contextRetrievalService;
+    private final TokenQuotaService tokenQuotaService;
+    private final AdmissionScheduler admissionScheduler;
+    private final UsageLedger usageLedger;
+    private final AnalysisBatcher analysisBatcher;
+    private final ObservationRegistry observationRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final CompareProperties compareProperties;
+    private final SystemPromptService systemPromptService;
+    private final RateLimiter rateLimiter;
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Transactional
     public Session createSession(String email) {
         User user = userRepository.findByEmailIgnoreCase(email)
@@ -46,83 +84,314 @@ public class ChatService {
         return sessionRepository.findByUserIdOrderByStartedAtDesc(user.getId());
     }
 
-    public List<InteractionLog> getMessages(UUID sessionId, String email) {
-        Session session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new IllegalArgumentException("Session not found"));
-
-        if (!session.getUser().getEmail().equals(email)) {
-            throw new IllegalArgumentException("Unauthorized access to session");
+    /**
+     * Messages in commit order. Not by timestamp: a turn is written after the reply with the user message's
+     * arrival time, so a slow turn (or comparison) can commit rows older than ones a client already has.
+     *
+     * @param after only messages with a greater seq (the newest one the client has); null for all
+     */
+    @Transactional(readOnly = true)
+    public List<InteractionLog> getMessages(UUID sessionId, String email, Long after) {
+        findOwnedSession(sessionId, email);
+        if (after == null) {
+            return interactionLogRepository.findBySessionIdOrderBySeqAsc(sessionId);
         }
+        return interactionLogRepository.findBySessionIdAndSeqGreaterThanOrderBySeqAsc(sessionId, after);
+    }
 
-        return interactionLogRepository.findBySessionIdOrderByTimestampAsc(sessionId);
+    /**
+     * Strong entity tag of the session's messages, without loading them: a turn is saved together with
+     * lastInteractionAt, so the tag changes with every turn (and with the count if messages are removed).
+     */
+    @Transactional(readOnly = true)
+    public String getMessagesETag(UUID sessionId, String email) {
+        Session session = findOwnedSession(sessionId, email);
+        return messagesETag(session.getLastInteractionAt(), interactionLogRepository.countBySessionId(sessionId));
     }
 
-    @Transactional
-    public ChatReply sendMessage(UUID sessionId, String content, String provider, String email) {
+    static String messagesETag(LocalDateTime lastInteractionAt, long messageCount) {
+        long version = 0;
+        if (lastInteractionAt != null) {
+            Instant instant = lastInteractionAt.toInstant(ZoneOffset.UTC);
+            version = instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+        }
+        return "\"" + Long.toHexString(version) + "-" + messageCount + "\"";
+    }
+
+    private Session findOwnedSession(UUID sessionId, String email) {
         Session session = sessionRepository.findById(sessionId)
                 .orElseThrow(() -> new IllegalArgumentException("Session not found"));
 
         if (!session.getUser().getEmail().equals(email)) {
             throw new IllegalArgumentException("Unauthorized access to session");
         }
+        return session;
+    }
+
+    /**
+     * One chat turn. Nothing holds a database connection while the model answers: the session and history
+     * are read in one short transaction, the turn is written in a second one after the reply. A failed turn
+     * therefore leaves no trace, as before, and the connection pool no longer caps concurrent chats.
+     */
+    public ChatReply sendMessage(UUID sessionId, String content, String provider, String email) {
+        return sendMessage(sessionId, content, provider, email, Lane.INTERACTIVE);
+    }
 
+    /**
+     * @param lane admission lane of the provider call (see AdmissionScheduler)
+     */
+    public ChatReply sendMessage(UUID sessionId, String content, String provider, String email, Lane lane) {
+        LocalDateTime receivedAt = LocalDateTime.now();
+        Context context = loadContext(sessionId, email);
+        Session session = context.session();
         User user = session.getUser();
-        String apiKey = getApiKeyForProvider(user, provider);
-        log.debug("Setting up LLM call for provider: {}", provider);
 
-        // 1. Save User Message
+        // 2. Retrieve similar earlier context (embeddings use the user's OpenAI key, see rag.providers)
+        ContextRetrievalService.Retrieval retrieval = stage("retrieval",
+                () -> contextRetrievalService.retrieve(session, content, provider, user.getOpenaiKey()));
+
+        // 3. Append the new message (saved with the reply) and the retrieved context
+        List<LlmMessage> messages = prompt(context, content, retrieval);
+
+        // 4.-7. Call the model, settle the tokens, extract reasoning and analyze the answer
+        Answer answer = answer(user, sessionId, provider, content, messages, lane);
+
+        // 8. Save the turn: user message, its embedding for later retrieval and the assistant message
+        UUID turnId = UUID.randomUUID();
         InteractionLog userLog = InteractionLog.builder()
                 .session(session)
+                .turnId(turnId)
                 .role("USER")
                 .content(content)
                 .provider(provider)
+                .timestamp(receivedAt)
                 .build();
-        interactionLogRepository.save(userLog);
+        InteractionLog botLog = answer.toLog(session, turnId, "ASSISTANT", provider);
+        saveTurn(session, userLog, content, retrieval, List.of(botLog));
 
-        // 2. Prepare Context (History) using standardized LlmMessage format
-        List<InteractionLog> history = interactionLogRepository.findBySessionIdOrderByTimestampAsc(sessionId);
-        List<LlmMessage> messages = new ArrayList<>();
+        return new ChatReply(content, answer.content(), answer.reasoning(), answer.metrics());
+    }
+
+    /**
+     * Streams the answers of a comparison; see {@link #startComparison}
+     */
+    public interface Comparison {
+
+        /**
+         * Ask all providers at once and hand over each answer as soon as it is there, then save the turn
+         *
+         * @return the turn id of the saved user message and candidates
+         */
+        UUID run(Consumer<CompareCandidate> onCandidate) throws InterruptedException;
+    }
 
-        for (InteractionLog logEntry : history) {
-            String role = "USER".equalsIgnoreCase(logEntry.getRole()) ? "user" : "assistant";
-            messages.add(new LlmMessage(role, List.of(new LlmMessage.Part(logEntry.getContent()))));
+    /**
+     * Send the same prompt to several providers. The session is checked and its history read right away,
+     * the provider calls start with {@link Comparison#run}: each runs on its own thread under the quota and
+     * admission rules of sendMessage, and is cut off at its deadline (compare.deadline(s)), so the turn takes
+     * as long as the slowest provider, not all of them together.
+     *
+     * The user message and the answers are saved as one turn; the answers have role CANDIDATE and are not
+     * sent to the model as history of later turns.
+     *
+     * Each provider costs one LLM rate-limit token: the RateLimitFilter charged the first, the others are
+     * charged here once the body is parsed, all or none.
+     */
+    public Comparison startComparison(UUID sessionId, String content, List<String> providers, String email) {
+        List<String> distinct = providers == null ? List.of() : providers.stream()
+                .map(provider -> provider.toUpperCase(Locale.ROOT))
+                .distinct()
+                .toList();
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("No providers to compare");
         }
+        LocalDateTime receivedAt = LocalDateTime.now();
+        Context context = loadContext(sessionId, email);
+        Session session = context.session();
+        User user = session.getUser();
+        distinct.forEach(provider -> getApiKeyForProvider(user, provider));
+        chargeFurtherProviders(email, RateLimiter.Tier.of(user.getRole()), distinct.size());
 
-        // 3. Call LLM using LlmClient
-        log.debug("Creating chat model for provider: {}", provider);
-        LlmClient llmClient = llmProviderFactory.createChatModel(provider, apiKey);
-        log.debug("Calling LLM...");
+        return onCandidate -> {
+            ContextRetrievalService.Retrieval retrieval = stage("retrieval",
+                    () -> contextRetrievalService.retrieve(session, content, distinct, user.getOpenaiKey()));
+            List<LlmMessage> messages = prompt(context, content, retrieval);
 
-        LlmResponse response = llmClient.generateContent(messages);
+            UUID turnId = UUID.randomUUID();
+            List<InteractionLog> candidates = new ArrayList<>();
+            ProviderFanOut.<Answer>run(distinct,
+                    provider -> answer(user, sessionId, provider, content, messages, Lane.INTERACTIVE),
+                    compareProperties::deadlineFor,
+                    threads().name("compare-", 0).factory(),
+                    outcome -> {
+                        Answer answer = outcome.result();
+                        if (answer != null) {
+                            candidates.add(answer.toLog(session, turnId, "CANDIDATE", outcome.provider()));
+                            onCandidate.accept(new CompareCandidate(outcome.provider(), "ok", answer.content(),
+                                    answer.reasoning(), answer.metrics(), outcome.latencyMs(), null));
+                        } else if (outcome.timedOut()) {
+                            onCandidate.accept(new CompareCandidate(outcome.provider(), "timeout", null, null,
+                                    null, outcome.latencyMs(), "No answer within the deadline"));
+                        } else {
+                            log.warn("Comparison call to {} failed: {}", outcome.provider(),
+                                    outcome.error().getMessage());
+                            onCandidate.accept(new CompareCandidate(outcome.provider(), "error", null, null,
+                                    null, outcome.latencyMs(), outcome.error().getMessage()));
+                        }
+                    });
 
-        // Validate response
-        if (response == null || response.getCandidates() == null || response.getCandidates().isEmpty()) {
-            throw new RuntimeException("Invalid LLM response");
+            InteractionLog userLog = InteractionLog.builder()
+                    .session(session)
+                    .turnId(turnId)
+                    .role("USER")
+                    .content(content)
+                    .timestamp(receivedAt)
+                    .build();
+            saveTurn(session, userLog, content, retrieval, candidates);
+            return turnId;
+        };
+    }
+
+    /**
+     * Choose the session's system prompt; null goes back to the tenant's default
+     */
+    @Transactional
+    public Session selectSystemPrompt(UUID sessionId, UUID systemPromptId, String email) {
+        Session session = findOwnedSession(sessionId, email);
+        if (systemPromptId != null && !systemPromptService.isAvailable(systemPromptId, session.getUser().getTenantId())) {
+            throw new IllegalArgumentException("System prompt not available");
         }
+        session.setSystemPromptId(systemPromptId);
+        return sessionRepository.save(session);
+    }
 
-        LlmResponse.Candidate firstCandidate = response.getCandidates().get(0);
-        String fullReply = firstCandidate.getContent().getParts().get(0).getText();
+    /** Session, its rendered system prompt (may be null) and earlier turns, read in one short transaction */
+    private record Context(Session session, String systemPrompt, List<LlmMessage> history) {
+    }
 
-        log.debug("LLM responded with content length: {}", fullReply.length());
+    private Context loadContext(UUID sessionId, String email) {
+        return transactionTemplate.execute(status -> {
+            recordCommitStage();
+            Session found = stage("session", () -> {
+                Session owned = sessionRepository.findById(sessionId)
+                        .orElseThrow(() -> new IllegalArgumentException("Session not found"));
+                if (!owned.getUser().getEmail().equals(email)) {
+                    throw new IllegalArgumentException("Unauthorized access to session");
+                }
+                return owned;
+            });
+            String systemPrompt = systemPromptService.render(found.getSystemPromptId(), found.getUser().getTenantId());
+            // 1. Load earlier turns in the standardized LlmMessage format
+            return new Context(found, systemPrompt, stage("history", () -> {
+                List<InteractionLog> history = interactionLogRepository.findBySessionIdOrderByTimestampAsc(sessionId);
+                List<LlmMessage> turns = new ArrayList<>();
+
+                for (InteractionLog logEntry : history) {
+                    if ("CANDIDATE".equalsIgnoreCase(logEntry.getRole())) {
+                        continue; // none of the compared answers was chosen
+                    }
+                    String role = "USER".equalsIgnoreCase(logEntry.getRole()) ? "user" : "assistant";
+                    turns.add(new LlmMessage(role, List.of(new LlmMessage.Part(logEntry.getContent()))));
+                }
+                return turns;
+            }));
+        });
+    }
 
-        // 4. Extract Reasoning (Thinking)
-        String reasoning = null;
-        String contentOnly = fullReply;
+    /**
+     * System prompt first, then history, retrieved context and the new message: everything before the
+     * retrieved context is the same as in the previous turn, a prefix providers can cache
+     */
+    private List<LlmMessage> prompt(Context context, String content, ContextRetrievalService.Retrieval retrieval) {
+        List<LlmMessage> turns = new ArrayList<>(context.history().size() + 2);
+        if (context.systemPrompt() != null) {
+            turns.add(new LlmMessage("system", List.of(new LlmMessage.Part(context.systemPrompt()))));
+        }
+        turns.addAll(context.history());
+        turns.add(new LlmMessage("user", List.of(new LlmMessage.Part(content))));
+        return contextRetrievalService.inject(turns, retrieval);
+    }
+
+    /** A provider's answer with its reasoning split off, analysis metrics and the tokens it used */
+    private record Answer(String content, String reasoning, Map<String, Object> metrics, String metricsJson,
+                          LlmResponse.Usage usage) {
 
-        java.util.regex.Matcher matcher = java.util.regex.Pattern
-                .compile("<think>(.*?)</think>", java.util.regex.Pattern.DOTALL).matcher(fullReply);
-        if (matcher.find()) {
-            reasoning = matcher.group(1).trim();
-            contentOnly = fullReply.replace(matcher.group(0), "").trim();
+        InteractionLog toLog(Session session, UUID turnId, String role, String provider) {
+            return InteractionLog.builder()
+                    .session(session)
+                    .turnId(turnId)
+                    .role(role)
+                    .content(content)
+                    .reasoning(reasoning)
+                    .provider(provider)
+                    .metrics(metricsJson)
+                    .tokenCount(usage.getCompletionTokens())
+                    .build();
         }
+    }
 
-        // 5. Call Analysis Service
+    private Answer answer(User user, UUID sessionId, String provider, String content, List<LlmMessage> messages,
+                          Lane lane) {
+        String apiKey = getApiKeyForProvider(user, provider);
+        log.debug("Setting up LLM call for provider: {}", provider);
+
+        // 4. Reserve tokens for the call
+        int promptTokens = TokenEstimator.estimate(messages);
+        TokenQuotaService.Reservation reservation = stage("quota",
+                () -> tokenQuotaService.reserve(user.getId(), provider, promptTokens));
+
+        // 5. Call LLM using LlmClient
+        log.debug("Creating chat model for provider: {}", provider);
+        LlmResponse response;
+        String fullReply;
+        try {
+            LlmClient llmClient = llmProviderFactory.createChatModel(provider, apiKey);
+            log.debug("Calling LLM...");
+
+            try (AdmissionScheduler.Permit permit = stage("admission", () -> admissionScheduler.acquire(
+                    provider, user.getTenantId(), user.getId(), lane, promptTokens))) {
+                response = stage("llm", () -> llmClient.generateContent(messages));
+            }
+
+            // Validate response
+            if (response == null || response.getCandidates() == null || response.getCandidates().isEmpty()) {
+                throw new RuntimeException("Invalid LLM response");
+            }
+
+            LlmResponse.Candidate firstCandidate = response.getCandidates().get(0);
+            fullReply = firstCandidate.getContent().getParts().get(0).getText();
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+        // Settle with the provider's count; estimate when it reports none
+        LlmResponse.Usage usage = response.getUsage();
+        boolean estimated = usage == null;
+        if (estimated) {
+            usage = new LlmResponse.Usage(promptTokens, TokenEstimator.estimate(fullReply));
+        }
+        reservation.reconcile(usage.getTotalTokens());
+        LlmResponse.Usage spent = usage;
+        stage("usage", () -> {
+            usageLedger.record(user.getId(), sessionId, provider,
+                    spent.getPromptTokens(), spent.getCompletionTokens(), estimated);
+            return null;
+        });
+
+        log.debug("LLM responded with content length: {}", fullReply.length());
+
+        // 6. Extract Reasoning (Thinking)
+        SplitReply split = splitReasoning(fullReply);
+        String contentOnly = split.content();
+        String reasoning = split.reasoning();
+
+        // 7. Call Analysis Service
         log.debug("Triggering analysis for session: {}", sessionId);
         Map<String, Object> metrics = null;
         try {
             AnalysisRequest analysisRequest = new AnalysisRequest(
                     sessionId.toString(), content, contentOnly, "guide");
-            AnalysisResponse analysisResponse = analysisClient.analyze(analysisRequest);
+            AnalysisResponse analysisResponse = stage("analysis", () -> analysisBatcher.analyze(analysisRequest));
             metrics = analysisResponse.getMetrics();
         } catch (Exception e) {
             log.error("Analysis service call failed", e);
@@ -136,23 +405,110 @@ public class ChatService {
                 log.error("Failed to serialize metrics", e);
             }
         }
+        return new Answer(contentOnly, reasoning, metrics, metricsJson, usage);
+    }
 
-        // 6. Save Assistant Message
-        InteractionLog botLog = InteractionLog.builder()
-                .session(session)
-                .role("ASSISTANT")
-                .content(contentOnly)
-                .reasoning(reasoning)
-                .provider(provider)
-                .metrics(metricsJson)
-                .build();
-        interactionLogRepository.save(botLog);
+    private void chargeFurtherProviders(String email, RateLimiter.Tier tier, int providers) {
+        // Capped at the bucket's capacity, more could never be granted
+        long tokens = Math.min(providers, rateLimiter.limit(tier, RateLimiter.EndpointGroup.LLM)) - 1;
+        if (tokens <= 0) {
+            return;
+        }
+        ConsumptionProbe probe = rateLimiter.tryConsume(email, tier, RateLimiter.EndpointGroup.LLM, tokens);
+        if (!probe.isConsumed()) {
+            throw new RateLimitExceededException("Too many requests - please slow down.",
+                    Duration.ofNanos(probe.getNanosToWaitForRefill()));
+        }
+    }
+
+    /**
+     * Second transaction of a turn: the user message, its embedding for later retrieval and the answers.
+     * The session row is locked first, so overlapping turns of a session commit in the order they draw
+     * their seq values and a client polling with ?after= cannot miss one. The turn is written against the
+     * locked entity, never the copy read before the reply.
+     */
+    private void saveTurn(Session session, InteractionLog userLog, String content,
+                          ContextRetrievalService.Retrieval retrieval, List<InteractionLog> answers) {
+        transactionTemplate.executeWithoutResult(status -> {
+            recordCommitStage();
+            Session locked = sessionRepository.findWithLockById(session.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Session not found"));
+            stage("save-user-message", () -> interactionLogRepository.save(userLog));
+            stage("remember", () -> {
+                contextRetrievalService.remember(locked, content, retrieval);
+                return null;
+            });
+            stage("save-reply", () -> {
+                interactionLogRepository.saveAll(answers);
 
-        // Update session timestamp
-        session.setLastInteractionAt(java.time.LocalDateTime.now());
-        sessionRepository.save(session);
+                // Update session timestamp on the managed row only: merging the copy read before the
+                // reply would write back a system prompt that was changed while the model answered
+                locked.setLastInteractionAt(LocalDateTime.now());
+                return null;
+            });
+        });
+    }
+
+    private Thread.Builder threads() {
+        return virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+    }
+
+    /** Answer and the reasoning of the first think block (null if there is none) */
+    record SplitReply(String content, String reasoning) {
+    }
+
+    static SplitReply splitReasoning(String fullReply) {
+        Matcher matcher = THINK_BLOCK.matcher(fullReply);
+        if (!matcher.find()) {
+            return new SplitReply(fullReply, null);
+        }
+        return new SplitReply(fullReply.replace(matcher.group(0), "").trim(), matcher.group(1).trim());
+    }
 
-        return new ChatReply(content, contentOnly, reasoning, metrics);
+    /**
+     * Run one step of the pipeline as a span (and chat.stage timer) and a JFR {@link ChatStageEvent},
+     * so slow requests show where the time went.
+     */
+    private <T> T stage(String name, Supplier<T> step) {
+        ChatStageEvent event = new ChatStageEvent();
+        event.begin();
+        try {
+            return Observation.createNotStarted("chat.stage", observationRegistry)
+                    .contextualName(name)
+                    .lowCardinalityKeyValue("stage", name)
+                    .observe(step);
+        } finally {
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Emit the Hibernate flush and commit at the end of the current transaction as a "commit" stage event
+     */
+    private static void recordCommitStage() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private ChatStageEvent event;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                event = new ChatStageEvent();
+                event.begin();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (event != null && event.shouldCommit()) {
+                    event.stage = status == STATUS_COMMITTED ? "commit" : "rollback";
+                    event.commit();
+                }
+            }
+        });
     }
 
     private String getApiKeyForProvider(User user, String provider) {
@@ -0,0 +1,23 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one stage of {@link ChatService#sendMessage}: session lookup, history load,
+ * retrieval, LLM call, analysis call, inserts and the final flush/commit.
+ * GC pauses and lock events on the same thread fall inside the stage they slowed down.
+ */
+@Name("de.angr2301.genericllmadapter.ChatStage")
+@Label("Chat Stage")
+@Category({"LLM Adapter", "Chat"})
+@Description("Stage of handling a chat message")
+@StackTrace(false)
+final class ChatStageEvent extends jdk.jfr.Event {
+
+    @Label("Stage")
+    String stage;
+}
@@ -0,0 +1,35 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Deadlines of the provider calls of a comparison (compare.*)
+ */
+@Data
+@Component
+@ConfigurationProperties("compare")
+public class CompareProperties {
+
+    /** Per call, unless the provider has its own */
+    private Duration deadline = Duration.ofSeconds(60);
+
+    /** By provider (openai, deepseek, huggingface, local-vllm) */
+    private Map<String, Duration> deadlines = new HashMap<>();
+
+    public Duration deadlineFor(String provider) {
+        String key = provider.toUpperCase(Locale.ROOT).replace('-', '_');
+        for (Map.Entry<String, Duration> entry : deadlines.entrySet()) {
+            if (entry.getKey().toUpperCase(Locale.ROOT).replace('-', '_').equals(key)) {
+                return entry.getValue();
+            }
+        }
+        return deadline;
+    }
+}
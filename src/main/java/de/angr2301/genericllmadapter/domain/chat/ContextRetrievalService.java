@@ -0,0 +1,312 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import de.angr2301.genericllmadapter.domain.ContextVector;
+import de.angr2301.genericllmadapter.domain.embedding.EmbeddingClient;
+import de.angr2301.genericllmadapter.domain.embedding.EmbeddingClientFactory;
+import de.angr2301.genericllmadapter.domain.vector.ContextVectorIndex;
+import de.angr2301.genericllmadapter.domain.vector.ContextVectorStoredEvent;
+import de.angr2301.genericllmadapter.domain.vector.PgVectorFormat;
+import de.angr2301.genericllmadapter.domain.vector.VectorEncoding;
+import de.angr2301.genericllmadapter.domain.vector.VectorHit;
+import de.angr2301.genericllmadapter.repository.ContextContent;
+import de.angr2301.genericllmadapter.repository.ContextMatch;
+import de.angr2301.genericllmadapter.repository.ContextVectorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Retrieval-augmented context for chat turns.
+ * Embeds the new user message, finds the most similar earlier snippets of the
+ * same session (or user) and packs them into a token budget. Lookups go to the
+ * in-process {@link ContextVectorIndex} when it is ready, otherwise to pgvector's HNSW index.
+ * With {@code rag.references} ingested reference material is searched as well.
+ * With {@code rag.quantization} set to halfvec or binary the pgvector search takes its
+ * candidates from a quantized index and re-ranks them in full precision.
+ * Prompts only go to the embedding endpoint for the chat providers listed in {@code rag.providers}:
+ * a session on a local model does not send its messages to a hosted embedding API unless configured to.
+ */
+@Service
+@Slf4j
+public class ContextRetrievalService {
+
+    private final ContextVectorRepository contextVectorRepository;
+    private final EmbeddingClientFactory embeddingClientFactory;
+    private final ContextVectorIndex contextVectorIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate searchTransaction;
+
+    @Value("${rag.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rag.scope:session}")
+    private String scope;
+
+    @Value("${rag.top-k:5}")
+    private int topK;
+
+    @Value("${rag.token-budget:1000}")
+    private int tokenBudget;
+
+    @Value("${rag.max-distance:0.6}")
+    private double maxDistance;
+
+    @Value("${rag.hnsw.ef-search:64}")
+    private int efSearch;
+
+    @Value("${rag.hnsw.iterative-scan:relaxed_order}")
+    private String iterativeScan;
+
+    @Value("${rag.references:false}")
+    private boolean includeReferences;
+
+    @Value("${rag.quantization:none}")
+    private String quantization;
+
+    /** 0 = VectorEncoding.defaultRerankFactor() of the quantization */
+    @Value("${rag.rerank-factor:0}")
+    private int rerankFactor;
+
+    private final Set<String> providers;
+
+    public ContextRetrievalService(ContextVectorRepository contextVectorRepository,
+                                   EmbeddingClientFactory embeddingClientFactory,
+                                   ContextVectorIndex contextVectorIndex,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${rag.providers:openai}") List<String> providers) {
+        this.providers = providers.stream()
+                .map(ContextRetrievalService::providerKey)
+                .collect(Collectors.toUnmodifiableSet());
+        this.contextVectorRepository = contextVectorRepository;
+        this.embeddingClientFactory = embeddingClientFactory;
+        this.contextVectorIndex = contextVectorIndex;
+        this.eventPublisher = eventPublisher;
+        // Separate read-only transaction: a failed search must not abort the chat transaction,
+        // and the SET LOCAL index settings stay confined to the search.
+        this.searchTransaction = new TransactionTemplate(transactionManager);
+        this.searchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.searchTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Result of a retrieval step: the embedding of the query (reused when storing it)
+     * and the context snippets selected within the token budget.
+     */
+    public record Retrieval(float[] embedding, List<String> snippets) {
+        static final Retrieval EMPTY = new Retrieval(null, List.of());
+
+        public boolean hasContext() {
+            return !snippets.isEmpty();
+        }
+    }
+
+    /**
+     * Find context for a new user message to one provider.
+     * Never throws; retrieval problems degrade to a chat turn without context.
+     */
+    public Retrieval retrieve(Session session, String query, String provider, String embeddingApiKey) {
+        return retrieve(session, query, List.of(provider), embeddingApiKey);
+    }
+
+    /**
+     * Find context for a new user message to several providers; skipped unless all of them are
+     * in rag.providers, since the message is embedded once for all of them.
+     */
+    public Retrieval retrieve(Session session, String query, Collection<String> chatProviders,
+                              String embeddingApiKey) {
+        if (!enabled || embeddingApiKey == null || embeddingApiKey.isBlank()) {
+            return Retrieval.EMPTY;
+        }
+        if (!chatProviders.stream().map(ContextRetrievalService::providerKey).allMatch(providers::contains)) {
+            log.debug("No context retrieval for {}: not in rag.providers", chatProviders);
+            return Retrieval.EMPTY;
+        }
+        try {
+            EmbeddingClient embeddingClient = embeddingClientFactory.createEmbeddingClient(embeddingApiKey);
+            float[] embedding = embeddingClient.embed(query);
+            List<Match> matches = search(session, embedding);
+            return new Retrieval(embedding, pack(matches));
+        } catch (Exception e) {
+            log.warn("Context retrieval failed for session {}: {}", session.getId(), e.getMessage());
+            return Retrieval.EMPTY;
+        }
+    }
+
+    /**
+     * Store the embedded user message so later turns can retrieve it.
+     * Runs in the caller's transaction.
+     */
+    public void remember(Session session, String content, Retrieval retrieval) {
+        if (retrieval.embedding() == null) {
+            return;
+        }
+        ContextVector vector = new ContextVector();
+        vector.setSession(session);
+        vector.setContent(content);
+        vector.setEmbedding(retrieval.embedding());
+        contextVectorRepository.save(vector);
+        eventPublisher.publishEvent(new ContextVectorStoredEvent(
+                vector.getId(), session.getId(), session.getUser().getId(), retrieval.embedding()));
+    }
+
+    /**
+     * Insert the retrieved snippets as a system message directly before the latest user
+     * message, so the earlier history stays a stable prefix.
+     */
+    public List<LlmMessage> inject(List<LlmMessage> messages, Retrieval retrieval) {
+        if (!retrieval.hasContext() || messages.isEmpty()) {
+            return messages;
+        }
+        StringBuilder context = new StringBuilder("Relevant context from earlier in this conversation:");
+        for (String snippet : retrieval.snippets()) {
+            context.append("\n- ").append(snippet);
+        }
+        List<LlmMessage> result = new ArrayList<>(messages.size() + 1);
+        result.addAll(messages.subList(0, messages.size() - 1));
+        result.add(new LlmMessage("system", List.of(new LlmMessage.Part(context.toString()))));
+        result.add(messages.get(messages.size() - 1));
+        return result;
+    }
+
+    private List<Match> search(Session session, float[] embedding) {
+        List<Match> matches = searchConversation(session, embedding);
+        if (!includeReferences) {
+            return matches;
+        }
+        List<Match> merged = new ArrayList<>(matches);
+        merged.addAll(searchReferences(embedding));
+        merged.sort(Comparator.comparingDouble(Match::distance));
+        return merged;
+    }
+
+    private List<Match> searchConversation(Session session, float[] embedding) {
+        UUID userId = session.getUser().getId();
+        boolean userScope = "user".equalsIgnoreCase(scope);
+
+        if (contextVectorIndex.isReady()) {
+            List<VectorHit> hits = userScope
+                    ? contextVectorIndex.searchUser(userId, embedding, topK)
+                    : contextVectorIndex.searchSession(session.getId(), embedding, topK);
+            return hits.isEmpty() ? List.of() : searchTransaction.execute(status -> withContent(hits));
+        }
+
+        String literal = PgVectorFormat.toLiteral(embedding);
+        return searchTransaction.execute(status -> {
+            setIndexOptions();
+            int candidates = Math.max(topK * rerankFactor(), efSearch);
+            List<ContextMatch> found = switch (quantization.toLowerCase()) {
+                case "halfvec" -> userScope
+                        ? contextVectorRepository.findSimilarForUserHalfvec(userId, literal, candidates, topK)
+                        : contextVectorRepository.findSimilarInSessionHalfvec(session.getId(), literal, candidates, topK);
+                case "binary" -> userScope
+                        ? contextVectorRepository.findSimilarForUserBinary(userId, literal, candidates, topK)
+                        : contextVectorRepository.findSimilarInSessionBinary(session.getId(), literal, candidates, topK);
+                default -> userScope
+                        ? contextVectorRepository.findSimilarForUser(userId, literal, topK)
+                        : contextVectorRepository.findSimilarInSession(session.getId(), literal, topK);
+            };
+            return toMatches(found);
+        });
+    }
+
+    /** Transaction-local settings of the HNSW scan; call inside searchTransaction */
+    private void setIndexOptions() {
+        contextVectorRepository.setLocalConfig("hnsw.ef_search", String.valueOf(efSearch));
+        if (!"off".equalsIgnoreCase(iterativeScan)) {
+            // pgvector >= 0.8: keep scanning the HNSW graph until enough rows pass the filter
+            contextVectorRepository.setLocalConfig("hnsw.iterative_scan", iterativeScan);
+        }
+    }
+
+    private int rerankFactor() {
+        if (rerankFactor > 0) {
+            return rerankFactor;
+        }
+        // halfvec keeps about as much of the order as int8
+        return ("binary".equalsIgnoreCase(quantization) ? VectorEncoding.BINARY : VectorEncoding.INT8)
+                .defaultRerankFactor();
+    }
+
+    private List<Match> searchReferences(float[] embedding) {
+        if (contextVectorIndex.isReady()) {
+            List<VectorHit> hits = contextVectorIndex.searchReferences(embedding, topK);
+            return hits.isEmpty() ? List.of() : searchTransaction.execute(status -> withContent(hits));
+        }
+        // Same index as the conversation search: only the one for rag.quantization exists
+        String literal = PgVectorFormat.toLiteral(embedding);
+        return searchTransaction.execute(status -> {
+            setIndexOptions();
+            int candidates = Math.max(topK * rerankFactor(), efSearch);
+            return toMatches(switch (quantization.toLowerCase()) {
+                case "halfvec" -> contextVectorRepository.findSimilarReferencesHalfvec(literal, candidates, topK);
+                case "binary" -> contextVectorRepository.findSimilarReferencesBinary(literal, candidates, topK);
+                default -> contextVectorRepository.findSimilarReferences(literal, topK);
+            });
+        });
+    }
+
+    private static List<Match> toMatches(List<ContextMatch> found) {
+        return found.stream()
+                .map(match -> new Match(match.getContent(), match.getDistance()))
+                .toList();
+    }
+
+    private List<Match> withContent(List<VectorHit> hits) {
+        // content is nullable; such rows have nothing to add to the prompt
+        List<UUID> ids = hits.stream().map(VectorHit::id).toList();
+        Map<UUID, String> contents = new HashMap<>();
+        for (ContextContent row : contextVectorRepository.findContentByIdIn(ids)) {
+            if (row.getContent() != null) {
+                contents.put(row.getId(), row.getContent());
+            }
+        }
+        return hits.stream()
+                .filter(hit -> contents.containsKey(hit.id()))
+                .map(hit -> new Match(contents.get(hit.id()), hit.distance()))
+                .toList();
+    }
+
+    List<String> pack(List<Match> matches) {
+        List<String> snippets = new ArrayList<>();
+        int remaining = tokenBudget;
+        for (Match match : matches) {
+            if (match.distance() > maxDistance) {
+                break; // ordered by distance, the rest is even less relevant
+            }
+            if (match.content() == null) {
+                continue;
+            }
+            int tokens = TokenEstimator.estimate(match.content());
+            if (tokens > remaining) {
+                continue; // a shorter snippet further down may still fit
+            }
+            snippets.add(match.content());
+            remaining -= tokens;
+        }
+        return snippets;
+    }
+
+    private static String providerKey(String provider) {
+        return provider.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+
+    /** Retrieved snippet with its cosine distance to the query */
+    record Match(String content, double distance) {
+    }
+}
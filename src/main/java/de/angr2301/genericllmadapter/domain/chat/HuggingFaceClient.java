@@ -11,6 +11,7 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -23,11 +24,13 @@ public class HuggingFaceClient implements LlmClient {
 
     private final String modelId; // e.g. "deepseek-ai/DeepSeek-R1:fastest"
     private final String apiKey;
+    private final LlmTelemetry.ProviderMetrics metrics;
+    private final HttpClient httpClient; // shared, see HttpClientConfig
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final HttpClient httpClient = HttpClient.newHttpClient();
 
     @Override
     public LlmResponse generateContent(List<LlmMessage> messages) {
+        LlmTelemetry.Call call = metrics.start();
         try {
             // Convert your internal messages to OpenAI-style messages
             ArrayNode msgArray = objectMapper.createArrayNode();
@@ -42,32 +45,39 @@ public class HuggingFaceClient implements LlmClient {
             requestBody.put("model", modelId);
             requestBody.set("messages", msgArray);
 
-            String jsonRequest = objectMapper.writeValueAsString(requestBody);
+            byte[] jsonRequest = objectMapper.writeValueAsBytes(requestBody);
+            call.requestBytes(jsonRequest.length);
 
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create("https://router.huggingface.co/v1/chat/completions"))
                     .header("Content-Type", "application/json")
                     .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonRequest))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(jsonRequest))
                     .build();
 
-            HttpResponse<String> response =
-                    httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<byte[]> response =
+                    httpClient.send(request, call.timeToFirstByte(HttpResponse.BodyHandlers.ofByteArray()));
 
             if (response.statusCode() != 200) {
-                log.error("HF API error {}: {}", response.statusCode(), response.body());
-                throw new RuntimeException("HF API error: " + response.body());
+                call.httpError(response.statusCode(), response.body().length);
+                String body = new String(response.body(), StandardCharsets.UTF_8);
+                log.error("HF API error {}: {}", response.statusCode(), body);
+                throw new RuntimeException("HF API error: " + body);
             }
 
             JsonNode root = objectMapper.readTree(response.body());
             String text = root.path("choices").get(0).path("message").path("content").asText();
+            LlmResponse.Usage usage = LlmResponse.Usage.fromOpenAi(root);
+            call.success(response.body().length, usage);
 
             return new LlmResponse(
                     List.of(new LlmResponse.Candidate(
                             new LlmResponse.Content("model",
-                                    List.of(new LlmResponse.Part(text))))));
+                                    List.of(new LlmResponse.Part(text))))),
+                    usage);
 
         } catch (Exception e) {
+            call.failure(e);
             throw new RuntimeException("HF call failed: " + e.getMessage(), e);
         }
     }
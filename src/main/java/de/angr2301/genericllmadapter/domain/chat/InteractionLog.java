@@ -6,7 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Generated;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -29,7 +29,11 @@ public class InteractionLog {
     private Session session;
 
     @Column(nullable = false)
-    private String role; // USER, ASSISTANT, SYSTEM
+    private String role; // USER, ASSISTANT, SYSTEM, CANDIDATE (one answer of a provider comparison)
+
+    /** Same for the user message and the answers it got */
+    @Column(name = "turn_id")
+    private UUID turnId;
 
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
@@ -45,6 +49,18 @@ public class InteractionLog {
     @Column(columnDefinition = "TEXT")
     private String reasoning;
 
-    @CreationTimestamp
+    /** Drawn by the database on insert; in commit order within a session, the cursor of polling clients */
+    @Generated
+    @Column(insertable = false, updatable = false)
+    private Long seq;
+
+    /** Set on insert unless given: chat turns are written after the reply, the user message keeps its arrival time */
     private LocalDateTime timestamp;
+
+    @PrePersist
+    void onCreate() {
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
+    }
 }
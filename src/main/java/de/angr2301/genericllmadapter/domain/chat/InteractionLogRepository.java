@@ -9,4 +9,10 @@ import java.util.UUID;
 @Repository
 public interface InteractionLogRepository extends JpaRepository<InteractionLog, UUID> {
     List<InteractionLog> findBySessionIdOrderByTimestampAsc(UUID sessionId);
+
+    List<InteractionLog> findBySessionIdOrderBySeqAsc(UUID sessionId);
+
+    List<InteractionLog> findBySessionIdAndSeqGreaterThanOrderBySeqAsc(UUID sessionId, long after);
+
+    long countBySessionId(UUID sessionId);
 }
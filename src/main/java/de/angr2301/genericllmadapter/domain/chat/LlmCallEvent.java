@@ -0,0 +1,50 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one LLM provider call, emitted by {@link LlmTelemetry.Call}.
+ * The event duration is the whole call; fields are only filled when a recording wants the event.
+ */
+@Name("de.angr2301.genericllmadapter.LlmCall")
+@Label("LLM Call")
+@Category({"LLM Adapter", "Provider"})
+@Description("HTTP call to an LLM provider")
+@StackTrace(false)
+final class LlmCallEvent extends jdk.jfr.Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Model")
+    String model;
+
+    @Label("Status")
+    @Description("HTTP status code, or the exception type if the call failed")
+    String status;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Time to First Byte")
+    @Description("Until the response headers arrived; includes the whole generation for non-streaming calls")
+    @Timespan
+    long timeToFirstByte;
+
+    @Label("Prompt Tokens")
+    int promptTokens;
+
+    @Label("Completion Tokens")
+    int completionTokens;
+}
@@ -1,19 +1,32 @@
 package de.angr2301.genericllmadapter.domain.chat;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.net.http.HttpClient;
+
 /**
  * Factory for creating LLM clients for different providers.
  * Centralizes provider configuration and client instantiation.
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class LlmProviderFactory {
 
+    private final LlmTelemetry telemetry;
+    private final HttpClient httpClient;
+
     @org.springframework.beans.factory.annotation.Value("${vllm.url:http://localhost:8000}")
     private String vllmUrl;
 
+    @org.springframework.beans.factory.annotation.Value("${llm.openai.base-url:https://api.openai.com/v1}")
+    private String openAiUrl;
+
+    @org.springframework.beans.factory.annotation.Value("${llm.deepseek.base-url:https://api.deepseek.com/v1}")
+    private String deepSeekUrl;
+
     public LlmClient createChatModel(String provider, String apiKey) {
         if (provider == null || provider.isBlank()) {
             log.error("Provider name cannot be null or empty");
@@ -34,18 +47,19 @@ public class LlmProviderFactory {
 
         return switch (provider.toUpperCase()) {
             case "OPENAI" ->
-                new OpenAiCompatibleClient("https://api.openai.com/v1", "gpt-4o", apiKey);
+                openAiCompatible("OPENAI", openAiUrl, "gpt-4o", apiKey);
 
             case "DEEPSEEK" ->
-                new OpenAiCompatibleClient("https://api.deepseek.com/v1", "deepseek-chat", apiKey);
+                openAiCompatible("DEEPSEEK", deepSeekUrl, "deepseek-chat", apiKey);
 
             case "LOCAL_VLLM" ->
-                new OpenAiCompatibleClient(vllmUrl + "/v1", "Qwen/Qwen2.5-0.5B-Instruct", apiKey);
+                openAiCompatible("LOCAL_VLLM", vllmUrl + "/v1", "Qwen/Qwen2.5-0.5B-Instruct", apiKey);
 
             case "HUGGINGFACE" -> {
                 //String modelId = "mistralai/Mistral-7B-Instruct-v0.3";
                 String modelId = "deepseek-ai/DeepSeek-R1:fastest";
-                yield new HuggingFaceClient(modelId, apiKey);
+                yield new HuggingFaceClient(modelId, apiKey, telemetry.forProvider("HUGGINGFACE", modelId),
+                        httpClient);
             }
 
             default -> {
@@ -54,4 +68,8 @@ public class LlmProviderFactory {
             }
         };
     }
+
+    private OpenAiCompatibleClient openAiCompatible(String provider, String baseUrl, String model, String apiKey) {
+        return new OpenAiCompatibleClient(baseUrl, model, apiKey, telemetry.forProvider(provider, model), httpClient);
+    }
 }
@@ -1,5 +1,6 @@
 package de.angr2301.genericllmadapter.domain.chat;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +17,13 @@ import java.util.List;
 public class LlmResponse {
     private List<Candidate> candidates;
 
+    /** Token counts reported by the provider; null if the provider does not report them */
+    private Usage usage;
+
+    public LlmResponse(List<Candidate> candidates) {
+        this.candidates = candidates;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -37,5 +45,27 @@ public class LlmResponse {
     public static class Part {
         private String text;
     }
-}
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Usage {
+        private int promptTokens;
+        private int completionTokens;
+
+        public int getTotalTokens() {
+            return promptTokens + completionTokens;
+        }
+
+        /**
+         * Usage block of an OpenAI-compatible response, null if absent
+         */
+        public static Usage fromOpenAi(JsonNode root) {
+            JsonNode usage = root.path("usage");
+            if (!usage.has("prompt_tokens")) {
+                return null;
+            }
+            return new Usage(usage.path("prompt_tokens").asInt(), usage.path("completion_tokens").asInt());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer metrics for LLM provider calls, tagged by provider and model
+ * (scraped via /actuator/prometheus).
+ *
+ * llm.requests                 latency by outcome and status code, with percentiles
+ * llm.time.to.first.token      until the first response byte; for non-streaming calls
+ *                              this includes the whole generation
+ * llm.output.tokens.per.second completion tokens over call duration (provider-reported usage)
+ * llm.request.size / llm.response.size   HTTP body bytes
+ * llm.tokens                   prompt and completion tokens
+ * llm.errors                   failed calls by status code (or exception type)
+ * llm.inflight                 calls currently waiting for a provider
+ *
+ * Each call is also emitted as an {@link LlmCallEvent} to Java Flight Recorder when a recording is running.
+ */
+@Component
+public class LlmTelemetry {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, ProviderMetrics> providers = new ConcurrentHashMap<>();
+
+    public LlmTelemetry(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Meters of one provider/model pair, registered on first use
+     */
+    public ProviderMetrics forProvider(String provider, String model) {
+        return providers.computeIfAbsent(provider + '/' + model, key -> new ProviderMetrics(provider, model));
+    }
+
+    public final class ProviderMetrics {
+
+        private final String provider;
+        private final String model;
+        private final Tags tags;
+        private final AtomicInteger running;
+        private final Timer timeToFirstToken;
+        private final DistributionSummary tokensPerSecond;
+        private final DistributionSummary requestSize;
+        private final DistributionSummary responseSize;
+        private final Counter promptTokens;
+        private final Counter completionTokens;
+        /** Outcome/status timers and error counters, created on first use */
+        private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+        private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+        private ProviderMetrics(String provider, String model) {
+            this.provider = provider;
+            this.model = model;
+            this.tags = Tags.of("provider", provider, "model", model);
+            this.running = inFlight.computeIfAbsent(provider, key -> {
+                AtomicInteger value = new AtomicInteger();
+                Gauge.builder("llm.inflight", value, AtomicInteger::get)
+                        .description("LLM calls waiting for a provider")
+                        .tag("provider", key)
+                        .register(registry);
+                return value;
+            });
+            this.timeToFirstToken = Timer.builder("llm.time.to.first.token")
+                    .description("Time until the first response byte")
+                    .tags(tags)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.tokensPerSecond = DistributionSummary.builder("llm.output.tokens.per.second")
+                    .tags(tags)
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry);
+            this.requestSize = bytes("llm.request.size");
+            this.responseSize = bytes("llm.response.size");
+            this.promptTokens = Counter.builder("llm.tokens").tags(tags).tag("type", "prompt").register(registry);
+            this.completionTokens = Counter.builder("llm.tokens").tags(tags).tag("type", "completion").register(registry);
+        }
+
+        public Call start() {
+            running.incrementAndGet();
+            return new Call(this);
+        }
+
+        private DistributionSummary bytes(String name) {
+            return DistributionSummary.builder(name).baseUnit("bytes").tags(tags).publishPercentileHistogram().register(registry);
+        }
+
+        private Timer requestTimer(String outcome, String status) {
+            return requestTimers.computeIfAbsent(outcome + ':' + status, key -> Timer.builder("llm.requests")
+                    .description("LLM provider calls")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .tag("status", status)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+
+        private Counter errorCounter(String status) {
+            return errorCounters.computeIfAbsent(status, key -> Counter.builder("llm.errors")
+                    .tags(tags)
+                    .tag("status", status)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * One provider call; exactly one of success, httpError or failure ends it
+     */
+    public static final class Call {
+
+        private final ProviderMetrics metrics;
+        private final long startNanos = System.nanoTime();
+        private final LlmCallEvent event = new LlmCallEvent();
+        private long requestBytes;
+        private volatile long firstByteNanos = -1;
+        private volatile boolean ended;
+
+        private Call(ProviderMetrics metrics) {
+            this.metrics = metrics;
+            event.begin();
+        }
+
+        public void requestBytes(long bytes) {
+            requestBytes = bytes;
+            metrics.requestSize.record(bytes);
+        }
+
+        /**
+         * Body handler that records time to first byte when the response headers arrive
+         */
+        public <T> HttpResponse.BodyHandler<T> timeToFirstByte(HttpResponse.BodyHandler<T> handler) {
+            return responseInfo -> {
+                firstByteNanos = System.nanoTime() - startNanos;
+                metrics.timeToFirstToken.record(firstByteNanos, TimeUnit.NANOSECONDS);
+                return handler.apply(responseInfo);
+            };
+        }
+
+        public void success(long responseBytes, LlmResponse.Usage usage) {
+            long elapsed = end("success", "200");
+            if (elapsed < 0) {
+                return;
+            }
+            metrics.responseSize.record(responseBytes);
+            emit("200", responseBytes, usage);
+            if (usage != null) {
+                metrics.promptTokens.increment(usage.getPromptTokens());
+                metrics.completionTokens.increment(usage.getCompletionTokens());
+                if (usage.getCompletionTokens() > 0 && elapsed > 0) {
+                    metrics.tokensPerSecond.record(usage.getCompletionTokens() * 1e9 / elapsed);
+                }
+            }
+        }
+
+        public void httpError(int status, long responseBytes) {
+            if (end("error", Integer.toString(status)) >= 0) {
+                metrics.responseSize.record(responseBytes);
+                metrics.errorCounter(Integer.toString(status)).increment();
+                emit(Integer.toString(status), responseBytes, null);
+            }
+        }
+
+        /**
+         * Ends the call unless success or httpError already did (e.g. a parse error after a 200)
+         */
+        public void failure(Throwable error) {
+            if (end("error", error.getClass().getSimpleName()) >= 0) {
+                metrics.errorCounter(error.getClass().getSimpleName()).increment();
+                emit(error.getClass().getSimpleName(), 0, null);
+            }
+        }
+
+        /** Fields are only filled in when a recording is interested, so a disabled event costs next to nothing */
+        private void emit(String status, long responseBytes, LlmResponse.Usage usage) {
+            if (!event.shouldCommit()) {
+                return;
+            }
+            event.provider = metrics.provider;
+            event.model = metrics.model;
+            event.status = status;
+            event.requestBytes = requestBytes;
+            event.responseBytes = responseBytes;
+            event.timeToFirstByte = Math.max(firstByteNanos, 0);
+            if (usage != null) {
+                event.promptTokens = usage.getPromptTokens();
+                event.completionTokens = usage.getCompletionTokens();
+            }
+            event.commit();
+        }
+
+        /** @return elapsed nanos, or -1 if the call had already ended */
+        private long end(String outcome, String status) {
+            if (ended) {
+                return -1;
+            }
+            ended = true;
+            metrics.running.decrementAndGet();
+            long elapsed = System.nanoTime() - startNanos;
+            metrics.requestTimer(outcome, status).record(elapsed, TimeUnit.NANOSECONDS);
+            return elapsed;
+        }
+    }
+}
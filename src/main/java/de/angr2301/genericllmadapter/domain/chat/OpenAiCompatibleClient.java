@@ -6,10 +6,12 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -23,76 +25,101 @@ public class OpenAiCompatibleClient implements LlmClient {
     private final String baseUrl;
     private final String modelName;
     private final String apiKey;
+    private final LlmTelemetry.ProviderMetrics metrics;
+    private final HttpClient httpClient; // shared, see HttpClientConfig
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final HttpClient httpClient = HttpClient.newHttpClient();
 
     @Override
     public LlmResponse generateContent(List<LlmMessage> contents) {
+        LlmTelemetry.Call call = metrics.start();
         try {
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("model", modelName);
-            ArrayNode messages = requestBody.putArray("messages");
-
-            for (LlmMessage content : contents) {
-                ObjectNode message = messages.addObject();
-                // Map role: "user" stays user, "assistant" or "model" → "assistant"
-                String role = content.getRole();
-                if (role == null || role.isBlank()) {
-                    role = "user";
-                } else if ("model".equalsIgnoreCase(role)) {
-                    role = "assistant";
-                }
-                message.put("role", role.toLowerCase());
-                message.put("content", content.getText());
-            }
-
-            String jsonRequest = objectMapper.writeValueAsString(requestBody);
+            byte[] jsonRequest = encodeRequest(contents);
+            call.requestBytes(jsonRequest.length);
 
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/chat/completions"))
                     .header("Content-Type", "application/json")
                     .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonRequest))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(jsonRequest))
                     .build();
 
             log.debug("Sending request to OpenAI-compatible endpoint: {}", baseUrl);
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<byte[]> response = httpClient.send(request,
+                    call.timeToFirstByte(HttpResponse.BodyHandlers.ofByteArray()));
 
             if (response.statusCode() != 200) {
-                log.error("Error from {} API: {} - {}", modelName, response.statusCode(), response.body());
-                throw new RuntimeException("API error: " + response.statusCode() + " - " + response.body());
-            }
-
-            var rootNode = objectMapper.readTree(response.body());
-
-            // Safely extract the assistant reply
-            if (rootNode.path("choices").isEmpty()) {
-                log.error("No choices in response from {} API", modelName);
-                throw new RuntimeException("Empty choices in API response");
+                call.httpError(response.statusCode(), response.body().length);
+                String body = new String(response.body(), StandardCharsets.UTF_8);
+                log.error("Error from {} API: {} - {}", modelName, response.statusCode(), body);
+                throw new RuntimeException("API error: " + response.statusCode() + " - " + body);
             }
 
-            String assistantReply = rootNode.path("choices").get(0).path("message").path("content").asText();
-            if (assistantReply == null || assistantReply.isEmpty()) {
-                log.error("Empty content in response from {} API", modelName);
-                throw new RuntimeException("Empty content in API response");
-            }
-
-            log.debug("Successfully received response from {} with {} characters", modelName, assistantReply.length());
-
-            // Wrap in LlmResponse
-            return new LlmResponse(
-                    List.of(new LlmResponse.Candidate(
-                            new LlmResponse.Content("model",
-                                    List.of(new LlmResponse.Part(assistantReply)))
-                    ))
-            );
+            LlmResponse llmResponse = parseResponse(response.body());
+            call.success(response.body().length, llmResponse.getUsage());
+            return llmResponse;
 
         } catch (RuntimeException e) {
+            call.failure(e);
             log.error("Failed to call OpenAI-compatible API: {}", e.getMessage());
             throw e;
         } catch (Exception e) {
+            call.failure(e);
             log.error("Failed to call OpenAI-compatible API", e);
             throw new RuntimeException("LLM call failed: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Chat completions request body (package-private for OpenAiCompatibleClientBenchmark)
+     */
+    byte[] encodeRequest(List<LlmMessage> contents) throws IOException {
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        requestBody.put("model", modelName);
+        ArrayNode messages = requestBody.putArray("messages");
+
+        for (LlmMessage content : contents) {
+            ObjectNode message = messages.addObject();
+            // Map role: "user" stays user, "assistant" or "model" → "assistant"
+            String role = content.getRole();
+            if (role == null || role.isBlank()) {
+                role = "user";
+            } else if ("model".equalsIgnoreCase(role)) {
+                role = "assistant";
+            }
+            message.put("role", role.toLowerCase());
+            message.put("content", content.getText());
+        }
+
+        return objectMapper.writeValueAsBytes(requestBody);
+    }
+
+    /**
+     * Reply and usage of a successful chat completions response
+     */
+    LlmResponse parseResponse(byte[] body) throws IOException {
+        var rootNode = objectMapper.readTree(body);
+
+        // Safely extract the assistant reply
+        if (rootNode.path("choices").isEmpty()) {
+            log.error("No choices in response from {} API", modelName);
+            throw new RuntimeException("Empty choices in API response");
+        }
+
+        String assistantReply = rootNode.path("choices").get(0).path("message").path("content").asText();
+        if (assistantReply == null || assistantReply.isEmpty()) {
+            log.error("Empty content in response from {} API", modelName);
+            throw new RuntimeException("Empty content in API response");
+        }
+
+        log.debug("Successfully received response from {} with {} characters", modelName, assistantReply.length());
+
+        // Wrap in LlmResponse
+        return new LlmResponse(
+                List.of(new LlmResponse.Candidate(
+                        new LlmResponse.Content("model",
+                                List.of(new LlmResponse.Part(assistantReply)))
+                )),
+                LlmResponse.Usage.fromOpenAi(rootNode)
+        );
+    }
 }
@@ -0,0 +1,82 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One call per provider, all at once. Outcomes are handed to the caller's thread in the order they finish;
+ * a call still running at its provider's deadline is interrupted and reported as timed out.
+ */
+final class ProviderFanOut {
+
+    /** result or error, neither if timed out */
+    record Outcome<T>(String provider, T result, RuntimeException error, boolean timedOut, long latencyMs) {
+    }
+
+    private ProviderFanOut() {
+    }
+
+    static <T> void run(List<String> providers, Function<String, T> call, Function<String, Duration> deadline,
+                        ThreadFactory threads, Consumer<Outcome<T>> onOutcome) throws InterruptedException {
+        long start = System.nanoTime();
+        BlockingQueue<Outcome<T>> done = new LinkedBlockingQueue<>();
+        Map<String, Future<?>> pending = new LinkedHashMap<>();
+        Map<String, Long> deadlines = new HashMap<>();
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(threads);
+        try {
+            for (String provider : providers) {
+                deadlines.put(provider, start + deadline.apply(provider).toNanos());
+                pending.put(provider, executor.submit(() -> {
+                    T result = null;
+                    RuntimeException error = null;
+                    try {
+                        result = call.apply(provider);
+                    } catch (RuntimeException e) {
+                        error = e;
+                    }
+                    done.add(new Outcome<>(provider, result, error, false, millisSince(start)));
+                }));
+            }
+            while (!pending.isEmpty()) {
+                long next = pending.keySet().stream().mapToLong(deadlines::get).min().orElseThrow();
+                Outcome<T> outcome = done.poll(next - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (outcome != null) {
+                    // Late outcomes of calls already reported as timed out are dropped
+                    if (pending.remove(outcome.provider()) != null) {
+                        onOutcome.accept(outcome);
+                    }
+                    continue;
+                }
+                long now = System.nanoTime();
+                for (Iterator<Map.Entry<String, Future<?>>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Future<?>> entry = it.next();
+                    if (deadlines.get(entry.getKey()) - now <= 0) {
+                        entry.getValue().cancel(true);
+                        it.remove();
+                        onOutcome.accept(new Outcome<>(entry.getKey(), null, null, true, millisSince(start)));
+                    }
+                }
+            }
+        } finally {
+            // Also stops the remaining calls when the caller gives up (e.g. the client went away)
+            executor.shutdownNow();
+        }
+    }
+
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
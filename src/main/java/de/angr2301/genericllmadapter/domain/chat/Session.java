@@ -37,4 +37,8 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "last_interaction_at")
     private LocalDateTime lastInteractionAt;
+
+    /** defining_data.system_prompts; null for the tenant's default (see SystemPromptService) */
+    @Column(name = "system_prompt_id")
+    private UUID systemPromptId;
 }
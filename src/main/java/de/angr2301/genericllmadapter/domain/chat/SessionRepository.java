@@ -1,12 +1,19 @@
 package de.angr2301.genericllmadapter.domain.chat;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface SessionRepository extends JpaRepository<Session, UUID> {
     List<Session> findByUserIdOrderByStartedAtDesc(UUID userId);
+
+    /** SELECT ... FOR UPDATE: turns of one session are written one at a time, see InteractionLog.seq */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Session> findWithLockById(UUID id);
 }
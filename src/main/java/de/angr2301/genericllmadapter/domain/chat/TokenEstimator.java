@@ -0,0 +1,41 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import java.util.List;
+
+/**
+ * Cheap, provider-independent token estimate.
+ * Uses the common ~4 characters per token heuristic; good enough for budgets,
+ * exact counts come from the provider after the call.
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /** Fixed per-message overhead (role markers, separators) in chat formats */
+    private static final int TOKENS_PER_MESSAGE = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Approximate number of characters that make up the given number of tokens
+     */
+    public static int chars(int tokens) {
+        return tokens * CHARS_PER_TOKEN;
+    }
+
+    public static int estimate(List<LlmMessage> messages) {
+        int tokens = 0;
+        for (LlmMessage message : messages) {
+            tokens += TOKENS_PER_MESSAGE + estimate(message.getText());
+        }
+        return tokens;
+    }
+}
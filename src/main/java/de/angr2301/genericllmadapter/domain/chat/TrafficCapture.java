@@ -0,0 +1,170 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in capture of the chat workload shape (capture.enabled) as JSON lines, for replay with
+ * loadtest.TrafficReplay.
+ *
+ * One line per chat message with arrival time, gap to the previous arrival, provider and prompt size.
+ * Users, sessions and prompts are only written as keyed hashes: equal values map to equal keys within
+ * a capture, but nothing can be looked up in the database or reversed. The key is random per process
+ * unless capture.salt is set. Lines are written by a background thread; when the queue is full,
+ * lines are dropped instead of slowing down requests.
+ */
+@Service
+@Slf4j
+public class TrafficCapture {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final int KEY_BYTES = 8;
+
+    private final boolean enabled;
+    private final Path file;
+    private final BlockingQueue<String> queue;
+    private final ThreadLocal<Mac> mac;
+    private final AtomicLong lastArrivalNanos = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public TrafficCapture(@Value("${capture.enabled:false}") boolean enabled,
+                          @Value("${capture.file:./data/capture/traffic.jsonl}") String file,
+                          @Value("${capture.salt:}") String salt,
+                          @Value("${capture.queue-capacity:10000}") int queueCapacity) {
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        byte[] key = salt.isEmpty() ? randomKey() : salt.getBytes(StandardCharsets.UTF_8);
+        this.mac = ThreadLocal.withInitial(() -> hmac(key));
+        if (enabled) {
+            this.writer = Thread.ofPlatform().name("traffic-capture").daemon().start(this::drain);
+            log.info("Capturing anonymized chat traffic to {}", this.file.toAbsolutePath());
+        } else {
+            this.writer = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record the arrival of one chat message; a no-op unless capture is enabled
+     */
+    public void record(UUID sessionId, String email, String provider, String prompt) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long previous = lastArrivalNanos.getAndSet(now);
+        String text = prompt != null ? prompt : "";
+        ObjectNode line = JSON.createObjectNode()
+                .put("ts", Instant.now().toString())
+                .put("gapMs", previous == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(now - previous))
+                .put("user", key(email))
+                .put("session", key(String.valueOf(sessionId)))
+                .put("provider", provider)
+                .put("promptChars", text.length())
+                .put("promptTokens", TokenEstimator.estimate(text))
+                .put("promptHash", key(text));
+        if (!queue.offer(line.toString()) && dropped.getAndIncrement() % 1000 == 0) {
+            log.warn("Traffic capture queue full, {} lines dropped so far", dropped.get());
+        }
+    }
+
+    String key(String value) {
+        byte[] digest = mac.get().doFinal(value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+        return HexFormat.of().formatHex(digest, 0, KEY_BYTES);
+    }
+
+    private void drain() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                List<String> batch = new ArrayList<>();
+                while (!closed) {
+                    String first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    write(out, batch);
+                }
+                // Shutting down: keep what is still queued
+                queue.drainTo(batch);
+                write(out, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Traffic capture to {} stopped: {}", file, e.getMessage());
+        }
+    }
+
+    private static void write(BufferedWriter out, List<String> batch) throws IOException {
+        for (String line : batch) {
+            out.write(line);
+            out.newLine();
+        }
+        out.flush();
+        batch.clear();
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        if (writer != null) {
+            // No interrupt: it would close the file channel in the middle of a write
+            closed = true;
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+            if (dropped.get() > 0) {
+                log.warn("Traffic capture dropped {} lines in total", dropped.get());
+            }
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static Mac hmac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
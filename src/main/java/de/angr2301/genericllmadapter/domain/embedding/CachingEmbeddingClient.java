@@ -0,0 +1,83 @@
+package de.angr2301.genericllmadapter.domain.embedding;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Decorator that only sends texts to the provider whose embedding is not cached yet.
+ * Texts are identified by the SHA-256 of their normalized form (NFC, trimmed,
+ * whitespace runs collapsed), so formatting-only differences share one entry.
+ */
+@Slf4j
+class CachingEmbeddingClient implements EmbeddingClient {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final EmbeddingClient delegate;
+    private final EmbeddingCache cache;
+    /** Model plus dimensions: the same model truncated to another size yields different vectors */
+    private final String cacheModel;
+
+    CachingEmbeddingClient(EmbeddingClient delegate, EmbeddingCache cache, int dimensions) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.cacheModel = delegate.getModelName() + ":" + dimensions;
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        List<String> hashes = new ArrayList<>(texts.size());
+        // Unique texts by hash, so duplicates within one batch are embedded once
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String text : texts) {
+            String hash = hash(text);
+            hashes.add(hash);
+            unique.putIfAbsent(hash, text);
+        }
+
+        Map<String, float[]> vectors = new LinkedHashMap<>(cache.getAll(cacheModel, unique.keySet()));
+        List<String> missingHashes = unique.keySet().stream().filter(hash -> !vectors.containsKey(hash)).toList();
+        if (!missingHashes.isEmpty()) {
+            List<float[]> computed = delegate.embedAll(missingHashes.stream().map(unique::get).toList());
+            Map<String, float[]> fresh = new LinkedHashMap<>();
+            for (int i = 0; i < missingHashes.size(); i++) {
+                fresh.put(missingHashes.get(i), computed.get(i));
+            }
+            cache.putAll(cacheModel, fresh);
+            vectors.putAll(fresh);
+        }
+        log.debug("Embedded {} texts, {} served from cache", texts.size(), unique.size() - missingHashes.size());
+        return hashes.stream().map(vectors::get).toList();
+    }
+
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    static String normalize(String text) {
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip()).replaceAll(" ");
+    }
+
+    static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalize(text).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package de.angr2301.genericllmadapter.domain.embedding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pgvector.PGvector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of embeddings keyed by (model, SHA-256 of the normalized text).
+ * An in-memory LRU (Caffeine) sits in front of operational_data.embedding_cache.
+ * Database problems only cost cache hits, they never fail the embedding call.
+ */
+@Service
+@Slf4j
+public class EmbeddingCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate cacheTransaction;
+    private final Cache<String, float[]> memory;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+
+    @Value("${embedding.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${embedding.cache.retention:P90D}")
+    private Duration retention;
+
+    public EmbeddingCache(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${embedding.cache.max-entries:10000}") long maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Own transaction: a failed cache query must not abort the caller's transaction
+        this.cacheTransaction = new TransactionTemplate(transactionManager);
+        this.cacheTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.memory = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    /** Hit counters since startup */
+    public record Stats(long requests, long memoryHits, long databaseHits, long misses,
+                        double hitRate, long memoryEntries) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cached vectors for the given text hashes; absent hashes are misses.
+     * Memory misses are fetched from the database in one round trip and promoted.
+     */
+    public Map<String, float[]> getAll(String model, Collection<String> hashes) {
+        requests.addAndGet(hashes.size());
+        Map<String, float[]> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String hash : hashes) {
+            float[] vector = memory.getIfPresent(key(model, hash));
+            if (vector != null) {
+                found.put(hash, vector);
+            } else {
+                missing.add(hash);
+            }
+        }
+        memoryHits.addAndGet(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        Map<String, float[]> stored = load(model, missing);
+        stored.forEach((hash, vector) -> memory.put(key(model, hash), vector));
+        databaseHits.addAndGet(stored.size());
+        found.putAll(stored);
+        return found;
+    }
+
+    /**
+     * Store freshly computed vectors in both tiers
+     */
+    public void putAll(String model, Map<String, float[]> vectors) {
+        if (vectors.isEmpty()) {
+            return;
+        }
+        vectors.forEach((hash, vector) -> memory.put(key(model, hash), vector));
+        List<Map.Entry<String, float[]>> entries = new ArrayList<>(vectors.entrySet());
+        try {
+            cacheTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "INSERT INTO operational_data.embedding_cache (model, text_hash, embedding) " +
+                            "VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                    entries, entries.size(), (ps, entry) -> {
+                        ps.setString(1, model);
+                        ps.setBytes(2, HexFormat.of().parseHex(entry.getKey()));
+                        ps.setObject(3, new PGvector(entry.getValue()));
+                    }));
+        } catch (DataAccessException e) {
+            log.warn("Could not store {} embeddings in the cache table: {}", entries.size(), e.getMessage());
+        }
+    }
+
+    public Stats stats() {
+        long total = requests.get();
+        long hits = memoryHits.get() + databaseHits.get();
+        return new Stats(total, memoryHits.get(), databaseHits.get(), total - hits,
+                total == 0 ? 0 : (double) hits / total, memory.estimatedSize());
+    }
+
+    /**
+     * Drop database entries older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${embedding.cache.purge-interval:PT6H}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM operational_data.embedding_cache WHERE created_at < ?",
+                    OffsetDateTime.now().minus(retention));
+            if (deleted > 0) {
+                log.info("Purged {} cached embeddings older than {}", deleted, retention);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Embedding cache purge failed: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, float[]> load(String model, List<String> hashes) {
+        try {
+            return cacheTransaction.execute(status -> jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement("SELECT text_hash, embedding::text FROM operational_data.embedding_cache " +
+                        "WHERE model = ? AND text_hash = ANY(?)");
+                ps.setString(1, model);
+                ps.setArray(2, byteaArray(con, hashes));
+                return ps;
+            }, rs -> {
+                Map<String, float[]> result = new HashMap<>();
+                while (rs.next()) {
+                    result.put(HexFormat.of().formatHex(rs.getBytes(1)), new PGvector(rs.getString(2)).toArray());
+                }
+                return result;
+            }));
+        } catch (DataAccessException e) {
+            log.warn("Embedding cache lookup failed, treating {} texts as misses: {}", hashes.size(), e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private static Array byteaArray(java.sql.Connection con, List<String> hashes) throws SQLException {
+        byte[][] values = new byte[hashes.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = HexFormat.of().parseHex(hashes.get(i));
+        }
+        return con.createArrayOf("bytea", values);
+    }
+
+    private static String key(String model, String hash) {
+        return model + '/' + hash;
+    }
+}
@@ -0,0 +1,31 @@
+package de.angr2301.genericllmadapter.domain.embedding;
+
+import java.util.List;
+
+/**
+ * Abstraction for embedding providers.
+ * Turns text into fixed-size float vectors compatible with operational_data.context_vectors.
+ */
+public interface EmbeddingClient {
+
+    /**
+     * Embed a single text
+     * @param text Text to embed
+     * @return Embedding vector
+     */
+    default float[] embed(String text) {
+        return embedAll(List.of(text)).get(0);
+    }
+
+    /**
+     * Embed several texts in one provider call
+     * @param texts Texts to embed
+     * @return Embedding vectors in the same order as the input
+     */
+    List<float[]> embedAll(List<String> texts);
+
+    /**
+     * @return Name of the embedding model, used to tell vectors of different models apart
+     */
+    String getModelName();
+}
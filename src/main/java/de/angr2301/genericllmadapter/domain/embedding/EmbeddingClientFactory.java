@@ -0,0 +1,44 @@
+package de.angr2301.genericllmadapter.domain.embedding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+
+/**
+ * Factory for embedding clients.
+ * Embeddings are computed with the caller's own OpenAI key, like chat calls.
+ * Clients are wrapped with the shared {@link EmbeddingCache} unless it is disabled.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddingClientFactory {
+
+    private final EmbeddingCache embeddingCache;
+    private final HttpClient httpClient;
+
+    @Value("${embedding.base-url:https://api.openai.com/v1}")
+    private String baseUrl;
+
+    @Value("${embedding.model:text-embedding-3-small}")
+    private String model;
+
+    @Value("${embedding.dimensions:1536}")
+    private int dimensions;
+
+    public EmbeddingClient createEmbeddingClient(String apiKey) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalArgumentException("API Key cannot be empty for embeddings");
+        }
+        log.debug("Creating EmbeddingClient for model: {}", model);
+        EmbeddingClient client = new OpenAiEmbeddingClient(baseUrl, model, dimensions, apiKey, httpClient);
+        return embeddingCache.isEnabled() ? new CachingEmbeddingClient(client, embeddingCache, dimensions) : client;
+    }
+
+    public String getModelName() {
+        return model;
+    }
+}
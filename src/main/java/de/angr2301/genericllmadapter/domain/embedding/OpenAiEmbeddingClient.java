@@ -0,0 +1,88 @@
+package de.angr2301.genericllmadapter.domain.embedding;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * OpenAI-compatible embedding client (/v1/embeddings)
+ * Sends all texts of a call as one batched request
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OpenAiEmbeddingClient implements EmbeddingClient {
+
+    private final String baseUrl;
+    private final String modelName;
+    private final int dimensions;
+    private final String apiKey;
+    private final HttpClient httpClient; // shared, see HttpClientConfig
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        try {
+            ObjectNode requestBody = objectMapper.createObjectNode();
+            requestBody.put("model", modelName);
+            requestBody.put("dimensions", dimensions);
+            ArrayNode input = requestBody.putArray("input");
+            texts.forEach(input::add);
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/embeddings"))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody)))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                log.error("Error from {} embeddings API: {} - {}", modelName, response.statusCode(), response.body());
+                throw new RuntimeException("Embedding API error: " + response.statusCode());
+            }
+
+            JsonNode data = objectMapper.readTree(response.body()).path("data");
+            if (data.size() != texts.size()) {
+                throw new RuntimeException("Embedding API returned " + data.size() + " vectors for " + texts.size() + " inputs");
+            }
+
+            // Results carry an explicit index, don't rely on array order
+            float[][] vectors = new float[texts.size()][];
+            for (JsonNode item : data) {
+                JsonNode values = item.path("embedding");
+                float[] vector = new float[values.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) values.get(i).asDouble();
+                }
+                vectors[item.path("index").asInt()] = vector;
+            }
+            return new ArrayList<>(Arrays.asList(vectors));
+
+        } catch (RuntimeException e) {
+            log.error("Failed to call embedding API: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to call embedding API", e);
+            throw new RuntimeException("Embedding call failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+}
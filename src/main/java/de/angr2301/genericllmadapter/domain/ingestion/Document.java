@@ -0,0 +1,10 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+/**
+ * Source document for ingestion.
+ *
+ * @param id   Stable identifier used for checkpoints and the context_vectors.source column
+ * @param text Full text
+ */
+public record Document(String id, String text) {
+}
@@ -0,0 +1,78 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Streams documents from a file or directory tree.
+ *
+ * .txt and .md files are one document each (id = path relative to the root).
+ * .jsonl / .ndjson files hold one document per line with a "text" (or "content")
+ * field and an optional "id"; they are read line by line, so large corpora never
+ * have to fit in memory. Other files are ignored.
+ */
+class DocumentReader {
+
+    private final ObjectMapper objectMapper;
+
+    DocumentReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Lazily read all documents below root in a stable order. The stream must be closed.
+     */
+    Stream<Document> read(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+        Path base = Files.isDirectory(root) ? root : root.getParent();
+        return files.stream().flatMap(file -> documents(base, file));
+    }
+
+    private Stream<Document> documents(Path base, Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        String relative = base.relativize(file).toString();
+        try {
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                AtomicLong lineNumber = new AtomicLong();
+                return Files.lines(file)
+                        .map(line -> parseLine(relative, lineNumber.incrementAndGet(), line))
+                        .filter(document -> document != null);
+            }
+            if (name.endsWith(".txt") || name.endsWith(".md")) {
+                return Stream.of(new Document(relative, Files.readString(file)));
+            }
+            return Stream.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file, e);
+        }
+    }
+
+    private Document parseLine(String file, long lineNumber, String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            String text = node.hasNonNull("text") ? node.get("text").asText() : node.path("content").asText(null);
+            if (text == null || text.isBlank()) {
+                return null;
+            }
+            String id = node.hasNonNull("id") ? file + "#" + node.get("id").asText() : file + ":" + lineNumber;
+            return new Document(id, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid JSON in " + file + " line " + lineNumber, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A bulk load of reference documents into context_vectors.
+ * Counters are advanced together with each COPY batch, so they always match
+ * the rows and checkpoints that were committed.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "ingestion_jobs", schema = "operational_data")
+public class IngestionJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "source_path", nullable = false)
+    private String sourcePath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private long documents;
+
+    private long chunks;
+
+    @Column(name = "started_at")
+    private OffsetDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    @Column(columnDefinition = "text")
+    private String error;
+}
@@ -0,0 +1,33 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface IngestionJobRepository extends JpaRepository<IngestionJob, UUID> {
+
+    List<IngestionJob> findAllByOrderByStartedAtDesc();
+
+    // Status updates only; the counters are advanced by the COPY transactions
+    @Modifying
+    @Transactional
+    @Query("UPDATE IngestionJob j SET j.status = :status, j.startedAt = :startedAt, " +
+            "j.finishedAt = null, j.error = null WHERE j.id = :id")
+    int markRestarted(@Param("id") UUID id, @Param("status") IngestionJob.Status status,
+                      @Param("startedAt") OffsetDateTime startedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IngestionJob j SET j.status = :status, j.finishedAt = :finishedAt, j.error = :error " +
+            "WHERE j.id = :id")
+    int markFinished(@Param("id") UUID id, @Param("status") IngestionJob.Status status,
+                     @Param("finishedAt") OffsetDateTime finishedAt, @Param("error") String error);
+}
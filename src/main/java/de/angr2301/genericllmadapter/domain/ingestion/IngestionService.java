@@ -0,0 +1,510 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.angr2301.genericllmadapter.domain.embedding.EmbeddingClient;
+import de.angr2301.genericllmadapter.domain.embedding.EmbeddingClientFactory;
+import de.angr2301.genericllmadapter.dto.ingestion.IngestionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Bulk ingestion of reference documents into operational_data.context_vectors.
+ *
+ * Pipeline per job, connected by bounded queues so a slow stage throttles the ones before it:
+ * <ol>
+ *     <li>reader: streams documents and cuts them into token-sized chunks</li>
+ *     <li>embedding workers: embed batches of chunks in parallel</li>
+ *     <li>writer: collects complete documents and loads them with COPY ... (FORMAT BINARY)</li>
+ * </ol>
+ * Each COPY commits together with one checkpoint row per document, so a failed or cancelled
+ * job can be resumed and continues with the first document that is not loaded yet.
+ */
+@Service
+@Slf4j
+public class IngestionService {
+
+    private static final String COPY_SQL = "COPY operational_data.context_vectors " +
+            "(id, source, content, embedding, created_at) FROM STDIN (FORMAT BINARY)";
+
+    /** Marks the end of the reader output, one per embedding worker */
+    private static final List<Chunk> END_OF_CHUNKS = new ArrayList<>(0);
+
+    private final IngestionJobRepository jobRepository;
+    private final EmbeddingClientFactory embeddingClientFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final DocumentReader documentReader;
+    private final Map<UUID, Run> runs = new ConcurrentHashMap<>();
+
+    @Value("${ingestion.base-directory:./data/ingest}")
+    private String baseDirectory;
+
+    @Value("${ingestion.chunk-tokens:400}")
+    private int chunkTokens;
+
+    @Value("${ingestion.chunk-overlap-tokens:50}")
+    private int chunkOverlapTokens;
+
+    @Value("${ingestion.embedding-batch-size:64}")
+    private int embeddingBatchSize;
+
+    @Value("${ingestion.embedding-workers:4}")
+    private int embeddingWorkers;
+
+    @Value("${ingestion.copy-batch-size:500}")
+    private int copyBatchSize;
+
+    @Value("${ingestion.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${ingestion.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public IngestionService(IngestionJobRepository jobRepository,
+                            EmbeddingClientFactory embeddingClientFactory,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper) {
+        this.jobRepository = jobRepository;
+        this.embeddingClientFactory = embeddingClientFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.documentReader = new DocumentReader(objectMapper);
+    }
+
+    /**
+     * Start a new job for a file or directory below the ingestion base directory.
+     * Returns immediately; the job runs in the background.
+     */
+    public IngestionStatus start(String path, String embeddingApiKey) {
+        Path root = resolve(path);
+        EmbeddingClient client = embeddingClientFactory.createEmbeddingClient(embeddingApiKey);
+
+        IngestionJob job = new IngestionJob();
+        job.setSourcePath(baseDirectory().relativize(root).toString());
+        job.setStatus(IngestionJob.Status.RUNNING);
+        job.setStartedAt(OffsetDateTime.now());
+        job = jobRepository.save(job);
+
+        launch(job.getId(), root, client);
+        return toStatus(job);
+    }
+
+    /**
+     * Continue a failed or cancelled job after its last checkpoint
+     */
+    public IngestionStatus resume(UUID jobId, String embeddingApiKey) {
+        IngestionJob job = getJob(jobId);
+        if (job.getStatus() == IngestionJob.Status.COMPLETED) {
+            throw new IllegalStateException("Ingestion job " + jobId + " is already completed");
+        }
+        if (runs.containsKey(jobId)) {
+            throw new IllegalStateException("Ingestion job " + jobId + " is already running");
+        }
+        Path root = resolve(job.getSourcePath());
+        EmbeddingClient client = embeddingClientFactory.createEmbeddingClient(embeddingApiKey);
+        jobRepository.markRestarted(jobId, IngestionJob.Status.RUNNING, OffsetDateTime.now());
+
+        launch(jobId, root, client);
+        return status(jobId);
+    }
+
+    public void cancel(UUID jobId) {
+        Run run = runs.get(jobId);
+        if (run == null) {
+            throw new IllegalStateException("Ingestion job " + jobId + " is not running");
+        }
+        run.cancelled.set(true);
+    }
+
+    public IngestionStatus status(UUID jobId) {
+        return toStatus(getJob(jobId));
+    }
+
+    public List<IngestionStatus> listJobs() {
+        return jobRepository.findAllByOrderByStartedAtDesc().stream().map(this::toStatus).toList();
+    }
+
+    private void launch(UUID jobId, Path root, EmbeddingClient client) {
+        Run run = new Run(jobId);
+        if (runs.putIfAbsent(jobId, run) != null) {
+            throw new IllegalStateException("Ingestion job " + jobId + " is already running");
+        }
+        threads().name("ingestion-" + jobId).start(() -> {
+            try {
+                execute(run, root, client);
+            } finally {
+                runs.remove(jobId);
+            }
+        });
+    }
+
+    /** Stages mostly wait on the embeddings API and COPY, so they follow the virtual-thread mode */
+    private Thread.Builder threads() {
+        return virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+    }
+
+    private void execute(Run run, Path root, EmbeddingClient client) {
+        BlockingQueue<List<Chunk>> toEmbed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<EmbeddedBatch> toWrite = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService stages = Executors.newFixedThreadPool(embeddingWorkers + 1,
+                threads().name("ingestion-stage-", 0).factory());
+        try {
+            Set<String> loaded = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT document FROM operational_data.ingestion_checkpoints WHERE job_id = ?",
+                    String.class, run.jobId));
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < embeddingWorkers; i++) {
+                futures.add(stages.submit(() -> stage(run, () -> embed(run, client, toEmbed, toWrite))));
+            }
+            futures.add(stages.submit(() -> stage(run, () -> write(run, toWrite))));
+            stage(run, () -> read(run, root, loaded, toEmbed));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            run.fail(e);
+        } finally {
+            stages.shutdownNow();
+        }
+        finish(run);
+    }
+
+    // ---- stages ----
+
+    private void read(Run run, Path root, Set<String> loaded, BlockingQueue<List<Chunk>> toEmbed)
+            throws IOException, InterruptedException {
+        TextChunker chunker = new TextChunker(chunkTokens, chunkOverlapTokens);
+        Set<String> seen = new HashSet<>();
+        List<Chunk> batch = new ArrayList<>(embeddingBatchSize);
+        try (Stream<Document> documents = documentReader.read(root)) {
+            Iterator<Document> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                run.checkActive();
+                Document document = iterator.next();
+                if (loaded.contains(document.id())) {
+                    run.skipped.incrementAndGet();
+                    continue;
+                }
+                if (!seen.add(document.id())) {
+                    log.warn("Ingestion {}: duplicate document id {}, skipped", run.jobId, document.id());
+                    continue;
+                }
+                List<String> parts = chunker.chunk(document.text());
+                for (int i = 0; i < parts.size(); i++) {
+                    batch.add(new Chunk(document.id(), i, parts.size(), parts.get(i)));
+                    if (batch.size() == embeddingBatchSize) {
+                        put(run, toEmbed, batch);
+                        batch = new ArrayList<>(embeddingBatchSize);
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            put(run, toEmbed, batch);
+        }
+        for (int i = 0; i < embeddingWorkers; i++) {
+            put(run, toEmbed, END_OF_CHUNKS);
+        }
+    }
+
+    private void embed(Run run, EmbeddingClient client, BlockingQueue<List<Chunk>> toEmbed,
+                       BlockingQueue<EmbeddedBatch> toWrite) throws InterruptedException {
+        while (true) {
+            List<Chunk> batch = take(run, toEmbed);
+            if (batch == END_OF_CHUNKS) {
+                put(run, toWrite, EmbeddedBatch.END);
+                return;
+            }
+            List<float[]> vectors = embedWithRetry(run, client, batch.stream().map(Chunk::text).toList());
+            put(run, toWrite, new EmbeddedBatch(batch, vectors));
+        }
+    }
+
+    private void write(Run run, BlockingQueue<EmbeddedBatch> toWrite) throws InterruptedException {
+        Map<String, PendingDocument> pending = new HashMap<>();
+        List<PendingDocument> ready = new ArrayList<>();
+        int readyChunks = 0;
+        int finishedWorkers = 0;
+        while (finishedWorkers < embeddingWorkers) {
+            EmbeddedBatch batch = take(run, toWrite);
+            if (batch == EmbeddedBatch.END) {
+                finishedWorkers++;
+                continue;
+            }
+            // Embedding workers finish out of order, a document is loaded once all its chunks are back
+            for (int i = 0; i < batch.chunks().size(); i++) {
+                Chunk chunk = batch.chunks().get(i);
+                PendingDocument document = pending.computeIfAbsent(chunk.document(),
+                        id -> new PendingDocument(id, chunk.total()));
+                if (document.add(chunk, batch.vectors().get(i))) {
+                    pending.remove(document.id);
+                    ready.add(document);
+                    readyChunks += document.texts.length;
+                }
+            }
+            if (readyChunks >= copyBatchSize) {
+                flush(run, ready);
+                ready = new ArrayList<>();
+                readyChunks = 0;
+            }
+        }
+        if (!ready.isEmpty()) {
+            flush(run, ready);
+        }
+        if (!pending.isEmpty()) {
+            throw new IllegalStateException(pending.size() + " documents incomplete at end of input");
+        }
+    }
+
+    /**
+     * COPY the chunks of complete documents, their checkpoints and the job counters in one transaction
+     */
+    private void flush(Run run, List<PendingDocument> documents) {
+        run.checkActive();
+        int chunks = documents.stream().mapToInt(document -> document.texts.length).sum();
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                copy(connection, documents, createdAt);
+                return null;
+            });
+            jdbcTemplate.batchUpdate("INSERT INTO operational_data.ingestion_checkpoints (job_id, document, chunks) " +
+                            "VALUES (?, ?, ?)", documents, documents.size(),
+                    (ps, document) -> {
+                        ps.setObject(1, run.jobId);
+                        ps.setString(2, document.id);
+                        ps.setInt(3, document.texts.length);
+                    });
+            jdbcTemplate.update("UPDATE operational_data.ingestion_jobs " +
+                    "SET documents = documents + ?, chunks = chunks + ? WHERE id = ?",
+                    documents.size(), chunks, run.jobId);
+        });
+        run.documents.addAndGet(documents.size());
+        run.chunks.addAndGet(chunks);
+        log.debug("Ingestion {}: loaded {} documents / {} chunks ({} / {} total)",
+                run.jobId, documents.size(), chunks, run.documents.get(), run.chunks.get());
+    }
+
+    private void copy(Connection connection, List<PendingDocument> documents, OffsetDateTime createdAt)
+            throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(
+                new PGCopyOutputStream(pgConnection.getCopyAPI().copyIn(COPY_SQL)))) {
+            for (PendingDocument document : documents) {
+                for (int i = 0; i < document.texts.length; i++) {
+                    writer.startRow(5);
+                    writer.writeUuid(UUID.randomUUID());
+                    writer.writeText(document.id);
+                    writer.writeText(document.texts[i]);
+                    writer.writeVector(document.vectors[i]);
+                    writer.writeTimestamp(createdAt);
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("COPY into context_vectors failed: " + e.getMessage(), e);
+        }
+    }
+
+    private List<float[]> embedWithRetry(Run run, EmbeddingClient client, List<String> texts)
+            throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return client.embedAll(texts);
+            } catch (RuntimeException e) {
+                if (attempt > maxRetries) {
+                    throw e;
+                }
+                run.checkActive();
+                long backoff = 500L << (attempt - 1);
+                log.warn("Ingestion {}: embedding batch failed (attempt {}), retrying in {} ms: {}",
+                        run.jobId, attempt, backoff, e.getMessage());
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    private void finish(Run run) {
+        Throwable failure = run.failure.get();
+        IngestionJob.Status status = run.cancelled.get() ? IngestionJob.Status.CANCELLED
+                : failure != null ? IngestionJob.Status.FAILED
+                : IngestionJob.Status.COMPLETED;
+        run.endNanos = System.nanoTime();
+        jobRepository.markFinished(run.jobId, status, OffsetDateTime.now(),
+                status == IngestionJob.Status.FAILED ? String.valueOf(failure.getMessage()) : null);
+        if (status == IngestionJob.Status.FAILED) {
+            log.error("Ingestion {} failed after {} documents, resume to continue", run.jobId, run.documents.get(), failure);
+        }
+        log.info("Ingestion {} {}: {} documents, {} chunks, {} skipped in {} s ({} docs/s, {} chunks/s)",
+                run.jobId, status, run.documents.get(), run.chunks.get(), run.skipped.get(),
+                String.format("%.1f", run.seconds()),
+                String.format("%.1f", run.documents.get() / run.seconds()),
+                String.format("%.1f", run.chunks.get() / run.seconds()));
+    }
+
+    // ---- helpers ----
+
+    /** Hand an item to the next stage, waiting while its queue is full (back-pressure) */
+    private static <T> void put(Run run, BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, 200, TimeUnit.MILLISECONDS)) {
+            run.checkActive();
+        }
+    }
+
+    private static <T> T take(Run run, BlockingQueue<T> queue) throws InterruptedException {
+        while (true) {
+            T item = queue.poll(200, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+            run.checkActive();
+        }
+    }
+
+    /** Run a stage; the first failure stops all other stages of the job */
+    private static void stage(Run run, Stage stage) {
+        try {
+            stage.run();
+        } catch (CancellationException e) {
+            // another stage failed or the job was cancelled
+        } catch (Exception e) {
+            run.fail(e);
+        }
+    }
+
+    private Path resolve(String path) {
+        Path base = baseDirectory();
+        Path resolved = base.resolve(path == null ? "" : path).normalize();
+        if (!resolved.startsWith(base)) {
+            throw new IllegalArgumentException("Path must be inside the ingestion directory");
+        }
+        if (!Files.exists(resolved)) {
+            throw new IllegalArgumentException("Ingestion source not found: " + path);
+        }
+        return resolved;
+    }
+
+    private Path baseDirectory() {
+        return Path.of(baseDirectory).toAbsolutePath().normalize();
+    }
+
+    private IngestionJob getJob(UUID jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Ingestion job not found: " + jobId));
+    }
+
+    private IngestionStatus toStatus(IngestionJob job) {
+        Run run = runs.get(job.getId());
+        if (run != null) {
+            // Live rates of the current run; persisted counters include earlier runs of a resumed job
+            return IngestionStatus.from(job, run.documents.get() / run.seconds(), run.chunks.get() / run.seconds());
+        }
+        double seconds = job.getStartedAt() == null || job.getFinishedAt() == null ? 0
+                : Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis() / 1000.0;
+        return seconds <= 0 ? IngestionStatus.from(job, 0, 0)
+                : IngestionStatus.from(job, job.getDocuments() / seconds, job.getChunks() / seconds);
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private record Chunk(String document, int index, int total, String text) {
+    }
+
+    private record EmbeddedBatch(List<Chunk> chunks, List<float[]> vectors) {
+        static final EmbeddedBatch END = new EmbeddedBatch(List.of(), List.of());
+    }
+
+    /** Chunks of one document collected until all of them are embedded */
+    private static final class PendingDocument {
+        private final String id;
+        private final String[] texts;
+        private final float[][] vectors;
+        private int received;
+
+        PendingDocument(String id, int chunks) {
+            this.id = id;
+            this.texts = new String[chunks];
+            this.vectors = new float[chunks][];
+        }
+
+        /** @return true once all chunks are present */
+        boolean add(Chunk chunk, float[] vector) {
+            texts[chunk.index()] = chunk.text();
+            vectors[chunk.index()] = vector;
+            return ++received == texts.length;
+        }
+    }
+
+    /** State of a job while it runs in this process */
+    private static final class Run {
+        private final UUID jobId;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong documents = new AtomicLong();
+        private final AtomicLong chunks = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private volatile long endNanos;
+
+        Run(UUID jobId) {
+            this.jobId = jobId;
+        }
+
+        void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+
+        void checkActive() {
+            if (cancelled.get() || failure.get() != null) {
+                throw new CancellationException();
+            }
+        }
+
+        double seconds() {
+            long end = endNanos == 0 ? System.nanoTime() : endNanos;
+            return Math.max(1e-3, (end - startNanos) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import de.angr2301.genericllmadapter.domain.vector.PgVectorFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Encoder for PostgreSQL's binary COPY format: signature, flags and header extension,
+ * then per row a field count followed by length-prefixed fields, then a -1 trailer.
+ */
+class PgBinaryCopyWriter implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final OffsetDateTime PG_EPOCH = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final DataOutputStream out;
+
+    PgBinaryCopyWriter(OutputStream target) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags: no OIDs
+        out.writeInt(0); // header extension length
+    }
+
+    void startRow(int fields) throws IOException {
+        out.writeShort(fields);
+    }
+
+    void writeUuid(UUID value) throws IOException {
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    void writeText(String value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    void writeVector(float[] value) throws IOException {
+        out.writeInt(PgVectorFormat.binaryLength(value));
+        PgVectorFormat.writeBinary(out, value);
+    }
+
+    /** timestamptz: microseconds since 2000-01-01 UTC */
+    void writeTimestamp(OffsetDateTime value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, value));
+    }
+
+    void writeNull() throws IOException {
+        out.writeInt(-1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeShort(-1);
+        out.close();
+    }
+}
@@ -0,0 +1,82 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import de.angr2301.genericllmadapter.domain.chat.TokenEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into chunks of at most maxTokens estimated tokens with some overlap.
+ * Cuts prefer paragraph breaks, then sentence ends, then whitespace, so chunks
+ * rarely end mid-word.
+ */
+class TextChunker {
+
+    private final int maxChars;
+    private final int overlapChars;
+
+    TextChunker(int maxTokens, int overlapTokens) {
+        if (maxTokens <= 0 || overlapTokens < 0 || overlapTokens >= maxTokens) {
+            throw new IllegalArgumentException("Invalid chunk size " + maxTokens + " / overlap " + overlapTokens);
+        }
+        this.maxChars = TokenEstimator.chars(maxTokens);
+        this.overlapChars = TokenEstimator.chars(overlapTokens);
+    }
+
+    List<String> chunk(String text) {
+        List<String> chunks = new ArrayList<>();
+        int length = text.length();
+        int start = skipWhitespace(text, 0);
+        while (start < length) {
+            int end = Math.min(start + maxChars, length);
+            if (end < length) {
+                end = cutPoint(text, start, end);
+            }
+            String chunk = text.substring(start, end).strip();
+            if (!chunk.isEmpty()) {
+                chunks.add(chunk);
+            }
+            if (end >= length) {
+                break;
+            }
+            // Step back for the overlap, but always move forward and start on a word boundary
+            int next = Math.max(end - overlapChars, start + 1);
+            while (next < end && !Character.isWhitespace(text.charAt(next - 1))) {
+                next++;
+            }
+            start = skipWhitespace(text, next);
+        }
+        return chunks;
+    }
+
+    /**
+     * Best place to cut in the second half of [start, end)
+     */
+    private static int cutPoint(String text, int start, int end) {
+        int floor = start + (end - start) / 2;
+        int paragraph = text.lastIndexOf("\n\n", end - 1);
+        if (paragraph >= floor) {
+            return paragraph + 2;
+        }
+        for (int i = end - 1; i >= floor; i--) {
+            char c = text.charAt(i);
+            if ((c == '.' || c == '!' || c == '?' || c == '\n') && i + 1 < text.length()
+                    && Character.isWhitespace(text.charAt(i + 1))) {
+                return i + 1;
+            }
+        }
+        for (int i = end - 1; i >= floor; i--) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        while (from < text.length() && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+}
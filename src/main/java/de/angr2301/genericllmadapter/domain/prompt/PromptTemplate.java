@@ -0,0 +1,94 @@
+package de.angr2301.genericllmadapter.domain.prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A system prompt parsed once into literal text and variables, so rendering is appending strings:
+ * no pattern matching or property lookup per chat turn. Variables are written {{name}}; a template
+ * without variables renders to the same String instance every time.
+ */
+final class PromptTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    /** What a template can refer to; values change at most daily, so the rendered prefix stays cacheable */
+    enum Variable {
+        /** Today in UTC, ISO format */
+        DATE,
+        /** Name of the user's tenant, empty without tenant */
+        TENANT;
+
+        static Variable of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown variable in system prompt: {{" + name.trim() + "}}");
+            }
+        }
+    }
+
+    record Values(String date, String tenant) {
+
+        String get(Variable variable) {
+            return switch (variable) {
+                case DATE -> date;
+                case TENANT -> tenant;
+            };
+        }
+    }
+
+    /** One more literal than variables: literal, variable, literal, ... literal */
+    private final String[] literals;
+    private final Variable[] variables;
+    private final int literalLength;
+
+    private PromptTemplate(String[] literals, Variable[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown variable or a {{ without }}
+     */
+    static PromptTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Variable> variables = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = text.indexOf(OPEN, from)) >= 0) {
+            int close = text.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed {{ in system prompt at position " + open);
+            }
+            literals.add(text.substring(from, open));
+            variables.add(Variable.of(text.substring(open + OPEN.length(), close)));
+            from = close + CLOSE.length();
+        }
+        literals.add(text.substring(from));
+        return new PromptTemplate(literals.toArray(String[]::new), variables.toArray(Variable[]::new));
+    }
+
+    /** The text as it is, for stored prompts that do not compile */
+    static PromptTemplate literal(String text) {
+        return new PromptTemplate(new String[]{text}, new Variable[0]);
+    }
+
+    String render(Values values) {
+        if (variables.length == 0) {
+            return literals[0];
+        }
+        StringBuilder out = new StringBuilder(literalLength + 16 * variables.length);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]).append(values.get(variables[i]));
+        }
+        return out.append(literals[variables.length]).toString();
+    }
+}
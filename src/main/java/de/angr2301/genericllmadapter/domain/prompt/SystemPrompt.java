@@ -0,0 +1,50 @@
+package de.angr2301.genericllmadapter.domain.prompt;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * System message template; variables are written {{date}} and {{tenant}} (see PromptTemplate)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "system_prompts", schema = "defining_data")
+public class SystemPrompt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    /** defining_data.tenants; null for a prompt every user can choose */
+    @Column(name = "tenant_id")
+    private UUID tenantId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "prompt_text", nullable = false, columnDefinition = "TEXT")
+    private String promptText;
+
+    /** Used for sessions that chose none: the tenant's default, else the one without tenant */
+    @Column(name = "is_default")
+    private boolean defaultPrompt;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
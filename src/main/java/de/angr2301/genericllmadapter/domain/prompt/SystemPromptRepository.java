@@ -0,0 +1,12 @@
+package de.angr2301.genericllmadapter.domain.prompt;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SystemPromptRepository extends JpaRepository<SystemPrompt, UUID> {
+    List<SystemPrompt> findByDefaultPromptTrue();
+}
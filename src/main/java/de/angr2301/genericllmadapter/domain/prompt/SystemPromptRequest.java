@@ -0,0 +1,9 @@
+package de.angr2301.genericllmadapter.domain.prompt;
+
+import java.util.UUID;
+
+/**
+ * @param tenantId null for a prompt every user can choose
+ */
+public record SystemPromptRequest(UUID tenantId, String name, String promptText, boolean defaultPrompt) {
+}
@@ -0,0 +1,239 @@
+package de.angr2301.genericllmadapter.domain.prompt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * System messages of chat turns. All prompts are compiled into {@link PromptTemplate}s and kept in memory;
+ * a change through this service reloads them at once, a change made elsewhere (SQL, another instance)
+ * within system-prompts.refresh-interval.
+ *
+ * A session uses the prompt it chose, otherwise its tenant's default, otherwise the default without tenant.
+ */
+@Service
+@Slf4j
+public class SystemPromptService {
+
+    private static final String VERSION_SQL = """
+            SELECT (SELECT count(*) || ':' || coalesce(max(updated_at)::text, '') FROM defining_data.system_prompts)
+                || '/' || (SELECT coalesce(md5(string_agg(id::text || name, ',' ORDER BY id)), '')
+                           FROM defining_data.tenants)
+            """;
+
+    /** Compiled prompts and what is needed to pick and render one */
+    record Snapshot(String version, Map<UUID, SystemPrompt> prompts, Map<UUID, PromptTemplate> templates,
+                    Map<UUID, UUID> tenantDefaults, UUID globalDefault, Map<UUID, String> tenantNames) {
+
+        static final Snapshot EMPTY = new Snapshot(null, Map.of(), Map.of(), Map.of(), null, Map.of());
+
+        static Snapshot of(String version, List<SystemPrompt> prompts, Map<UUID, String> tenantNames) {
+            Map<UUID, SystemPrompt> byId = new HashMap<>();
+            Map<UUID, PromptTemplate> templates = new HashMap<>();
+            Map<UUID, UUID> tenantDefaults = new HashMap<>();
+            UUID globalDefault = null;
+            for (SystemPrompt prompt : prompts) {
+                byId.put(prompt.getId(), prompt);
+                templates.put(prompt.getId(), compileStored(prompt));
+                if (prompt.isDefaultPrompt()) {
+                    if (prompt.getTenantId() == null) {
+                        globalDefault = prompt.getId();
+                    } else {
+                        tenantDefaults.put(prompt.getTenantId(), prompt.getId());
+                    }
+                }
+            }
+            return new Snapshot(version, Map.copyOf(byId), Map.copyOf(templates), Map.copyOf(tenantDefaults),
+                    globalDefault, Map.copyOf(tenantNames));
+        }
+
+        /** The prompt a session gets; null if there is none */
+        UUID resolve(UUID chosen, UUID tenantId) {
+            if (chosen != null && isAvailable(prompts.get(chosen), tenantId)) {
+                return chosen;
+            }
+            UUID tenantDefault = tenantId != null ? tenantDefaults.get(tenantId) : null;
+            return tenantDefault != null ? tenantDefault : globalDefault;
+        }
+
+        private static PromptTemplate compileStored(SystemPrompt prompt) {
+            try {
+                return PromptTemplate.compile(prompt.getPromptText());
+            } catch (IllegalArgumentException e) {
+                log.warn("System prompt {} is used as plain text: {}", prompt.getId(), e.getMessage());
+                return PromptTemplate.literal(prompt.getPromptText());
+            }
+        }
+    }
+
+    private final SystemPromptRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Snapshot snapshot;
+    /** Not a monitor: a reload waits on the database, which would pin the carrier of a virtual thread */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public SystemPromptService(SystemPromptRepository repository, JdbcTemplate jdbcTemplate) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Rendered system message of a turn
+     *
+     * @param chosen the session's system_prompt_id, may be null
+     * @return null if neither the session, its tenant nor the installation has a prompt
+     */
+    public String render(UUID chosen, UUID tenantId) {
+        Snapshot current = current();
+        UUID id = current.resolve(chosen, tenantId);
+        if (id == null) {
+            return null;
+        }
+        String tenant = tenantId != null ? current.tenantNames().getOrDefault(tenantId, "") : "";
+        return current.templates().get(id).render(
+                new PromptTemplate.Values(LocalDate.now(ZoneOffset.UTC).toString(), tenant));
+    }
+
+    /** Prompts a user of the tenant may choose for a session */
+    public List<SystemPrompt> available(UUID tenantId) {
+        return current().prompts().values().stream()
+                .filter(prompt -> isAvailable(prompt, tenantId))
+                .sorted((a, b) -> a.getName().compareToIgnoreCase(b.getName()))
+                .toList();
+    }
+
+    public boolean isAvailable(UUID promptId, UUID tenantId) {
+        return isAvailable(current().prompts().get(promptId), tenantId);
+    }
+
+    private static boolean isAvailable(SystemPrompt prompt, UUID tenantId) {
+        return prompt != null && (prompt.getTenantId() == null || prompt.getTenantId().equals(tenantId));
+    }
+
+    public List<SystemPrompt> findAll() {
+        return repository.findAll();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the template does not compile
+     */
+    @Transactional
+    public SystemPrompt create(SystemPromptRequest request) {
+        return save(new SystemPrompt(), request);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the prompt does not exist or the template does not compile
+     */
+    @Transactional
+    public SystemPrompt update(UUID id, SystemPromptRequest request) {
+        SystemPrompt prompt = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("System prompt not found"));
+        return save(prompt, request);
+    }
+
+    @Transactional
+    public void delete(UUID id) {
+        repository.deleteById(id);
+        reloadAfterCommit();
+    }
+
+    private SystemPrompt save(SystemPrompt prompt, SystemPromptRequest request) {
+        if (request.name() == null || request.name().isBlank() || request.promptText() == null) {
+            throw new IllegalArgumentException("A system prompt needs a name and a text");
+        }
+        PromptTemplate.compile(request.promptText());
+        if (request.defaultPrompt()) {
+            // One default per tenant: the new one replaces it
+            for (SystemPrompt previous : repository.findByDefaultPromptTrue()) {
+                if (Objects.equals(previous.getTenantId(), request.tenantId()) && previous != prompt) {
+                    previous.setDefaultPrompt(false);
+                    repository.saveAndFlush(previous);
+                }
+            }
+        }
+        prompt.setTenantId(request.tenantId());
+        prompt.setName(request.name().trim());
+        prompt.setPromptText(request.promptText());
+        prompt.setDefaultPrompt(request.defaultPrompt());
+        SystemPrompt saved = repository.save(prompt);
+        reloadAfterCommit();
+        return saved;
+    }
+
+    private void reloadAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    /**
+     * Reload when prompts or tenant names changed (system-prompts.refresh-interval)
+     */
+    @Scheduled(fixedDelayString = "${system-prompts.refresh-interval:PT30S}")
+    public void refresh() {
+        if (snapshot == null) {
+            return; // not used yet, loaded on first use
+        }
+        try {
+            if (!Objects.equals(jdbcTemplate.queryForObject(VERSION_SQL, String.class), snapshot.version())) {
+                reload();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not check system prompts, keeping the cached ones: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private void reload() {
+        reloadLock.lock();
+        try {
+            String version = jdbcTemplate.queryForObject(VERSION_SQL, String.class);
+            Map<UUID, String> tenantNames = new HashMap<>();
+            jdbcTemplate.query("SELECT id, name FROM defining_data.tenants",
+                    rs -> {
+                        tenantNames.put(rs.getObject("id", UUID.class), rs.getString("name"));
+                    });
+            snapshot = Snapshot.of(version, repository.findAll(), tenantNames);
+        } catch (DataAccessException e) {
+            log.warn("Could not load system prompts: {}", e.getMessage());
+            if (snapshot == null) {
+                snapshot = Snapshot.EMPTY;
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package de.angr2301.genericllmadapter.domain.quota;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown before an LLM call that would exceed the caller's token budget
+ */
+@Getter
+public class TokenQuotaExceededException extends RuntimeException {
+
+    /** When enough tokens will be available again; null if the request can never fit the budget */
+    private final Duration retryAfter;
+
+    public TokenQuotaExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,40 @@
+package de.angr2301.genericllmadapter.domain.quota;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token budgets per user and provider (quota.* in application.yml)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "quota")
+public class TokenQuotaProperties {
+
+    private boolean enabled = true;
+
+    /** Upper bound of (user, provider) budgets kept in memory */
+    private long maxBuckets = 100_000;
+
+    /** Completion tokens reserved on top of the prompt estimate, settled with the reported usage */
+    private int outputReserveTokens = 512;
+
+    private Budget defaults = new Budget(20_000, 500_000);
+
+    /** Overrides by provider name (openai, deepseek, huggingface, local-vllm) */
+    private Map<String, Budget> providers = new HashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Budget {
+        private long tokensPerMinute;
+        private long tokensPerDay;
+    }
+}
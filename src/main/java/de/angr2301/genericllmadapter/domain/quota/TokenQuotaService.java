@@ -0,0 +1,134 @@
+package de.angr2301.genericllmadapter.domain.quota;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * LLM token budgets per user and provider (tokens per minute and per day).
+ *
+ * The estimated prompt tokens plus an output reserve are taken from the budget before the
+ * provider call and settled with the usage the provider reports afterwards, so a long history
+ * costs what it really costs instead of counting as one request.
+ */
+@Service
+@Slf4j
+public class TokenQuotaService {
+
+    private final TokenQuotaProperties properties;
+    private final Map<String, TokenQuotaProperties.Budget> providerBudgets = new HashMap<>();
+    /** Idle for a day means the daily budget is full again, so eviction loses nothing */
+    private final Cache<String, Bucket> buckets;
+
+    public TokenQuotaService(TokenQuotaProperties properties) {
+        this.properties = properties;
+        properties.getProviders().forEach((provider, budget) ->
+                providerBudgets.put(providerKey(provider), budget));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(Duration.ofDays(1))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Tokens taken from a budget for one LLM call, to be settled exactly once
+     */
+    public static final class Reservation {
+
+        private static final Reservation NONE = new Reservation(null, 0);
+
+        private final Bucket bucket;
+        private final long tokens;
+
+        private Reservation(Bucket bucket, long tokens) {
+            this.bucket = bucket;
+            this.tokens = tokens;
+        }
+
+        public long getTokens() {
+            return tokens;
+        }
+
+        /**
+         * Settle with the tokens actually used: refund the surplus or charge the difference
+         * (which may push the budget into debt, delaying the next request)
+         */
+        public void reconcile(long actualTokens) {
+            if (bucket == null) {
+                return;
+            }
+            long difference = actualTokens - tokens;
+            if (difference > 0) {
+                bucket.consumeIgnoringRateLimits(difference);
+            } else if (difference < 0) {
+                bucket.addTokens(-difference);
+            }
+        }
+
+        /**
+         * Return all tokens, e.g. when the provider call failed
+         */
+        public void release() {
+            reconcile(0);
+        }
+    }
+
+    /**
+     * Reserve tokens for a call
+     * @param promptTokens Estimated prompt tokens; the configured output reserve is added
+     * @throws TokenQuotaExceededException if the budget does not allow the call right now
+     */
+    public Reservation reserve(UUID userId, String provider, int promptTokens) {
+        if (!properties.isEnabled()) {
+            return Reservation.NONE;
+        }
+        String providerKey = providerKey(provider);
+        TokenQuotaProperties.Budget budget = providerBudgets.getOrDefault(providerKey, properties.getDefaults());
+        long tokens = (long) promptTokens + properties.getOutputReserveTokens();
+        if (tokens > Math.min(budget.getTokensPerMinute(), budget.getTokensPerDay())) {
+            throw new TokenQuotaExceededException("Request needs about " + tokens + " tokens, more than the "
+                    + providerKey + " budget allows at once", null);
+        }
+
+        Bucket bucket = buckets.get(userId + ":" + providerKey, key -> newBucket(budget));
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(tokens);
+        if (!probe.isConsumed()) {
+            Duration retryAfter = Duration.ofNanos(probe.getNanosToWaitForRefill());
+            log.debug("Token budget exceeded for user {} on {}: {} tokens, retry in {}",
+                    userId, providerKey, tokens, retryAfter);
+            throw new TokenQuotaExceededException("Token budget for " + providerKey + " exhausted", retryAfter);
+        }
+        return new Reservation(bucket, tokens);
+    }
+
+    /** Provider names as used by the chat API, also accepting kebab-case keys from YAML */
+    private static String providerKey(String provider) {
+        return provider.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+
+    private static Bucket newBucket(TokenQuotaProperties.Budget budget) {
+        return Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(budget.getTokensPerMinute())
+                        .refillGreedy(budget.getTokensPerMinute(), Duration.ofMinutes(1))
+                        .build())
+                .addLimit(Bandwidth.builder()
+                        .capacity(budget.getTokensPerDay())
+                        .refillGreedy(budget.getTokensPerDay(), Duration.ofDays(1))
+                        .build())
+                .withSynchronizationStrategy(SynchronizationStrategy.SYNCHRONIZED)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package de.angr2301.genericllmadapter.domain.usage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Append-only ledger of LLM token usage with counters per user, provider and UTC day.
+ *
+ * Every call adds one ledger row and increments one counter row in the same short transaction,
+ * so summaries read counters only and never aggregate log_data.usage_ledger or the interaction logs.
+ */
+@Service
+@Slf4j
+public class UsageLedger {
+
+    private static final RowMapper<UsageSummary.Row> ROW = (rs, i) -> new UsageSummary.Row(
+            rs.getObject("day", LocalDate.class),
+            rs.getString("provider"),
+            rs.getLong("requests"),
+            rs.getLong("prompt_tokens"),
+            rs.getLong("completion_tokens"));
+
+    /** Usage of one user over a range of days */
+    public record UserUsage(UUID userId, String email, UsageSummary.Counts counts) {
+    }
+
+    /** Range of summaries when the caller gives none: the last 30 UTC days including today */
+    public static final int DEFAULT_DAYS = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ledgerTransaction;
+
+    public UsageLedger(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Own transaction: tokens are spent once the provider answered, even if the chat turn is rolled back
+        this.ledgerTransaction = new TransactionTemplate(transactionManager);
+        this.ledgerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Record the usage of one provider call.
+     * A failure is logged, never thrown: the reply has already been paid for.
+     */
+    public void record(UUID userId, UUID sessionId, String provider, int promptTokens, int completionTokens,
+                       boolean estimated) {
+        String providerKey = providerKey(provider);
+        try {
+            ledgerTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.update("INSERT INTO log_data.usage_ledger " +
+                                "(user_id, session_id, provider, prompt_tokens, completion_tokens, estimated) " +
+                                "VALUES (?, ?, ?, ?, ?, ?)",
+                        userId, sessionId, providerKey, promptTokens, completionTokens, estimated);
+                // now() is the transaction start, so the day matches the ledger row's created_at
+                jdbcTemplate.update("INSERT INTO log_data.usage_counters AS c " +
+                                "(user_id, provider, day, requests, prompt_tokens, completion_tokens) " +
+                                "VALUES (?, ?, (now() AT TIME ZONE 'UTC')::date, 1, ?, ?) " +
+                                "ON CONFLICT (user_id, day, provider) DO UPDATE SET " +
+                                "requests = c.requests + 1, " +
+                                "prompt_tokens = c.prompt_tokens + EXCLUDED.prompt_tokens, " +
+                                "completion_tokens = c.completion_tokens + EXCLUDED.completion_tokens",
+                        userId, providerKey, promptTokens, completionTokens);
+            });
+        } catch (DataAccessException e) {
+            log.error("Could not record usage of {} tokens for user {} ({}): {}",
+                    promptTokens + completionTokens, userId, providerKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Usage of one user between two UTC days (inclusive)
+     */
+    public UsageSummary summary(UUID userId, LocalDate from, LocalDate to) {
+        return UsageSummary.of(from, to, jdbcTemplate.query(
+                "SELECT day, provider, requests, prompt_tokens, completion_tokens FROM log_data.usage_counters " +
+                        "WHERE user_id = ? AND day BETWEEN ? AND ?",
+                ROW, userId, from, to));
+    }
+
+    /**
+     * Usage of all users between two UTC days (inclusive)
+     */
+    public UsageSummary summary(LocalDate from, LocalDate to) {
+        return UsageSummary.of(from, to, jdbcTemplate.query(
+                "SELECT day, provider, SUM(requests) AS requests, SUM(prompt_tokens) AS prompt_tokens, " +
+                        "SUM(completion_tokens) AS completion_tokens FROM log_data.usage_counters " +
+                        "WHERE day BETWEEN ? AND ? GROUP BY day, provider",
+                ROW, from, to));
+    }
+
+    /**
+     * The users with the most tokens between two UTC days (inclusive)
+     */
+    public List<UserUsage> topUsers(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query(
+                "SELECT c.user_id, u.email, SUM(c.requests) AS requests, SUM(c.prompt_tokens) AS prompt_tokens, " +
+                        "SUM(c.completion_tokens) AS completion_tokens " +
+                        "FROM log_data.usage_counters c JOIN user_data.users u ON u.id = c.user_id " +
+                        "WHERE c.day BETWEEN ? AND ? GROUP BY c.user_id, u.email " +
+                        "ORDER BY SUM(c.prompt_tokens + c.completion_tokens) DESC LIMIT ?",
+                (rs, i) -> new UserUsage(rs.getObject("user_id", UUID.class), rs.getString("email"),
+                        UsageSummary.Counts.of(rs.getLong("requests"), rs.getLong("prompt_tokens"),
+                                rs.getLong("completion_tokens"))),
+                from, to, limit);
+    }
+
+    public static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private static String providerKey(String provider) {
+        return provider.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+}
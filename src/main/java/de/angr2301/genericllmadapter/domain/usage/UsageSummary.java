@@ -0,0 +1,54 @@
+package de.angr2301.genericllmadapter.domain.usage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Token usage over a range of UTC days, in total, per provider and per day
+ */
+public record UsageSummary(LocalDate from, LocalDate to, Counts total, Map<String, Counts> providers,
+                           List<Day> days) {
+
+    public record Counts(long requests, long promptTokens, long completionTokens, long totalTokens) {
+
+        static final Counts ZERO = new Counts(0, 0, 0, 0);
+
+        static Counts of(long requests, long promptTokens, long completionTokens) {
+            return new Counts(requests, promptTokens, completionTokens, promptTokens + completionTokens);
+        }
+
+        Counts plus(Counts other) {
+            return of(requests + other.requests, promptTokens + other.promptTokens,
+                    completionTokens + other.completionTokens);
+        }
+    }
+
+    public record Day(LocalDate day, Counts counts) {
+    }
+
+    /** One counter row: a day and provider */
+    record Row(LocalDate day, String provider, long requests, long promptTokens, long completionTokens) {
+
+        Counts counts() {
+            return Counts.of(requests, promptTokens, completionTokens);
+        }
+    }
+
+    static UsageSummary of(LocalDate from, LocalDate to, List<Row> rows) {
+        Counts total = Counts.ZERO;
+        Map<String, Counts> providers = new TreeMap<>();
+        Map<LocalDate, Counts> days = new TreeMap<>();
+        for (Row row : rows) {
+            Counts counts = row.counts();
+            total = total.plus(counts);
+            providers.merge(row.provider(), counts, Counts::plus);
+            days.merge(row.day(), counts, Counts::plus);
+        }
+        List<Day> dayList = new ArrayList<>(days.size());
+        days.forEach((day, counts) -> dayList.add(new Day(day, counts)));
+        return new UsageSummary(from, to, total, providers, dayList);
+    }
+}
@@ -0,0 +1,9 @@
+package de.angr2301.genericllmadapter.domain.user;
+
+import lombok.Data;
+
+@Data
+public class UpdateAccessRequest {
+    private Role role;
+    private Boolean enabled;
+}
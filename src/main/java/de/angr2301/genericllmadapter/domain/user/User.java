@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -45,6 +46,14 @@ public class User {
     @Builder.Default
     private boolean enabled = true;
 
+    /** defining_data.tenants; null for users without a tenant */
+    @Column(name = "tenant_id")
+    private UUID tenantId;
+
+    /** Tokens issued up to this instant are re-checked against the database (role change, disabling) */
+    @Column(name = "tokens_valid_after")
+    private Instant tokensValidAfter;
+
     @CreationTimestamp
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -1,10 +1,15 @@
 package de.angr2301.genericllmadapter.domain.user;
 
+import de.angr2301.genericllmadapter.config.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 /**
@@ -12,6 +17,7 @@ import java.util.UUID;
  * Features:
  * - User lookup by email and ID
  * - API key management
+ * - Role and enabled changes (invalidate issued tokens)
  * - Comprehensive logging and error handling
  */
 @Slf4j
@@ -20,6 +26,7 @@ import java.util.UUID;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     /**
      * Get user by email.
@@ -99,6 +106,43 @@ public class UserService {
         return user;
     }
 
+    /**
+     * Change a user's role and/or enabled state.
+     * Tokens issued before the change are resolved against the database from now on,
+     * so the change applies to existing sessions without a new login.
+     *
+     * @param userId  User ID
+     * @param request New role and/or enabled flag; null fields stay unchanged
+     * @return Updated user object
+     */
+    @Transactional
+    public User updateAccess(UUID userId, UpdateAccessRequest request) {
+        User user = getUserById(userId);
+
+        if (request.getRole() != null) {
+            user.setRole(request.getRole());
+        }
+        if (request.getEnabled() != null) {
+            user.setEnabled(request.getEnabled());
+        }
+
+        // Postgres keeps microseconds; PrincipalCache compares against the stored value
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        user.setTokensValidAfter(now);
+        user = userRepository.save(user);
+        // Not before the commit: a request in between would load the old row and cache it
+        String email = user.getEmail();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                principalCache.invalidate(email, now);
+            }
+        });
+        log.info("Access updated for user ID: {} (role={}, enabled={})", userId, user.getRole(), user.isEnabled());
+
+        return user;
+    }
+
     /**
      * Mask email for safe logging to prevent exposure of sensitive user data.
      * Example: user@example.com → u***@example.com
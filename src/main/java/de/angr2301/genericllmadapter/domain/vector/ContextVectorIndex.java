@@ -0,0 +1,263 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import de.angr2301.genericllmadapter.repository.ContextVectorRepository;
+import de.angr2301.genericllmadapter.repository.ContextVectorRow;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process hot tier for context vector similarity search.
+ *
+ * Keeps an HNSW graph over all context vectors with the vectors themselves in
+ * memory-mapped files, so lookups need no database round trip. The index is
+ * updated from {@link ContextVectorStoredEvent}s after commit, polls for rows
+ * written by other instances, and snapshots to disk for fast restarts.
+ * The poll follows the writing transaction ids up to the oldest running transaction, so rows of long
+ * transactions are picked up once they commit instead of falling behind a time window.
+ * Until the index is built ({@link #isReady()} is false) callers fall back to pgvector.
+ */
+@Service
+@Slf4j
+public class ContextVectorIndex {
+
+    private static final String SNAPSHOT_FILE = "index.snapshot";
+    /** Catch-up cursor belonging to the snapshot */
+    private static final String CURSOR_FILE = "index.snapshot.xid";
+
+    private final ContextVectorRepository contextVectorRepository;
+    private final AtomicBoolean ready = new AtomicBoolean(false);
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final AtomicInteger insertsSinceSnapshot = new AtomicInteger();
+
+    @Value("${vector.hot-tier.enabled:true}")
+    private boolean enabled;
+
+    @Value("${vector.hot-tier.directory:}")
+    private String directory;
+
+    @Value("${embedding.dimensions:1536}")
+    private int dimensions;
+
+    @Value("${vector.hot-tier.m:16}")
+    private int m;
+
+    @Value("${vector.hot-tier.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${vector.hot-tier.ef-search:64}")
+    private int efSearch;
+
+    @Value("${vector.hot-tier.exact-threshold:20000}")
+    private int exactThreshold;
+
+    @Value("${vector.hot-tier.encoding:FLOAT32}")
+    private VectorEncoding encoding;
+
+    /** 0 = VectorEncoding.defaultRerankFactor() */
+    @Value("${vector.hot-tier.rerank-factor:0}")
+    private int rerankFactor;
+
+    @Value("${vector.hot-tier.page-size:1000}")
+    private int pageSize;
+
+    private volatile HnswIndex index;
+    /** Transactions before this one are in the index */
+    private volatile long caughtUpXid;
+
+    public ContextVectorIndex(ContextVectorRepository contextVectorRepository) {
+        this.contextVectorRepository = contextVectorRepository;
+    }
+
+    public boolean isReady() {
+        return ready.get();
+    }
+
+    /**
+     * Exact nearest neighbours among the vectors of one session
+     */
+    public List<VectorHit> searchSession(UUID sessionId, float[] embedding, int k) {
+        return index.searchSession(sessionId, embedding, k);
+    }
+
+    /**
+     * Nearest neighbours among all vectors of one user
+     */
+    public List<VectorHit> searchUser(UUID userId, float[] embedding, int k) {
+        return index.searchOwner(userId, embedding, k, efSearch, exactThreshold);
+    }
+
+    /**
+     * Nearest neighbours among ingested reference material
+     */
+    public List<VectorHit> searchReferences(float[] embedding, int k) {
+        return index.searchReferences(embedding, k, efSearch);
+    }
+
+    /**
+     * Approximate nearest neighbours over all vectors
+     */
+    public List<VectorHit> search(float[] embedding, int k) {
+        return index.search(embedding, k, efSearch);
+    }
+
+    /**
+     * Build or restore the index once the schema is migrated.
+     * Runs in the background, the application serves requests via pgvector meanwhile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Context vector hot tier disabled");
+            return;
+        }
+        Thread loader = new Thread(this::load, "context-vector-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @TransactionalEventListener
+    public void onStored(ContextVectorStoredEvent event) {
+        HnswIndex current = index;
+        if (current == null || event.embedding() == null) {
+            return; // picked up by the initial build or the next catch-up
+        }
+        if (current.insert(event.id(), event.sessionId(), event.userId(), event.embedding())) {
+            insertsSinceSnapshot.incrementAndGet();
+        }
+    }
+
+    /**
+     * Pick up vectors written by other instances (or while this one was down)
+     */
+    @Scheduled(fixedDelayString = "${vector.hot-tier.refresh-interval:PT10S}")
+    public void refresh() {
+        if (!ready.get() || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            catchUp();
+        } catch (Exception e) {
+            log.warn("Context vector index catch-up failed: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${vector.hot-tier.snapshot-interval:PT5M}")
+    public void snapshot() {
+        HnswIndex current = index;
+        Path dir = storageDirectory();
+        if (!ready.get() || current == null || dir == null || insertsSinceSnapshot.getAndSet(0) == 0) {
+            return;
+        }
+        try {
+            long cursor = caughtUpXid;
+            current.save(dir.resolve(SNAPSHOT_FILE));
+            Files.writeString(dir.resolve(CURSOR_FILE), Long.toString(cursor));
+            log.debug("Context vector index snapshot written ({} vectors)", current.size());
+        } catch (IOException e) {
+            log.error("Failed to write context vector index snapshot", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+        HnswIndex current = index;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        Path dir = storageDirectory();
+        if (encoding != VectorEncoding.FLOAT32 && dir == null) {
+            log.warn("vector.hot-tier.encoding {} needs vector.hot-tier.directory: without memory-mapped "
+                    + "float32 vectors the codes only add memory; using FLOAT32", encoding);
+            encoding = VectorEncoding.FLOAT32;
+        }
+        if (rerankFactor <= 0) {
+            rerankFactor = encoding.defaultRerankFactor();
+        }
+        try {
+            Path snapshotFile = dir == null ? null : dir.resolve(SNAPSHOT_FILE);
+            Path cursorFile = dir == null ? null : dir.resolve(CURSOR_FILE);
+            if (snapshotFile != null && Files.exists(snapshotFile) && Files.exists(cursorFile)) {
+                caughtUpXid = Long.parseLong(Files.readString(cursorFile).trim());
+                index = HnswIndex.load(snapshotFile, dir, System.nanoTime(), encoding, rerankFactor);
+                log.info("Context vector index restored from snapshot: {} vectors", index.size());
+                catchUp();
+            } else {
+                // Everything before the horizon is visible to the build, the rest comes with the catch-up
+                caughtUpXid = contextVectorRepository.findTransactionHorizon();
+                index = new HnswIndex(new OffHeapVectorStore(dimensions, dir, 0), m, efConstruction,
+                        System.nanoTime(), encoding, rerankFactor);
+                buildFromDatabase();
+            }
+            ready.set(true);
+            log.info("Context vector index ready: {} vectors, {} encoding (re-rank x{}), {} MB off-heap "
+                            + "({} MB candidate codes), {} ms",
+                    index.size(), encoding, rerankFactor, index.offHeapBytes() >> 20, index.candidateBytes() >> 20,
+                    (System.nanoTime() - start) / 1_000_000);
+            snapshot();
+        } catch (Exception e) {
+            log.error("Context vector index could not be built, staying on pgvector", e);
+        }
+    }
+
+    private void buildFromDatabase() {
+        UUID after = new UUID(0L, 0L);
+        List<ContextVectorRow> page;
+        do {
+            page = contextVectorRepository.findRowsAfter(after, Limit.of(pageSize));
+            for (ContextVectorRow row : page) {
+                insert(row);
+                after = row.getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    private void catchUp() {
+        long from = caughtUpXid;
+        long until = contextVectorRepository.findTransactionHorizon();
+        if (until <= from) {
+            return;
+        }
+        // All transactions in [from, until) have finished, so the range no longer changes while paging
+        int pageNumber = 0;
+        List<ContextVectorRow> page;
+        do {
+            page = contextVectorRepository.findRowsWrittenBetween(from, until, PageRequest.of(pageNumber++, pageSize));
+            page.forEach(this::insert);
+        } while (page.size() == pageSize);
+        caughtUpXid = until;
+    }
+
+    private void insert(ContextVectorRow row) {
+        if (row.getEmbedding() != null
+                && index.insert(row.getId(), row.getSessionId(), row.getUserId(), row.getEmbedding())) {
+            insertsSinceSnapshot.incrementAndGet();
+        }
+    }
+
+    private Path storageDirectory() {
+        return directory == null || directory.isBlank() ? null : Path.of(directory);
+    }
+}
@@ -0,0 +1,15 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import java.util.UUID;
+
+/**
+ * Published when a context vector has been saved, so in-process indexes can pick it up
+ * once the surrounding transaction commits.
+ *
+ * @param id        Context vector id
+ * @param sessionId Owning session, null for shared reference material
+ * @param userId    User owning the session, null for shared reference material
+ * @param embedding Stored embedding
+ */
+public record ContextVectorStoredEvent(UUID id, UUID sessionId, UUID userId, float[] embedding) {
+}
@@ -0,0 +1,754 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate cosine nearest-neighbour search.
+ * Vectors are normalized on insert and kept off-heap in an {@link OffHeapVectorStore};
+ * only the graph links and ids live on the heap.
+ *
+ * With an INT8 or BINARY {@link VectorEncoding} searches traverse the graph on compact
+ * codes and re-rank the best candidates against the full-precision vectors, so the
+ * memory touched per query shrinks while the mapped float32 vectors stay mostly cold.
+ * The graph itself is always built with full-precision distances, which is why the float32
+ * vectors are kept next to the codes (see {@link VectorEncoding}).
+ *
+ * Inserts are serialized by a write lock, searches run concurrently under the read lock.
+ * Nodes are never removed (context vectors are append-only).
+ */
+final class HnswIndex implements AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357; // "HNSW"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int[] NO_LINKS = new int[0];
+
+    private final OffHeapVectorStore vectors;
+    private final QuantizedVectorStore codes;
+    private final int rerankFactor;
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Pooled, not thread-local: a virtual thread per request would allocate marks for the whole graph every search
+    private final Queue<VisitedMarks> visitedMarks = new ConcurrentLinkedQueue<>();
+
+    private final Map<UUID, Integer> slotById = new HashMap<>();
+    private final Map<UUID, IntList> slotsBySession = new HashMap<>();
+    private final Map<UUID, IntList> slotsByOwner = new HashMap<>();
+    private int[][][] links = new int[INITIAL_CAPACITY][][];
+    private UUID[] ids = new UUID[INITIAL_CAPACITY];
+    private UUID[] sessions = new UUID[INITIAL_CAPACITY];
+    private UUID[] owners = new UUID[INITIAL_CAPACITY];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswIndex(OffHeapVectorStore vectors, int m, int efConstruction, long seed) {
+        this(vectors, m, efConstruction, seed, VectorEncoding.FLOAT32, 1);
+    }
+
+    /**
+     * @param vectors        Vector store the index appends to
+     * @param m              Links per node on upper layers (layer 0 keeps 2 * m)
+     * @param efConstruction Candidate list size while inserting
+     * @param seed           Seed for level assignment
+     * @param encoding       Representation used for candidate search
+     * @param rerankFactor   Candidates per requested result that are re-ranked in full precision
+     */
+    HnswIndex(OffHeapVectorStore vectors, int m, int efConstruction, long seed,
+              VectorEncoding encoding, int rerankFactor) {
+        if (m < 2 || m > 127) {
+            // Snapshots store link counts (up to 2 * m) in a single byte
+            throw new IllegalArgumentException("m must be between 2 and 127 but was " + m);
+        }
+        this.vectors = vectors;
+        this.codes = encoding == VectorEncoding.FLOAT32 ? null : new QuantizedVectorStore(encoding, vectors.dimensions());
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.dimensions = vectors.dimensions();
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean contains(UUID id) {
+        lock.readLock().lock();
+        try {
+            return slotById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long offHeapBytes() {
+        return vectors.reservedBytes() + candidateBytes();
+    }
+
+    /**
+     * Bytes of the compact codes scanned during candidate search (0 for FLOAT32)
+     */
+    long candidateBytes() {
+        return codes == null ? 0 : codes.reservedBytes();
+    }
+
+    /**
+     * Add a vector to the graph.
+     *
+     * @param id        Context vector id
+     * @param sessionId Session the vector belongs to, null for shared reference material
+     * @param ownerId   User owning the session, null for shared reference material
+     * @param vector    Raw (not necessarily normalized) embedding
+     * @return false if the id was already indexed
+     */
+    boolean insert(UUID id, UUID sessionId, UUID ownerId, float[] vector) {
+        float[] query = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            if (slotById.containsKey(id)) {
+                return false;
+            }
+            int slot = vectors.add(query);
+            if (codes != null) {
+                codes.add(query);
+            }
+            int level = randomLevel();
+            register(slot, id, sessionId, ownerId, level);
+
+            if (entryPoint < 0) {
+                entryPoint = slot;
+                maxLevel = level;
+                return true;
+            }
+
+            SlotDistance exact = node -> distance(node, query);
+            int ep = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                ep = greedyClosest(exact, ep, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                Candidates candidates = searchLayer(exact, ep, efConstruction, l, null);
+                int[] neighbors = selectNeighbors(candidates.nodes, candidates.distances, candidates.count, m);
+                links[slot][l] = neighbors;
+                for (int neighbor : neighbors) {
+                    connect(neighbor, slot, l);
+                }
+                ep = candidates.nodes[0];
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = slot;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate k nearest neighbours over the whole index
+     */
+    List<VectorHit> search(float[] vector, int k, int ef) {
+        return search(vector, k, ef, null);
+    }
+
+    /**
+     * Approximate k nearest neighbours among the nodes accepted by the filter.
+     * The graph is traversed through all nodes, only accepted nodes become results.
+     */
+    List<VectorHit> search(float[] vector, int k, int ef, IntPredicate filter) {
+        float[] query = normalize(vector);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            SlotDistance approximate = candidateDistance(query);
+            int ep = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                ep = greedyClosest(approximate, ep, l);
+            }
+            Candidates candidates = searchLayer(approximate, ep, Math.max(ef, k * rerankFactor), 0, filter);
+            return rerank(candidates, query, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exact k nearest neighbours within one session
+     */
+    List<VectorHit> searchSession(UUID sessionId, float[] vector, int k) {
+        float[] query = normalize(vector);
+        lock.readLock().lock();
+        try {
+            IntList slots = slotsBySession.get(sessionId);
+            return slots == null ? List.of() : exactSearch(slots, query, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * k nearest neighbours among the vectors of one user.
+     * Small sets are scanned exactly, larger ones use a filtered graph search.
+     */
+    List<VectorHit> searchOwner(UUID ownerId, float[] vector, int k, int ef, int exactThreshold) {
+        lock.readLock().lock();
+        try {
+            IntList slots = slotsByOwner.get(ownerId);
+            if (slots == null) {
+                return List.of();
+            }
+            if (slots.size <= exactThreshold) {
+                return exactSearch(slots, normalize(vector), k);
+            }
+            // Read lock is reentrant, the nested search keeps the same consistent view
+            return search(vector, k, ef, slot -> ownerId.equals(owners[slot]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate k nearest neighbours among vectors without a session (ingested reference material)
+     */
+    List<VectorHit> searchReferences(float[] vector, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            return search(vector, k, ef, slot -> sessions[slot] == null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write graph and ids to a snapshot file. Vector chunks are flushed in place.
+     * The file is written to a temporary name and moved atomically.
+     */
+    void save(Path file) throws IOException {
+        lock.readLock().lock();
+        try {
+            vectors.force();
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+                out.writeInt(dimensions);
+                out.writeInt(m);
+                out.writeInt(efConstruction);
+                out.writeInt(size);
+                out.writeInt(entryPoint);
+                out.writeInt(maxLevel);
+                for (int slot = 0; slot < size; slot++) {
+                    writeUuid(out, ids[slot]);
+                    writeUuid(out, sessions[slot]);
+                    writeUuid(out, owners[slot]);
+                    int[][] nodeLinks = links[slot];
+                    out.writeByte(nodeLinks.length);
+                    for (int[] levelLinks : nodeLinks) {
+                        out.writeByte(levelLinks.length);
+                        for (int neighbor : levelLinks) {
+                            out.writeInt(neighbor);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restore an index from a snapshot file and the vector chunks in vectorDirectory.
+     * Vectors appended after the snapshot was taken are ignored and overwritten later.
+     */
+    static HnswIndex load(Path file, Path vectorDirectory, long seed) throws IOException {
+        return load(file, vectorDirectory, seed, VectorEncoding.FLOAT32, 1);
+    }
+
+    /**
+     * Restore an index and rebuild its compact codes from the full-precision vectors.
+     */
+    static HnswIndex load(Path file, Path vectorDirectory, long seed,
+                          VectorEncoding encoding, int rerankFactor) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a compatible HNSW snapshot: " + file);
+            }
+            boolean littleEndian = in.readBoolean();
+            if (littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)) {
+                throw new IOException("Snapshot was written with a different byte order: " + file);
+            }
+            int dimensions = in.readInt();
+            int m = in.readInt();
+            int efConstruction = in.readInt();
+            int size = in.readInt();
+
+            HnswIndex index = new HnswIndex(new OffHeapVectorStore(dimensions, vectorDirectory, size),
+                    m, efConstruction, seed, encoding, rerankFactor);
+            index.entryPoint = in.readInt();
+            index.maxLevel = in.readInt();
+            for (int slot = 0; slot < size; slot++) {
+                UUID id = readUuid(in);
+                UUID sessionId = readUuid(in);
+                UUID ownerId = readUuid(in);
+                int levels = in.readUnsignedByte();
+                index.register(slot, id, sessionId, ownerId, levels - 1);
+                for (int l = 0; l < levels; l++) {
+                    int[] levelLinks = new int[in.readUnsignedByte()];
+                    for (int i = 0; i < levelLinks.length; i++) {
+                        levelLinks[i] = in.readInt();
+                    }
+                    index.links[slot][l] = levelLinks;
+                }
+            }
+            if (index.codes != null) {
+                float[] vector = new float[dimensions];
+                for (int slot = 0; slot < size; slot++) {
+                    index.vectors.read(slot, vector);
+                    index.codes.add(vector);
+                }
+            }
+            return index;
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            vectors.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- graph internals
+
+    private void register(int slot, UUID id, UUID sessionId, UUID ownerId, int level) {
+        ensureCapacity(slot + 1);
+        int[][] nodeLinks = new int[level + 1][];
+        Arrays.fill(nodeLinks, NO_LINKS);
+        links[slot] = nodeLinks;
+        ids[slot] = id;
+        sessions[slot] = sessionId;
+        owners[slot] = ownerId;
+        slotById.put(id, slot);
+        if (sessionId != null) {
+            slotsBySession.computeIfAbsent(sessionId, k -> new IntList()).add(slot);
+        }
+        if (ownerId != null) {
+            slotsByOwner.computeIfAbsent(ownerId, k -> new IntList()).add(slot);
+        }
+        size = Math.max(size, slot + 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        links = Arrays.copyOf(links, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        sessions = Arrays.copyOf(sessions, newCapacity);
+        owners = Arrays.copyOf(owners, newCapacity);
+    }
+
+    private int randomLevel() {
+        return Math.min((int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier), 64);
+    }
+
+    private float distance(int slot, float[] query) {
+        return 1f - vectors.dot(slot, query);
+    }
+
+    private SlotDistance candidateDistance(float[] query) {
+        if (codes == null) {
+            return node -> distance(node, query);
+        }
+        long[] queryBits = codes.encoding() == VectorEncoding.BINARY
+                ? QuantizedVectorStore.signBits(query, (dimensions + 63) / 64)
+                : null;
+        return node -> codes.distance(node, query, queryBits);
+    }
+
+    /**
+     * Replace approximate distances by full-precision ones and keep the best k
+     */
+    private List<VectorHit> rerank(Candidates candidates, float[] query, int k) {
+        if (codes == null) {
+            return toHits(candidates.nodes, candidates.distances, Math.min(k, candidates.count));
+        }
+        int[] nodes = Arrays.copyOf(candidates.nodes, candidates.count);
+        float[] distances = new float[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            distances[i] = distance(nodes[i], query);
+        }
+        sortByDistance(nodes, distances);
+        return toHits(nodes, distances, Math.min(k, nodes.length));
+    }
+
+    private int greedyClosest(SlotDistance distance, int ep, int level) {
+        int best = ep;
+        float bestDistance = distance.of(ep);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : links[best][level]) {
+                float d = distance.of(neighbor);
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    private Candidates searchLayer(SlotDistance distance, int ep, int ef, int level, IntPredicate filter) {
+        VisitedMarks visited = visitedMarks.poll();
+        if (visited == null) {
+            visited = new VisitedMarks();
+        }
+        try {
+            return searchLayer(distance, ep, ef, level, filter, visited);
+        } finally {
+            visitedMarks.offer(visited);
+        }
+    }
+
+    private Candidates searchLayer(SlotDistance distance, int ep, int ef, int level, IntPredicate filter,
+                                   VisitedMarks visited) {
+        visited.reset(size);
+        NodeQueue candidates = new NodeQueue(false, ef * 2);
+        NodeQueue results = new NodeQueue(true, ef + 1);
+
+        float epDistance = distance.of(ep);
+        visited.mark(ep);
+        candidates.push(ep, epDistance);
+        if (filter == null || filter.test(ep)) {
+            results.push(ep, epDistance);
+        }
+
+        while (candidates.size() > 0) {
+            if (results.size() >= ef && candidates.peekDistance() > results.peekDistance()) {
+                break;
+            }
+            int current = candidates.peekNode();
+            candidates.pop();
+            for (int neighbor : links[current][level]) {
+                if (!visited.mark(neighbor)) {
+                    continue;
+                }
+                float d = distance.of(neighbor);
+                if (results.size() < ef || d < results.peekDistance()) {
+                    candidates.push(neighbor, d);
+                    if (filter == null || filter.test(neighbor)) {
+                        results.push(neighbor, d);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results.drainAscending();
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: keep a candidate only if it is
+     * closer to the base node than to any already selected neighbour. Keeps the graph
+     * navigable on clustered data. Candidates must be sorted by ascending distance.
+     */
+    private int[] selectNeighbors(int[] nodes, float[] distances, int count, int max) {
+        int[] selected = new int[max];
+        int selectedCount = 0;
+        float[] candidate = new float[dimensions];
+        for (int i = 0; i < count && selectedCount < max; i++) {
+            vectors.read(nodes[i], candidate);
+            boolean keep = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (distance(selected[j], candidate) < distances[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[selectedCount++] = nodes[i];
+            }
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    private void connect(int node, int newNeighbor, int level) {
+        int[] current = links[node][level];
+        int maxLinks = level == 0 ? maxM0 : m;
+        int[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = newNeighbor;
+        if (extended.length <= maxLinks) {
+            links[node][level] = extended;
+            return;
+        }
+
+        // Over capacity: re-select the best links of this node
+        float[] base = new float[dimensions];
+        vectors.read(node, base);
+        float[] distances = new float[extended.length];
+        for (int i = 0; i < extended.length; i++) {
+            distances[i] = distance(extended[i], base);
+        }
+        sortByDistance(extended, distances);
+        links[node][level] = selectNeighbors(extended, distances, extended.length, maxLinks);
+    }
+
+    private List<VectorHit> exactSearch(IntList slots, float[] query, int k) {
+        // Scan the compact codes (or the full vectors for FLOAT32), then re-rank
+        SlotDistance distance = candidateDistance(query);
+        int keep = codes == null ? k : k * rerankFactor;
+        NodeQueue best = new NodeQueue(true, keep + 1);
+        for (int i = 0; i < slots.size; i++) {
+            int slot = slots.data[i];
+            float d = distance.of(slot);
+            if (best.size() < keep || d < best.peekDistance()) {
+                best.push(slot, d);
+                if (best.size() > keep) {
+                    best.pop();
+                }
+            }
+        }
+        return rerank(best.drainAscending(), query, k);
+    }
+
+    private List<VectorHit> toHits(int[] nodes, float[] distances, int count) {
+        List<VectorHit> hits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hits.add(new VectorHit(ids[nodes[i]], distances[i]));
+        }
+        return hits;
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private static void sortByDistance(int[] nodes, float[] distances) {
+        // Insertion sort, arrays are at most 2 * m + 1 long
+        for (int i = 1; i < nodes.length; i++) {
+            int node = nodes[i];
+            float d = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > d) {
+                nodes[j + 1] = nodes[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+            distances[j + 1] = d;
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id != null) {
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    // ---------------------------------------------------------------- helper structures
+
+    /** Distance from the current query to a stored slot */
+    @FunctionalInterface
+    private interface SlotDistance {
+        float of(int slot);
+    }
+
+    /** Sorted search result */
+    private record Candidates(int[] nodes, float[] distances, int count) {
+    }
+
+    /** Binary heap over (node, distance) pairs without boxing */
+    private static final class NodeQueue {
+        private final boolean maxHeap;
+        private int[] nodes;
+        private float[] distances;
+        private int size;
+
+        NodeQueue(boolean maxHeap, int capacity) {
+            this.maxHeap = maxHeap;
+            this.nodes = new int[Math.max(capacity, 4)];
+            this.distances = new float[nodes.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int peekNode() {
+            return nodes[0];
+        }
+
+        float peekDistance() {
+            return distances[0];
+        }
+
+        void push(int node, float distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+        }
+
+        void pop() {
+            int lastNode = nodes[--size];
+            float lastDistance = distances[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && before(distances[right], distances[child])) {
+                    child = right;
+                }
+                if (!before(distances[child], lastDistance)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            distances[i] = lastDistance;
+        }
+
+        /** Empty a max-heap into arrays sorted by ascending distance */
+        Candidates drainAscending() {
+            int count = size;
+            int[] sortedNodes = new int[count];
+            float[] sortedDistances = new float[count];
+            if (maxHeap) {
+                for (int i = count - 1; i >= 0; i--) {
+                    sortedNodes[i] = nodes[0];
+                    sortedDistances[i] = distances[0];
+                    pop();
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    sortedNodes[i] = nodes[0];
+                    sortedDistances[i] = distances[0];
+                    pop();
+                }
+            }
+            return new Candidates(sortedNodes, sortedDistances, count);
+        }
+
+        private boolean before(float a, float b) {
+            return maxHeap ? a > b : a < b;
+        }
+    }
+
+    /** Visited set of one search at a time, taken from and returned to visitedMarks; cleared by bumping an epoch */
+    private static final class VisitedMarks {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /** @return true if the node was not visited before */
+        boolean mark(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+
+    /** Growable int array for per-session and per-user slot lists */
+    private static final class IntList {
+        private int[] data = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+}
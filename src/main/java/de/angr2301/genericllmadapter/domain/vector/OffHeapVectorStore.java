@@ -0,0 +1,148 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only store for fixed-size float vectors outside the Java heap.
+ * Vectors live in fixed-size chunks that are either memory-mapped files (persistent,
+ * paged in by the OS on demand) or anonymous direct buffers when no directory is set.
+ *
+ * Not thread-safe; access is guarded by the owning {@link HnswIndex}.
+ */
+@Slf4j
+final class OffHeapVectorStore implements AutoCloseable {
+
+    /** Vectors per chunk, 16384 * 1536 dims * 4 bytes = 96 MB per chunk file */
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK_VECTORS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_VECTORS - 1;
+
+    private final int dimensions;
+    private final Path directory;
+    private final List<FloatBuffer> chunks = new ArrayList<>();
+    private final List<MappedByteBuffer> mappedChunks = new ArrayList<>();
+    private final ThreadLocal<float[]> scratch;
+    private int size;
+
+    /**
+     * @param dimensions Vector dimensions
+     * @param directory  Directory for chunk files, or null for non-persistent direct memory
+     * @param size       Number of valid vectors already present in the chunk files
+     */
+    OffHeapVectorStore(int dimensions, Path directory, int size) {
+        this.dimensions = dimensions;
+        this.directory = directory;
+        this.scratch = ThreadLocal.withInitial(() -> new float[dimensions]);
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create vector directory " + directory, e);
+            }
+        }
+        int requiredChunks = (size + CHUNK_VECTORS - 1) >>> CHUNK_SHIFT;
+        for (int i = 0; i < requiredChunks; i++) {
+            addChunk();
+        }
+        this.size = size;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Append a vector and return its slot
+     */
+    int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        int slot = size;
+        if ((slot >>> CHUNK_SHIFT) == chunks.size()) {
+            addChunk();
+        }
+        chunks.get(slot >>> CHUNK_SHIFT).put((slot & CHUNK_MASK) * dimensions, vector);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Copy the vector at the given slot into dst
+     */
+    void read(int slot, float[] dst) {
+        chunks.get(slot >>> CHUNK_SHIFT).get((slot & CHUNK_MASK) * dimensions, dst, 0, dimensions);
+    }
+
+    /**
+     * Dot product between a stored vector and a query vector
+     */
+    float dot(int slot, float[] query) {
+        float[] stored = scratch.get();
+        read(slot, stored);
+        return VectorKernels.dot(stored, query);
+    }
+
+    /**
+     * Flush dirty pages of mapped chunks to disk
+     */
+    void force() {
+        for (MappedByteBuffer chunk : mappedChunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Bytes of vector storage reserved outside the heap
+     */
+    long reservedBytes() {
+        return (long) chunks.size() * CHUNK_VECTORS * dimensions * Float.BYTES;
+    }
+
+    @Override
+    public void close() {
+        force();
+        chunks.clear();
+        mappedChunks.clear();
+    }
+
+    private void addChunk() {
+        long bytes = (long) CHUNK_VECTORS * dimensions * Float.BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Chunk too large for " + dimensions + " dimensions");
+        }
+        ByteBuffer buffer;
+        if (directory == null) {
+            buffer = ByteBuffer.allocateDirect((int) bytes);
+        } else {
+            Path file = directory.resolve(String.format("vectors-%05d.bin", chunks.size()));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                mappedChunks.add(mapped);
+                buffer = mapped;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map vector chunk " + file, e);
+            }
+            log.debug("Mapped vector chunk {}", file);
+        }
+        chunks.add(buffer.order(ByteOrder.nativeOrder()).asFloatBuffer());
+    }
+}
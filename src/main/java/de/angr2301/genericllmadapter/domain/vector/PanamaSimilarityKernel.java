@@ -0,0 +1,288 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels on the incubating Vector API (needs --add-modules jdk.incubator.vector).
+ * Only loaded reflectively by {@link VectorKernels}, so the class never links
+ * when the module is missing.
+ *
+ * The float loops keep several accumulators to hide FMA latency; int8 lanes are widened to
+ * float or int vectors with the same lane count before multiplying. That needs a byte vector of at
+ * least 64 bit (8 lanes); on 128-bit SIMD (SSE, NEON: 4 float lanes) the int8 kernels run scalar.
+ */
+final class PanamaSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    /** Bytes with as many lanes as FLOATS / INTS; null if there is no byte shape that narrow */
+    private static final VectorSpecies<Byte> BYTES_FOR_FLOATS = byteSpecies(FLOATS.length());
+    private static final VectorSpecies<Byte> BYTES_FOR_INTS = byteSpecies(INTS.length());
+    private static final SimilarityKernel SCALAR = new ScalarSimilarityKernel();
+
+    @Override
+    public String name() {
+        return "Vector API " + FLOATS.vectorBitSize() + " bit" + (BYTES_FOR_INTS == null ? ", int8 scalar" : "");
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        int step = FLOATS.length();
+        FloatVector acc0 = FloatVector.zero(FLOATS);
+        FloatVector acc1 = FloatVector.zero(FLOATS);
+        FloatVector acc2 = FloatVector.zero(FLOATS);
+        FloatVector acc3 = FloatVector.zero(FLOATS);
+        int i = 0;
+        int unrolledBound = a.length - a.length % (4 * step);
+        for (; i < unrolledBound; i += 4 * step) {
+            acc0 = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), acc0);
+            acc1 = FloatVector.fromArray(FLOATS, a, i + step).fma(FloatVector.fromArray(FLOATS, b, i + step), acc1);
+            acc2 = FloatVector.fromArray(FLOATS, a, i + 2 * step).fma(FloatVector.fromArray(FLOATS, b, i + 2 * step), acc2);
+            acc3 = FloatVector.fromArray(FLOATS, a, i + 3 * step).fma(FloatVector.fromArray(FLOATS, b, i + 3 * step), acc3);
+        }
+        int bound = FLOATS.loopBound(a.length);
+        for (; i < bound; i += step) {
+            acc0 = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), acc0);
+        }
+        float sum = acc0.add(acc1).add(acc2.add(acc3)).reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b) {
+        FloatVector dot = FloatVector.zero(FLOATS);
+        FloatVector normA = FloatVector.zero(FLOATS);
+        FloatVector normB = FloatVector.zero(FLOATS);
+        int i = 0;
+        int bound = FLOATS.loopBound(a.length);
+        for (; i < bound; i += FLOATS.length()) {
+            FloatVector va = FloatVector.fromArray(FLOATS, a, i);
+            FloatVector vb = FloatVector.fromArray(FLOATS, b, i);
+            dot = va.fma(vb, dot);
+            normA = va.fma(va, normA);
+            normB = vb.fma(vb, normB);
+        }
+        float d = dot.reduceLanes(VectorOperators.ADD);
+        float na = normA.reduceLanes(VectorOperators.ADD);
+        float nb = normB.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            d += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return VectorKernels.cosine(d, na, nb);
+    }
+
+    @Override
+    public float l2Squared(float[] a, float[] b) {
+        FloatVector acc0 = FloatVector.zero(FLOATS);
+        FloatVector acc1 = FloatVector.zero(FLOATS);
+        int step = FLOATS.length();
+        int i = 0;
+        int unrolledBound = a.length - a.length % (2 * step);
+        for (; i < unrolledBound; i += 2 * step) {
+            FloatVector diff0 = FloatVector.fromArray(FLOATS, a, i).sub(FloatVector.fromArray(FLOATS, b, i));
+            FloatVector diff1 = FloatVector.fromArray(FLOATS, a, i + step).sub(FloatVector.fromArray(FLOATS, b, i + step));
+            acc0 = diff0.fma(diff0, acc0);
+            acc1 = diff1.fma(diff1, acc1);
+        }
+        int bound = FLOATS.loopBound(a.length);
+        for (; i < bound; i += step) {
+            FloatVector diff = FloatVector.fromArray(FLOATS, a, i).sub(FloatVector.fromArray(FLOATS, b, i));
+            acc0 = diff.fma(diff, acc0);
+        }
+        float sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b) {
+        if (BYTES_FOR_INTS == null) {
+            return SCALAR.dot(a, b);
+        }
+        IntVector acc = IntVector.zero(INTS);
+        int i = 0;
+        int bound = BYTES_FOR_INTS.loopBound(a.length);
+        for (; i < bound; i += INTS.length()) {
+            IntVector va = widen(a, i);
+            IntVector vb = widen(b, i);
+            acc = va.mul(vb).add(acc);
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(byte[] a, byte[] b) {
+        if (BYTES_FOR_INTS == null) {
+            return SCALAR.cosine(a, b);
+        }
+        IntVector dot = IntVector.zero(INTS);
+        IntVector normA = IntVector.zero(INTS);
+        IntVector normB = IntVector.zero(INTS);
+        int i = 0;
+        int bound = BYTES_FOR_INTS.loopBound(a.length);
+        for (; i < bound; i += INTS.length()) {
+            IntVector va = widen(a, i);
+            IntVector vb = widen(b, i);
+            dot = va.mul(vb).add(dot);
+            normA = va.mul(va).add(normA);
+            normB = vb.mul(vb).add(normB);
+        }
+        int d = dot.reduceLanes(VectorOperators.ADD);
+        int na = normA.reduceLanes(VectorOperators.ADD);
+        int nb = normB.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            d += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return VectorKernels.cosine(d, na, nb);
+    }
+
+    @Override
+    public int l2Squared(byte[] a, byte[] b) {
+        if (BYTES_FOR_INTS == null) {
+            return SCALAR.l2Squared(a, b);
+        }
+        IntVector acc = IntVector.zero(INTS);
+        int i = 0;
+        int bound = BYTES_FOR_INTS.loopBound(a.length);
+        for (; i < bound; i += INTS.length()) {
+            IntVector diff = widen(a, i).sub(widen(b, i));
+            acc = diff.mul(diff).add(acc);
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            int diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] query, byte[] codes) {
+        if (BYTES_FOR_FLOATS == null) {
+            return SCALAR.dot(query, codes);
+        }
+        FloatVector acc0 = FloatVector.zero(FLOATS);
+        FloatVector acc1 = FloatVector.zero(FLOATS);
+        int step = FLOATS.length();
+        int i = 0;
+        int unrolledBound = query.length - query.length % (2 * step);
+        for (; i < unrolledBound; i += 2 * step) {
+            acc0 = FloatVector.fromArray(FLOATS, query, i).fma(toFloats(codes, i), acc0);
+            acc1 = FloatVector.fromArray(FLOATS, query, i + step).fma(toFloats(codes, i + step), acc1);
+        }
+        int bound = FLOATS.loopBound(query.length);
+        for (; i < bound; i += step) {
+            acc0 = FloatVector.fromArray(FLOATS, query, i).fma(toFloats(codes, i), acc0);
+        }
+        float sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            sum += query[i] * codes[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int hamming(long[] a, long[] b) {
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        int bound = LONGS.loopBound(a.length);
+        for (; i < bound; i += LONGS.length()) {
+            acc = LongVector.fromArray(LONGS, a, i)
+                    .lanewise(VectorOperators.XOR, LongVector.fromArray(LONGS, b, i))
+                    .lanewise(VectorOperators.BIT_COUNT)
+                    .add(acc);
+        }
+        int differing = (int) acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            differing += Long.bitCount(a[i] ^ b[i]);
+        }
+        return differing;
+    }
+
+    /**
+     * Scores four vectors per pass so each query load feeds four FMAs
+     */
+    @Override
+    public void dotMany(float[] query, float[][] vectors, int from, int count, float[] out) {
+        int bound = FLOATS.loopBound(query.length);
+        int v = 0;
+        for (; v + 3 < count; v += 4) {
+            float[] v0 = vectors[from + v];
+            float[] v1 = vectors[from + v + 1];
+            float[] v2 = vectors[from + v + 2];
+            float[] v3 = vectors[from + v + 3];
+            FloatVector acc0 = FloatVector.zero(FLOATS);
+            FloatVector acc1 = FloatVector.zero(FLOATS);
+            FloatVector acc2 = FloatVector.zero(FLOATS);
+            FloatVector acc3 = FloatVector.zero(FLOATS);
+            int i = 0;
+            for (; i < bound; i += FLOATS.length()) {
+                FloatVector q = FloatVector.fromArray(FLOATS, query, i);
+                acc0 = q.fma(FloatVector.fromArray(FLOATS, v0, i), acc0);
+                acc1 = q.fma(FloatVector.fromArray(FLOATS, v1, i), acc1);
+                acc2 = q.fma(FloatVector.fromArray(FLOATS, v2, i), acc2);
+                acc3 = q.fma(FloatVector.fromArray(FLOATS, v3, i), acc3);
+            }
+            float s0 = acc0.reduceLanes(VectorOperators.ADD);
+            float s1 = acc1.reduceLanes(VectorOperators.ADD);
+            float s2 = acc2.reduceLanes(VectorOperators.ADD);
+            float s3 = acc3.reduceLanes(VectorOperators.ADD);
+            for (; i < query.length; i++) {
+                s0 += query[i] * v0[i];
+                s1 += query[i] * v1[i];
+                s2 += query[i] * v2[i];
+                s3 += query[i] * v3[i];
+            }
+            out[v] = s0;
+            out[v + 1] = s1;
+            out[v + 2] = s2;
+            out[v + 3] = s3;
+        }
+        for (; v < count; v++) {
+            out[v] = dot(query, vectors[from + v]);
+        }
+    }
+
+    @Override
+    public void l2SquaredMany(float[] query, float[][] vectors, int from, int count, float[] out) {
+        for (int v = 0; v < count; v++) {
+            out[v] = l2Squared(query, vectors[from + v]);
+        }
+    }
+
+    private static FloatVector toFloats(byte[] codes, int offset) {
+        return (FloatVector) ByteVector.fromArray(BYTES_FOR_FLOATS, codes, offset)
+                .convertShape(VectorOperators.B2F, FLOATS, 0);
+    }
+
+    private static IntVector widen(byte[] values, int offset) {
+        return (IntVector) ByteVector.fromArray(BYTES_FOR_INTS, values, offset)
+                .convertShape(VectorOperators.B2I, INTS, 0);
+    }
+
+    private static VectorSpecies<Byte> byteSpecies(int lanes) {
+        int bits = lanes * Byte.SIZE;
+        return bits < 64 ? null : VectorSpecies.of(byte.class, VectorShape.forBitSize(bits));
+    }
+}
@@ -0,0 +1,45 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Conversions between float[] and the pgvector text representation ("[1.0,2.0,3.0]").
+ * Used for native query parameters that are cast to vector on the database side.
+ * Also writes the binary representation used by COPY ... (FORMAT BINARY).
+ */
+public final class PgVectorFormat {
+
+    private PgVectorFormat() {
+    }
+
+    public static String toLiteral(float[] vector) {
+        StringBuilder sb = new StringBuilder(vector.length * 12 + 2);
+        sb.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * pgvector binary format (vector_recv): int16 dimensions, int16 unused, then big-endian float4s
+     */
+    public static void writeBinary(DataOutput out, float[] vector) throws IOException {
+        out.writeShort(vector.length);
+        out.writeShort(0);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+    }
+
+    /**
+     * Byte length of {@link #writeBinary} output
+     */
+    public static int binaryLength(float[] vector) {
+        return 4 + vector.length * Float.BYTES;
+    }
+}
@@ -0,0 +1,111 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact int8 or binary codes of normalized vectors in direct memory.
+ * Codes are derived from the full-precision vectors and rebuilt on restart,
+ * so they are not persisted.
+ *
+ * Not thread-safe; access is guarded by the owning {@link HnswIndex}.
+ */
+final class QuantizedVectorStore {
+
+    private static final int CHUNK_SHIFT = OffHeapVectorStore.CHUNK_SHIFT;
+    private static final int CHUNK_MASK = OffHeapVectorStore.CHUNK_VECTORS - 1;
+
+    private final VectorEncoding encoding;
+    private final int dimensions;
+    private final int words;
+    private final int bytesPerVector;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final ThreadLocal<byte[]> scratch;
+    private final ThreadLocal<long[]> bitScratch;
+    private int size;
+
+    QuantizedVectorStore(VectorEncoding encoding, int dimensions) {
+        if (encoding == VectorEncoding.FLOAT32) {
+            throw new IllegalArgumentException("FLOAT32 vectors are not quantized");
+        }
+        this.encoding = encoding;
+        this.dimensions = dimensions;
+        this.words = (dimensions + 63) / 64;
+        this.bytesPerVector = (int) encoding.bytesPerVector(dimensions);
+        this.scratch = ThreadLocal.withInitial(() -> new byte[dimensions]);
+        this.bitScratch = ThreadLocal.withInitial(() -> new long[words]);
+    }
+
+    VectorEncoding encoding() {
+        return encoding;
+    }
+
+    /**
+     * Append the code of a normalized vector; slots match the full-precision store
+     */
+    void add(float[] normalized) {
+        int slot = size;
+        if ((slot >>> CHUNK_SHIFT) == chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(OffHeapVectorStore.CHUNK_VECTORS * bytesPerVector)
+                    .order(ByteOrder.nativeOrder()));
+        }
+        ByteBuffer chunk = chunks.get(slot >>> CHUNK_SHIFT);
+        int offset = (slot & CHUNK_MASK) * bytesPerVector;
+        if (encoding == VectorEncoding.INT8) {
+            float maxAbs = 0f;
+            for (float v : normalized) {
+                maxAbs = Math.max(maxAbs, Math.abs(v));
+            }
+            float scale = maxAbs == 0f ? 1f : maxAbs / 127f;
+            chunk.putFloat(offset, scale);
+            for (int i = 0; i < dimensions; i++) {
+                chunk.put(offset + Float.BYTES + i, (byte) Math.round(normalized[i] / scale));
+            }
+        } else {
+            long[] bits = signBits(normalized, words);
+            for (int w = 0; w < words; w++) {
+                chunk.putLong(offset + w * Long.BYTES, bits[w]);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Approximate cosine distance between a stored code and a normalized query.
+     *
+     * @param query     Normalized float query (used for INT8)
+     * @param queryBits Sign bits of the query (used for BINARY)
+     */
+    float distance(int slot, float[] query, long[] queryBits) {
+        ByteBuffer chunk = chunks.get(slot >>> CHUNK_SHIFT);
+        int offset = (slot & CHUNK_MASK) * bytesPerVector;
+        if (encoding == VectorEncoding.INT8) {
+            byte[] codes = scratch.get();
+            chunk.get(offset + Float.BYTES, codes, 0, dimensions);
+            return 1f - VectorKernels.dot(query, codes) * chunk.getFloat(offset);
+        }
+        long[] bits = bitScratch.get();
+        for (int w = 0; w < words; w++) {
+            bits[w] = chunk.getLong(offset + w * Long.BYTES);
+        }
+        int differing = VectorKernels.hamming(bits, queryBits);
+        // Share of differing signs approximates angle / pi, map to [0, 2] like cosine distance
+        return 2f * differing / dimensions;
+    }
+
+    long reservedBytes() {
+        return (long) chunks.size() * OffHeapVectorStore.CHUNK_VECTORS * bytesPerVector;
+    }
+
+    static long[] signBits(float[] vector, int words) {
+        long[] bits = new long[words];
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] > 0f) {
+                bits[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,108 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+/**
+ * Plain loops; used when jdk.incubator.vector is not available at runtime.
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b) {
+        float dot = 0f;
+        float normA = 0f;
+        float normB = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return VectorKernels.cosine(dot, normA, normB);
+    }
+
+    @Override
+    public float l2Squared(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(byte[] a, byte[] b) {
+        int dot = 0;
+        int normA = 0;
+        int normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return VectorKernels.cosine(dot, normA, normB);
+    }
+
+    @Override
+    public int l2Squared(byte[] a, byte[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            int diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] query, byte[] codes) {
+        float sum = 0f;
+        for (int i = 0; i < query.length; i++) {
+            sum += query[i] * codes[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int hamming(long[] a, long[] b) {
+        int differing = 0;
+        for (int i = 0; i < a.length; i++) {
+            differing += Long.bitCount(a[i] ^ b[i]);
+        }
+        return differing;
+    }
+
+    @Override
+    public void dotMany(float[] query, float[][] vectors, int from, int count, float[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = dot(query, vectors[from + i]);
+        }
+    }
+
+    @Override
+    public void l2SquaredMany(float[] query, float[][] vectors, int from, int count, float[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = l2Squared(query, vectors[from + i]);
+        }
+    }
+}
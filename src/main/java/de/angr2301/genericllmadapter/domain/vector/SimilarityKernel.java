@@ -0,0 +1,36 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+/**
+ * Similarity primitives over dense vectors. Implemented once with scalar loops and
+ * once with the incubating Vector API; {@link VectorKernels} picks one at startup.
+ * Arrays passed to one call must have the same length.
+ */
+interface SimilarityKernel {
+
+    String name();
+
+    float dot(float[] a, float[] b);
+
+    /** Cosine similarity in one pass (dot and both norms) */
+    float cosine(float[] a, float[] b);
+
+    float l2Squared(float[] a, float[] b);
+
+    int dot(byte[] a, byte[] b);
+
+    float cosine(byte[] a, byte[] b);
+
+    int l2Squared(byte[] a, byte[] b);
+
+    /** Dot product of a float query with int8 codes (scale not applied) */
+    float dot(float[] query, byte[] codes);
+
+    /** Number of differing bits between two packed bit vectors */
+    int hamming(long[] a, long[] b);
+
+    /** out[i] = dot(query, vectors[from + i]) for i < count */
+    void dotMany(float[] query, float[][] vectors, int from, int count, float[] out);
+
+    /** out[i] = l2Squared(query, vectors[from + i]) for i < count */
+    void l2SquaredMany(float[] query, float[][] vectors, int from, int count, float[] out);
+}
@@ -0,0 +1,43 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+/**
+ * Representation used by the hot tier for the candidate search.
+ * Anything but FLOAT32 is re-ranked against the full-precision vectors afterwards.
+ *
+ * The codes come on top of the float32 vectors, which stay the source for building the graph and
+ * for re-ranking. What shrinks is the resident set: with vector.hot-tier.directory the float32 vectors
+ * are memory-mapped files, and a query only pages in the few candidates it re-ranks, while the graph
+ * traversal reads the codes. Without a directory they would be direct memory, so quantization would
+ * only add memory; ContextVectorIndex then stays on FLOAT32.
+ */
+public enum VectorEncoding {
+    /** Full-precision float32, no re-ranking (4 bytes per dimension) */
+    FLOAT32,
+    /** Scalar quantization to signed bytes with one scale per vector (1 byte per dimension) */
+    INT8,
+    /** Sign bit per dimension, compared by Hamming distance (1 bit per dimension) */
+    BINARY;
+
+    /**
+     * Candidates per requested result re-ranked in full precision, unless configured
+     * (vector.hot-tier.rerank-factor, rag.rerank-factor)
+     */
+    public int defaultRerankFactor() {
+        return switch (this) {
+            case FLOAT32 -> 1;
+            case INT8 -> 4;
+            case BINARY -> 10;
+        };
+    }
+
+    /**
+     * Bytes per vector in the candidate-search representation
+     */
+    public long bytesPerVector(int dimensions) {
+        return switch (this) {
+            case FLOAT32 -> (long) dimensions * Float.BYTES;
+            case INT8 -> dimensions + Float.BYTES;
+            case BINARY -> (long) ((dimensions + 63) / 64) * Long.BYTES;
+        };
+    }
+}
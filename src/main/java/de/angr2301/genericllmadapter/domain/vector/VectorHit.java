@@ -0,0 +1,9 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import java.util.UUID;
+
+/**
+ * Nearest-neighbour search result: context vector id and cosine distance (0 = identical)
+ */
+public record VectorHit(UUID id, float distance) {
+}
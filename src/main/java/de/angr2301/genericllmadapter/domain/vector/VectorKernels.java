@@ -0,0 +1,227 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Similarity kernels for float32, int8 and binary vectors.
+ *
+ * Uses SIMD via jdk.incubator.vector when the module is present at runtime
+ * (--add-modules jdk.incubator.vector), otherwise scalar loops. Set
+ * -Dvector.kernels.scalar=true to force the fallback.
+ */
+@Slf4j
+public final class VectorKernels {
+
+    /** Scores are block-computed into a small buffer before entering the heap */
+    private static final int BATCH = 64;
+
+    private static final SimilarityKernel KERNEL = select();
+
+    private VectorKernels() {
+    }
+
+    /** Scoring for {@link #topK}; higher scores rank first */
+    public enum Metric {
+        /** Dot product, equals cosine similarity for normalized vectors */
+        DOT,
+        COSINE,
+        /** Negated squared Euclidean distance */
+        L2
+    }
+
+    /**
+     * Best k entries of a one-to-many search, best first
+     */
+    public record TopK(int[] indices, float[] scores) {
+        public int size() {
+            return indices.length;
+        }
+    }
+
+    /**
+     * Name of the active implementation, e.g. for startup logs and benchmarks
+     */
+    public static String implementation() {
+        return KERNEL.name();
+    }
+
+    public static float dot(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.dot(a, b);
+    }
+
+    public static float cosine(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.cosine(a, b);
+    }
+
+    public static float l2Squared(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.l2Squared(a, b);
+    }
+
+    public static int dot(byte[] a, byte[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.dot(a, b);
+    }
+
+    public static float cosine(byte[] a, byte[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.cosine(a, b);
+    }
+
+    public static int l2Squared(byte[] a, byte[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.l2Squared(a, b);
+    }
+
+    /**
+     * Dot product of a float query with int8 codes; multiply by the code scale for the real value
+     */
+    public static float dot(float[] query, byte[] codes) {
+        checkLength(query.length, codes.length);
+        return KERNEL.dot(query, codes);
+    }
+
+    /**
+     * Differing bits of two sign-bit vectors
+     */
+    public static int hamming(long[] a, long[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.hamming(a, b);
+    }
+
+    /**
+     * Approximate cosine similarity of two sign-bit vectors: the share of differing
+     * bits estimates angle / pi
+     */
+    public static float binaryCosine(long[] a, long[] b, int dimensions) {
+        return (float) Math.cos(Math.PI * hamming(a, b) / dimensions);
+    }
+
+    /**
+     * Score one query against many vectors and keep the best k.
+     * Vectors are scored in blocks (four at a time on the SIMD path, sharing query loads).
+     *
+     * @throws IllegalArgumentException if k is negative
+     */
+    public static TopK topK(float[] query, float[][] vectors, int k, Metric metric) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        for (float[] vector : vectors) {
+            checkLength(query.length, vector.length);
+        }
+        int keep = Math.min(k, vectors.length);
+        float queryNorm = metric == Metric.COSINE ? (float) Math.sqrt(KERNEL.dot(query, query)) : 1f;
+        float[] scores = new float[BATCH];
+        int[] heapIndices = new int[keep];
+        float[] heapScores = new float[keep];
+        int heapSize = 0;
+        for (int from = 0; from < vectors.length && keep > 0; from += BATCH) {
+            int count = Math.min(BATCH, vectors.length - from);
+            if (metric == Metric.L2) {
+                KERNEL.l2SquaredMany(query, vectors, from, count, scores);
+            } else {
+                KERNEL.dotMany(query, vectors, from, count, scores);
+            }
+            for (int i = 0; i < count; i++) {
+                float score = switch (metric) {
+                    case DOT -> scores[i];
+                    case COSINE -> {
+                        float norm = queryNorm * (float) Math.sqrt(KERNEL.dot(vectors[from + i], vectors[from + i]));
+                        yield norm == 0f ? 0f : scores[i] / norm;
+                    }
+                    case L2 -> -scores[i];
+                };
+                if (heapSize < keep) {
+                    heapIndices[heapSize] = from + i;
+                    heapScores[heapSize] = score;
+                    siftUp(heapIndices, heapScores, heapSize++);
+                } else if (score > heapScores[0]) {
+                    heapIndices[0] = from + i;
+                    heapScores[0] = score;
+                    siftDown(heapIndices, heapScores, heapSize);
+                }
+            }
+        }
+        // Drain the min-heap from the back so the best entry ends up first
+        int[] indices = new int[heapSize];
+        float[] sorted = new float[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            indices[i] = heapIndices[0];
+            sorted[i] = heapScores[0];
+            heapIndices[0] = heapIndices[i];
+            heapScores[0] = heapScores[i];
+            siftDown(heapIndices, heapScores, i);
+        }
+        return new TopK(indices, sorted);
+    }
+
+    static float cosine(float dot, float normA, float normB) {
+        float norm = (float) Math.sqrt(normA) * (float) Math.sqrt(normB);
+        return norm == 0f ? 0f : dot / norm;
+    }
+
+    private static SimilarityKernel select() {
+        if (Boolean.getBoolean("vector.kernels.scalar")
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("Similarity kernels: scalar (start with --add-modules jdk.incubator.vector for SIMD)");
+            return new ScalarSimilarityKernel();
+        }
+        try {
+            // Loaded by name so the incubator classes are only linked when the module is present
+            SimilarityKernel kernel = (SimilarityKernel) Class
+                    .forName(VectorKernels.class.getPackageName() + ".PanamaSimilarityKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+            log.info("Similarity kernels: {}", kernel.name());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            log.warn("Vector API kernels unavailable, using scalar loops: {}", e.toString());
+            return new ScalarSimilarityKernel();
+        }
+    }
+
+    private static void checkLength(int a, int b) {
+        if (a != b) {
+            throw new IllegalArgumentException("Vector lengths differ: " + a + " vs " + b);
+        }
+    }
+
+    private static void siftUp(int[] indices, float[] scores, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) {
+                return;
+            }
+            swap(indices, scores, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] indices, float[] scores, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[i] <= scores[smallest]) {
+                return;
+            }
+            swap(indices, scores, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] indices, float[] scores, int a, int b) {
+        int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,23 @@
+package de.angr2301.genericllmadapter.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * One provider's answer in a comparison; status is ok, error or timeout
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompareCandidate {
+    private String provider;
+    private String status;
+    private String content;
+    private String reasoning;
+    private Map<String, Object> metrics;
+    private long latencyMs;
+    private String error;
+}
@@ -0,0 +1,7 @@
+package de.angr2301.genericllmadapter.dto.ingestion;
+
+/**
+ * @param path File or directory relative to ingestion.base-directory
+ */
+public record IngestionRequest(String path) {
+}
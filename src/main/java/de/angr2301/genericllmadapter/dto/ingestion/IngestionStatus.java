@@ -0,0 +1,25 @@
+package de.angr2301.genericllmadapter.dto.ingestion;
+
+import de.angr2301.genericllmadapter.domain.ingestion.IngestionJob;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record IngestionStatus(
+        UUID id,
+        String sourcePath,
+        IngestionJob.Status status,
+        long documents,
+        long chunks,
+        double documentsPerSecond,
+        double chunksPerSecond,
+        OffsetDateTime startedAt,
+        OffsetDateTime finishedAt,
+        String error) {
+
+    public static IngestionStatus from(IngestionJob job, double documentsPerSecond, double chunksPerSecond) {
+        return new IngestionStatus(job.getId(), job.getSourcePath(), job.getStatus(), job.getDocuments(),
+                job.getChunks(), documentsPerSecond, chunksPerSecond, job.getStartedAt(), job.getFinishedAt(),
+                job.getError());
+    }
+}
@@ -6,9 +6,17 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @FeignClient(name = "analysisClient", url = "${analysis.service.url:http://localhost:8001}")
 public interface AnalysisClient {
 
     @PostMapping("/analyze")
     AnalysisResponse analyze(@RequestBody AnalysisRequest request);
+
+    /**
+     * Several analyses in one call; the answers come back in request order (see AnalysisBatcher)
+     */
+    @PostMapping("/analyze_batch")
+    List<AnalysisResponse> analyzeBatch(@RequestBody List<AnalysisRequest> requests);
 }
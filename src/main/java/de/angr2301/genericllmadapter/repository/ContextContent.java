@@ -0,0 +1,12 @@
+package de.angr2301.genericllmadapter.repository;
+
+import java.util.UUID;
+
+/**
+ * Text of a context vector, fetched by primary key after an in-process index lookup.
+ */
+public interface ContextContent {
+    UUID getId();
+
+    String getContent();
+}
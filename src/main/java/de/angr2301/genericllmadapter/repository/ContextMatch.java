@@ -0,0 +1,15 @@
+package de.angr2301.genericllmadapter.repository;
+
+import java.util.UUID;
+
+/**
+ * Lightweight similarity search result.
+ * Avoids loading the full embedding column when only the text is needed.
+ */
+public interface ContextMatch {
+    UUID getId();
+
+    String getContent();
+
+    double getDistance();
+}
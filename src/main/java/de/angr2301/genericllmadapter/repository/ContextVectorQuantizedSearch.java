@@ -0,0 +1,26 @@
+package de.angr2301.genericllmadapter.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Two-phase similarity search: candidates from the quantized HNSW index (see
+ * R__Context_Vectors_Quantized_Index.sql), re-ranked by the full-precision distance.
+ * The index expressions carry the vector dimensions, so these queries are built for
+ * embedding.dimensions at startup instead of being declared with @Query.
+ */
+public interface ContextVectorQuantizedSearch {
+
+    List<ContextMatch> findSimilarInSessionHalfvec(UUID sessionId, String embedding, int candidates, int limit);
+
+    List<ContextMatch> findSimilarForUserHalfvec(UUID userId, String embedding, int candidates, int limit);
+
+    List<ContextMatch> findSimilarInSessionBinary(UUID sessionId, String embedding, int candidates, int limit);
+
+    List<ContextMatch> findSimilarForUserBinary(UUID userId, String embedding, int candidates, int limit);
+
+    // Reference material loaded by the ingestion pipeline (no session)
+    List<ContextMatch> findSimilarReferencesHalfvec(String embedding, int candidates, int limit);
+
+    List<ContextMatch> findSimilarReferencesBinary(String embedding, int candidates, int limit);
+}
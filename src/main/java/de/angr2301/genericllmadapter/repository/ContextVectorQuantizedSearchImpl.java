@@ -0,0 +1,108 @@
+package de.angr2301.genericllmadapter.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs on the JDBC connection of the surrounding JPA transaction, so SET LOCAL index settings apply.
+ * The inner ORDER BY must match the index expression, dimensions included.
+ */
+class ContextVectorQuantizedSearchImpl implements ContextVectorQuantizedSearch {
+
+    private static final String QUERY = "SELECT c.id AS id, c.content AS content, " +
+            "c.embedding <=> cast(:embedding AS vector) AS distance FROM (" +
+            "SELECT cv.id, cv.content, cv.embedding FROM operational_data.context_vectors cv %s " +
+            "ORDER BY %s LIMIT :candidates) c " +
+            "ORDER BY distance LIMIT :limit";
+    private static final String IN_SESSION = "WHERE cv.session_id = :scope";
+    private static final String FOR_USER = "JOIN operational_data.sessions s ON s.id = cv.session_id " +
+            "WHERE s.user_id = :scope";
+    private static final String REFERENCES = "WHERE cv.session_id IS NULL";
+
+    private static final RowMapper<ContextMatch> MATCH = (rs, row) ->
+            new Match(rs.getObject("id", UUID.class), rs.getString("content"), rs.getDouble("distance"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String sessionHalfvec;
+    private final String userHalfvec;
+    private final String sessionBinary;
+    private final String userBinary;
+    private final String referencesHalfvec;
+    private final String referencesBinary;
+
+    ContextVectorQuantizedSearchImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                     @Value("${embedding.dimensions:1536}") int dimensions) {
+        this.jdbcTemplate = jdbcTemplate;
+        String halfvec = String.format(
+                "cv.embedding::halfvec(%1$d) <=> cast(:embedding AS halfvec(%1$d))", dimensions);
+        String binary = String.format(
+                "binary_quantize(cv.embedding)::bit(%d) <~> binary_quantize(cast(:embedding AS vector))", dimensions);
+        this.sessionHalfvec = String.format(QUERY, IN_SESSION, halfvec);
+        this.userHalfvec = String.format(QUERY, FOR_USER, halfvec);
+        this.sessionBinary = String.format(QUERY, IN_SESSION, binary);
+        this.userBinary = String.format(QUERY, FOR_USER, binary);
+        this.referencesHalfvec = String.format(QUERY, REFERENCES, halfvec);
+        this.referencesBinary = String.format(QUERY, REFERENCES, binary);
+    }
+
+    @Override
+    public List<ContextMatch> findSimilarInSessionHalfvec(UUID sessionId, String embedding, int candidates, int limit) {
+        return query(sessionHalfvec, sessionId, embedding, candidates, limit);
+    }
+
+    @Override
+    public List<ContextMatch> findSimilarForUserHalfvec(UUID userId, String embedding, int candidates, int limit) {
+        return query(userHalfvec, userId, embedding, candidates, limit);
+    }
+
+    @Override
+    public List<ContextMatch> findSimilarInSessionBinary(UUID sessionId, String embedding, int candidates, int limit) {
+        return query(sessionBinary, sessionId, embedding, candidates, limit);
+    }
+
+    @Override
+    public List<ContextMatch> findSimilarForUserBinary(UUID userId, String embedding, int candidates, int limit) {
+        return query(userBinary, userId, embedding, candidates, limit);
+    }
+
+    @Override
+    public List<ContextMatch> findSimilarReferencesHalfvec(String embedding, int candidates, int limit) {
+        return query(referencesHalfvec, null, embedding, candidates, limit);
+    }
+
+    @Override
+    public List<ContextMatch> findSimilarReferencesBinary(String embedding, int candidates, int limit) {
+        return query(referencesBinary, null, embedding, candidates, limit);
+    }
+
+    private List<ContextMatch> query(String sql, UUID scope, String embedding, int candidates, int limit) {
+        return jdbcTemplate.query(sql, new MapSqlParameterSource()
+                .addValue("scope", scope)
+                .addValue("embedding", embedding)
+                .addValue("candidates", candidates)
+                .addValue("limit", limit), MATCH);
+    }
+
+    private record Match(UUID id, String content, double distance) implements ContextMatch {
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public String getContent() {
+            return content;
+        }
+
+        @Override
+        public double getDistance() {
+            return distance;
+        }
+    }
+}
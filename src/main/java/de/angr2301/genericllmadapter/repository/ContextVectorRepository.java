@@ -1,22 +1,84 @@
 package de.angr2301.genericllmadapter.repository;
 
 import de.angr2301.genericllmadapter.domain.ContextVector;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface ContextVectorRepository extends JpaRepository<ContextVector, UUID> {
+public interface ContextVectorRepository extends JpaRepository<ContextVector, UUID>, ContextVectorQuantizedSearch {
 
     // Native query for Cosine Similarity
     // <=> is cosine distance operator in pgvector. Order by distance ASC = most
     // similar.
+    // Unscoped cold-start fallback of the in-process index; ranks by full precision, so only
+    // indexed while rag.quantization is none (the scoped searches below cover the quantized modes).
     @Query(value = "SELECT * FROM operational_data.context_vectors " +
             "ORDER BY embedding <=> :embedding " +
             "LIMIT :limit", nativeQuery = true)
     List<ContextVector> findSimilar(@Param("embedding") float[] embedding, @Param("limit") int limit);
+
+    // Session-scoped search. The embedding is passed in pgvector text format ("[0.1,0.2,...]").
+    @Query(value = "SELECT cv.id AS id, cv.content AS content, " +
+            "cv.embedding <=> cast(:embedding AS vector) AS distance " +
+            "FROM operational_data.context_vectors cv " +
+            "WHERE cv.session_id = :sessionId " +
+            "ORDER BY cv.embedding <=> cast(:embedding AS vector) " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ContextMatch> findSimilarInSession(@Param("sessionId") UUID sessionId,
+                                            @Param("embedding") String embedding,
+                                            @Param("limit") int limit);
+
+    // User-scoped search across all sessions of one user
+    @Query(value = "SELECT cv.id AS id, cv.content AS content, " +
+            "cv.embedding <=> cast(:embedding AS vector) AS distance " +
+            "FROM operational_data.context_vectors cv " +
+            "JOIN operational_data.sessions s ON s.id = cv.session_id " +
+            "WHERE s.user_id = :userId " +
+            "ORDER BY cv.embedding <=> cast(:embedding AS vector) " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ContextMatch> findSimilarForUser(@Param("userId") UUID userId,
+                                          @Param("embedding") String embedding,
+                                          @Param("limit") int limit);
+
+    // Reference material loaded by the ingestion pipeline (no session)
+    @Query(value = "SELECT cv.id AS id, cv.content AS content, " +
+            "cv.embedding <=> cast(:embedding AS vector) AS distance " +
+            "FROM operational_data.context_vectors cv " +
+            "WHERE cv.session_id IS NULL " +
+            "ORDER BY cv.embedding <=> cast(:embedding AS vector) " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ContextMatch> findSimilarReferences(@Param("embedding") String embedding, @Param("limit") int limit);
+
+    // Texts for ids returned by the in-process index (primary key lookup, no vector scan)
+    @Query("SELECT cv.id AS id, cv.content AS content FROM ContextVector cv WHERE cv.id IN :ids")
+    List<ContextContent> findContentByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Keyset-paged full scan for building the in-process index
+    @Query("SELECT cv.id AS id, s.id AS sessionId, u.id AS userId, cv.embedding AS embedding " +
+            "FROM ContextVector cv LEFT JOIN cv.session s LEFT JOIN s.user u " +
+            "WHERE cv.id > :after ORDER BY cv.id")
+    List<ContextVectorRow> findRowsAfter(@Param("after") UUID after, Limit limit);
+
+    // Rows written by transactions in [from, until), for catching up the in-process index
+    @Query("SELECT cv.id AS id, s.id AS sessionId, u.id AS userId, cv.embedding AS embedding " +
+            "FROM ContextVector cv LEFT JOIN cv.session s LEFT JOIN s.user u " +
+            "WHERE cv.createdXid >= :from AND cv.createdXid < :until ORDER BY cv.createdXid, cv.id")
+    List<ContextVectorRow> findRowsWrittenBetween(@Param("from") long from, @Param("until") long until,
+                                                  Pageable pageable);
+
+    // Oldest transaction still running; every transaction before it has finished
+    @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+    long findTransactionHorizon();
+
+    // Transaction-local planner/index setting (e.g. hnsw.ef_search, hnsw.iterative_scan)
+    @Query(value = "SELECT set_config(:name, :value, true)", nativeQuery = true)
+    String setLocalConfig(@Param("name") String name, @Param("value") String value);
 }
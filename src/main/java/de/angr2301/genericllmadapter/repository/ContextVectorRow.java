@@ -0,0 +1,16 @@
+package de.angr2301.genericllmadapter.repository;
+
+import java.util.UUID;
+
+/**
+ * Context vector with its owning session and user, used to (re)build in-process indexes.
+ */
+public interface ContextVectorRow {
+    UUID getId();
+
+    UUID getSessionId();
+
+    UUID getUserId();
+
+    float[] getEmbedding();
+}
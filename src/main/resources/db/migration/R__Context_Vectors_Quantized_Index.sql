@@ -0,0 +1,43 @@
+-- HNSW index matching rag.quantization (Flyway placeholder vectorQuantization) for embedding.dimensions
+-- (placeholder vectorDimensions). The column type of context_vectors.embedding follows the dimensions as well;
+-- changing them fails while rows of the old dimension exist, those have to be re-embedded or deleted first.
+-- Repeatable: re-applied when the placeholder changes, so switching modes rebuilds the index.
+--   none    -> full-precision vector index (6 KB per 1536-dim row)
+--   halfvec -> float16 expression index (half the size)
+--   binary  -> 1-bit expression index compared by Hamming distance (1/32 of the size)
+-- The quantized modes drop the full index; candidates are re-ranked against the stored vectors.
+-- Every pgvector search (session, user and reference material) goes through the index of the current
+-- mode (ContextRetrievalService picks the matching query), so none of them falls back to a full scan.
+DO $$
+BEGIN
+    IF (SELECT format_type(atttypid, atttypmod) FROM pg_attribute
+        WHERE attrelid = 'operational_data.context_vectors'::regclass AND attname = 'embedding')
+            <> 'vector(${vectorDimensions})' THEN
+        -- Indexes on the old dimension cannot be carried over; the branch below builds the current one
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_hnsw;
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_halfvec;
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_binary;
+        ALTER TABLE operational_data.context_vectors ALTER COLUMN embedding TYPE vector(${vectorDimensions});
+    END IF;
+
+    IF '${vectorQuantization}' = 'halfvec' THEN
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_hnsw;
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_binary;
+        CREATE INDEX IF NOT EXISTS idx_context_vectors_embedding_halfvec
+            ON operational_data.context_vectors USING hnsw ((embedding::halfvec(${vectorDimensions})) halfvec_cosine_ops)
+            WITH (m = 16, ef_construction = 64);
+    ELSIF '${vectorQuantization}' = 'binary' THEN
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_hnsw;
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_halfvec;
+        CREATE INDEX IF NOT EXISTS idx_context_vectors_embedding_binary
+            ON operational_data.context_vectors USING hnsw ((binary_quantize(embedding)::bit(${vectorDimensions})) bit_hamming_ops)
+            WITH (m = 16, ef_construction = 64);
+    ELSE
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_halfvec;
+        DROP INDEX IF EXISTS operational_data.idx_context_vectors_embedding_binary;
+        CREATE INDEX IF NOT EXISTS idx_context_vectors_embedding_hnsw
+            ON operational_data.context_vectors USING hnsw (embedding vector_cosine_ops)
+            WITH (m = 16, ef_construction = 64);
+    END IF;
+END
+$$;
@@ -0,0 +1,8 @@
+-- Users belong to at most one tenant; users without one are scheduled as a tenant of their own
+ALTER TABLE user_data.users ADD COLUMN tenant_id UUID REFERENCES defining_data.tenants(id);
+
+CREATE INDEX idx_users_tenant_id ON user_data.users(tenant_id) WHERE tenant_id IS NOT NULL;
+
+-- Share of upstream capacity when tenants compete (see AdmissionScheduler)
+ALTER TABLE defining_data.tenants ADD COLUMN scheduling_weight INT NOT NULL DEFAULT 1
+    CHECK (scheduling_weight > 0);
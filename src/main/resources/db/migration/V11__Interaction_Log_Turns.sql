@@ -0,0 +1,3 @@
+-- Rows written by one chat turn share a turn id: the user message and its answer, or the user message
+-- and all candidates (role CANDIDATE) of a provider comparison. Rows from before stay NULL.
+ALTER TABLE log_data.interaction_logs ADD COLUMN turn_id UUID;
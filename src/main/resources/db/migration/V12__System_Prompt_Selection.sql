@@ -0,0 +1,23 @@
+-- System prompts: a default per tenant (tenant_id NULL: for everyone) and an optional choice per session.
+ALTER TABLE defining_data.system_prompts
+    ADD COLUMN is_default BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_system_prompts_default
+    ON defining_data.system_prompts (COALESCE(tenant_id, '00000000-0000-0000-0000-000000000000'::uuid))
+    WHERE is_default;
+
+-- Cached compiled templates are reloaded when updated_at moves, also for changes made in SQL
+CREATE OR REPLACE FUNCTION defining_data.touch_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER system_prompts_touch_updated_at
+    BEFORE UPDATE ON defining_data.system_prompts
+    FOR EACH ROW EXECUTE FUNCTION defining_data.touch_updated_at();
+
+ALTER TABLE operational_data.sessions
+    ADD COLUMN system_prompt_id UUID REFERENCES defining_data.system_prompts(id) ON DELETE SET NULL;
@@ -0,0 +1,9 @@
+-- The in-process vector index catches up on rows written elsewhere by writing transaction instead of
+-- creation time: a transaction older than the oldest one still running (pg_snapshot_xmin) has committed
+-- or rolled back, so no row can appear behind the cursor later, however long its transaction took.
+-- Rows from before stay NULL; they are part of any index built from the table or restored from a newer snapshot.
+ALTER TABLE operational_data.context_vectors ADD COLUMN created_xid BIGINT;
+ALTER TABLE operational_data.context_vectors
+    ALTER COLUMN created_xid SET DEFAULT pg_current_xact_id()::text::bigint;
+CREATE INDEX IF NOT EXISTS idx_context_vectors_created_xid
+    ON operational_data.context_vectors (created_xid);
@@ -0,0 +1,17 @@
+-- Cursor for polling clients (GET .../messages?after=): timestamps cannot serve, a turn is written after the
+-- reply with the user message's arrival time, so a slow turn commits rows older than what a client already saw.
+-- seq is drawn at insert; ChatService locks the session row before writing a turn, so within a session
+-- seq follows commit order. Existing rows are numbered in timestamp order.
+CREATE SEQUENCE log_data.interaction_logs_seq_seq;
+ALTER TABLE log_data.interaction_logs ADD COLUMN seq BIGINT;
+UPDATE log_data.interaction_logs l
+SET seq = o.n
+FROM (SELECT id, row_number() OVER (ORDER BY timestamp, id) AS n FROM log_data.interaction_logs) o
+WHERE l.id = o.id;
+SELECT setval('log_data.interaction_logs_seq_seq', COALESCE(MAX(seq), 0) + 1, false) FROM log_data.interaction_logs;
+ALTER TABLE log_data.interaction_logs
+    ALTER COLUMN seq SET DEFAULT nextval('log_data.interaction_logs_seq_seq'),
+    ALTER COLUMN seq SET NOT NULL;
+ALTER SEQUENCE log_data.interaction_logs_seq_seq OWNED BY log_data.interaction_logs.seq;
+CREATE INDEX IF NOT EXISTS idx_interaction_logs_session_seq
+    ON log_data.interaction_logs (session_id, seq);
@@ -0,0 +1,3 @@
+-- The vector index catches up by created_xid since V13; nothing reads context_vectors by created_at any more,
+-- so the V4 index only costs every insert. The column stays (written by the entity, useful for inspection).
+DROP INDEX IF EXISTS operational_data.idx_context_vectors_created_at;
@@ -0,0 +1,7 @@
+-- Ordered history per session (chat context, message listing, exports)
+CREATE INDEX IF NOT EXISTS idx_interaction_logs_session_timestamp
+    ON log_data.interaction_logs (session_id, timestamp);
+
+-- Sessions of a user in start order (session listing, exports)
+CREATE INDEX IF NOT EXISTS idx_sessions_user_started_at
+    ON operational_data.sessions (user_id, started_at);
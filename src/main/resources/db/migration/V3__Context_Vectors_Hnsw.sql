@@ -0,0 +1,11 @@
+-- Replace the ivfflat index with HNSW: no training step, better recall/latency trade-off,
+-- and (pgvector >= 0.8) iterative scans keep using the index under a WHERE filter.
+DROP INDEX IF EXISTS operational_data.context_vectors_embedding_idx;
+
+CREATE INDEX IF NOT EXISTS idx_context_vectors_embedding_hnsw
+    ON operational_data.context_vectors USING hnsw (embedding vector_cosine_ops)
+    WITH (m = 16, ef_construction = 64);
+
+-- Session filter; small sessions are answered exactly via this index plus a sort
+CREATE INDEX IF NOT EXISTS idx_context_vectors_session
+    ON operational_data.context_vectors (session_id);
@@ -0,0 +1,3 @@
+-- Incremental catch-up of the in-process vector index polls by creation time
+CREATE INDEX IF NOT EXISTS idx_context_vectors_created_at
+    ON operational_data.context_vectors (created_at);
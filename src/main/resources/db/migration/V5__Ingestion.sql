@@ -0,0 +1,24 @@
+-- Reference material loaded by the ingestion pipeline: rows without a session,
+-- identified by the source document they were chunked from
+ALTER TABLE operational_data.context_vectors ADD COLUMN IF NOT EXISTS source TEXT;
+
+CREATE TABLE operational_data.ingestion_jobs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    source_path TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    documents BIGINT NOT NULL DEFAULT 0,
+    chunks BIGINT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP WITH TIME ZONE,
+    finished_at TIMESTAMP WITH TIME ZONE,
+    error TEXT
+);
+
+-- One row per fully loaded document, written in the same transaction as its COPY,
+-- so a resumed job skips exactly the documents that are already in context_vectors
+CREATE TABLE operational_data.ingestion_checkpoints (
+    job_id UUID NOT NULL REFERENCES operational_data.ingestion_jobs(id) ON DELETE CASCADE,
+    document TEXT NOT NULL,
+    chunks INT NOT NULL,
+    completed_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (job_id, document)
+);
@@ -0,0 +1,11 @@
+-- Embeddings by content hash, shared by all users: identical text is only sent to the
+-- provider once per model. Dimension-less column because the model is part of the key.
+CREATE TABLE operational_data.embedding_cache (
+    model TEXT NOT NULL,
+    text_hash BYTEA NOT NULL,
+    embedding vector NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (model, text_hash)
+);
+
+CREATE INDEX idx_embedding_cache_created_at ON operational_data.embedding_cache (created_at);
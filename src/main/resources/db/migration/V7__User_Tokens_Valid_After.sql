@@ -0,0 +1,6 @@
+-- Set when a user's role or enabled state changes: JWTs issued before it no longer
+-- carry trustworthy claims and are resolved against this table instead
+ALTER TABLE user_data.users ADD COLUMN tokens_valid_after TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX idx_users_tokens_valid_after ON user_data.users(tokens_valid_after)
+    WHERE tokens_valid_after IS NOT NULL;
@@ -0,0 +1,20 @@
+-- Shared rate-limit buckets (rate-limit.mode: cluster), serialized by bucket4j.
+-- bucket4j only writes id and state, so a trigger keeps updated_at for purging idle buckets.
+CREATE TABLE operational_data.rate_limit_buckets (
+    id TEXT PRIMARY KEY,
+    state BYTEA,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_rate_limit_buckets_updated_at ON operational_data.rate_limit_buckets(updated_at);
+
+CREATE FUNCTION operational_data.touch_rate_limit_bucket() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER rate_limit_buckets_touch
+    BEFORE UPDATE ON operational_data.rate_limit_buckets
+    FOR EACH ROW EXECUTE FUNCTION operational_data.touch_rate_limit_bucket();
@@ -0,0 +1,28 @@
+-- Append-only record of every LLM call's token usage (provider-reported, or estimated
+-- when the provider reports none). Never updated; corrections are new rows.
+CREATE TABLE log_data.usage_ledger (
+    id BIGSERIAL PRIMARY KEY,
+    user_id UUID NOT NULL REFERENCES user_data.users(id),
+    session_id UUID REFERENCES operational_data.sessions(id) ON DELETE SET NULL,
+    provider VARCHAR(50) NOT NULL,
+    prompt_tokens INT NOT NULL,
+    completion_tokens INT NOT NULL,
+    estimated BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_usage_ledger_user_created_at ON log_data.usage_ledger (user_id, created_at);
+
+-- Counters per user, provider and UTC day, incremented with each ledger row, so summaries
+-- read a handful of rows instead of aggregating the ledger
+CREATE TABLE log_data.usage_counters (
+    user_id UUID NOT NULL REFERENCES user_data.users(id),
+    provider VARCHAR(50) NOT NULL,
+    day DATE NOT NULL,
+    requests BIGINT NOT NULL DEFAULT 0,
+    prompt_tokens BIGINT NOT NULL DEFAULT 0,
+    completion_tokens BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, day, provider)
+);
+
+CREATE INDEX idx_usage_counters_day ON log_data.usage_counters (day);
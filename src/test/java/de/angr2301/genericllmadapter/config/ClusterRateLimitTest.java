@@ -0,0 +1,85 @@
+package de.angr2301.genericllmadapter.config;
+
+import de.angr2301.genericllmadapter.config.RateLimiter.EndpointGroup;
+import de.angr2301.genericllmadapter.config.RateLimiter.Tier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integrationstest für den Cluster-Modus des RateLimiter
+ * Testet, dass mehrere Instanzen sich ein Limit über Postgres teilen.
+ *
+ * Benötigt eine lokale Postgres-Datenbank, z.B.:
+ * RATE_LIMIT_TEST_JDBC_URL=jdbc:postgresql://127.0.0.1:5432/postgres?user=postgres&password=postgres mvn test
+ */
+@EnabledIfEnvironmentVariable(named = "RATE_LIMIT_TEST_JDBC_URL", matches = ".+")
+@DisplayName("RateLimiter cluster mode - Integration Tests")
+class ClusterRateLimitTest {
+
+    @BeforeAll
+    static void createTable() {
+        // Same table as V8__Rate_Limit_Buckets.sql, without the purge trigger
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource());
+        jdbc.execute("CREATE SCHEMA IF NOT EXISTS operational_data");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + ClusterBucketStore.TABLE
+                + " (id TEXT PRIMARY KEY, state BYTEA, updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now())");
+    }
+
+    @Test
+    @DisplayName("Should enforce one limit across instances when every request synchronizes")
+    void shouldShareLimitAcrossInstances() {
+        // Given: two instances with their own connection pools, 20 requests per minute
+        RateLimiter first = instance(0);
+        RateLimiter second = instance(0);
+        String client = "10.1.0." + UUID.randomUUID();
+
+        // When
+        long allowed = IntStream.range(0, 40)
+                .filter(i -> (i % 2 == 0 ? first : second)
+                        .tryConsume(client, Tier.ANONYMOUS, EndpointGroup.DEFAULT).isConsumed())
+                .count();
+
+        // Then
+        assertThat(allowed).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Should exceed the shared limit by at most the unsynchronized tokens per instance")
+    void shouldBoundOverAdmissionWithLocalBatching() {
+        // Given
+        RateLimiter first = instance(5);
+        RateLimiter second = instance(5);
+        String client = "10.2.0." + UUID.randomUUID();
+
+        // When
+        long allowed = IntStream.range(0, 60)
+                .filter(i -> (i % 2 == 0 ? first : second)
+                        .tryConsume(client, Tier.ANONYMOUS, EndpointGroup.DEFAULT).isConsumed())
+                .count();
+
+        // Then
+        assertThat(allowed).isBetween(20L, 20L + 2 * 5);
+    }
+
+    private static RateLimiter instance(long maxUnsynchronizedTokens) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMode(RateLimitProperties.Mode.CLUSTER);
+        properties.getCluster().setMaxUnsynchronizedTokens(maxUnsynchronizedTokens);
+        return new RateLimiter(properties, new ClusterBucketStore(dataSource(), properties));
+    }
+
+    private static PGSimpleDataSource dataSource() {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(System.getenv("RATE_LIMIT_TEST_JDBC_URL"));
+        return dataSource;
+    }
+}
@@ -0,0 +1,64 @@
+package de.angr2301.genericllmadapter.config;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: per-request JWT cost, full verification (signature, expiry, claims to principal)
+ * against a principal cache hit.
+ *
+ * mvn -P benchmark -DskipTests verify -Djmh.args="JwtServiceBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private PrincipalCache principalCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService("404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970", 86_400_000);
+        // Hits never reach the database, so no user service or repository is needed
+        principalCache = new PrincipalCache(jwtService, null, null, 10_000, Duration.ofMinutes(5));
+        token = jwtService.generateToken(User.withUsername("user@example.com")
+                .password("")
+                .roles("USER")
+                .build());
+        principalCache.resolve(token);
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public UserDetails verifyToPrincipal() {
+        return jwtService.toUserDetails(jwtService.parseToken(token));
+    }
+
+    @Benchmark
+    public UserDetails principalCacheHit() {
+        return principalCache.resolve(token);
+    }
+}
@@ -0,0 +1,123 @@
+package de.angr2301.genericllmadapter.config;
+
+import de.angr2301.genericllmadapter.domain.user.CustomUserDetailsService;
+import de.angr2301.genericllmadapter.domain.user.UserRepository;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit Tests für PrincipalCache
+ * Testet Principals aus Token-Claims, Caching und Invalidierung nach Rollenwechsel
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PrincipalCache - Unit Tests")
+class PrincipalCacheTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private JwtService jwtService;
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET, 60_000);
+        principalCache = new PrincipalCache(jwtService, userDetailsService, userRepository, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Should build the principal from token claims without a database lookup")
+    void shouldResolveFromClaims() {
+        // Given
+        String token = jwtService.generateToken(user("admin@example.com", "ROLE_SUPER_USER"));
+
+        // When
+        UserDetails principal = principalCache.resolve(token);
+        UserDetails again = principalCache.resolve(token);
+
+        // Then
+        assertThat(principal.getUsername()).isEqualTo("admin@example.com");
+        assertThat(AuthorityUtils.authorityListToSet(principal.getAuthorities())).containsExactly("ROLE_SUPER_USER");
+        assertThat(principal.isEnabled()).isTrue();
+        assertThat(again).isSameAs(principal);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("Should resolve tokens issued before an access change against the database")
+    void shouldUseDatabaseAfterInvalidation() {
+        // Given
+        String token = jwtService.generateToken(user("user@example.com", "ROLE_SUPER_USER"));
+        principalCache.resolve(token);
+        UserDetails demoted = User.builder().username("user@example.com").password("")
+                .authorities("ROLE_USER").disabled(true).build();
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(demoted);
+
+        // When
+        principalCache.invalidate("USER@example.com", Instant.now());
+        UserDetails principal = principalCache.resolve(token);
+
+        // Then
+        assertThat(principal).isSameAs(demoted);
+        assertThat(principal.isEnabled()).isFalse();
+        verify(userDetailsService).loadUserByUsername("user@example.com");
+    }
+
+    @Test
+    @DisplayName("Should not cache a principal loaded while the user's access changed")
+    void shouldNotCachePrincipalInvalidatedDuringLoad() {
+        // Given: the first load reads the row as it was before a change that commits meanwhile
+        String token = jwtService.generateToken(user("user@example.com", "ROLE_SUPER_USER"));
+        principalCache.invalidate("user@example.com", Instant.now());
+        UserDetails before = user("user@example.com", "ROLE_SUPER_USER");
+        UserDetails after = user("user@example.com", "ROLE_USER");
+        when(userDetailsService.loadUserByUsername("user@example.com"))
+                .thenAnswer(invocation -> {
+                    principalCache.invalidate("user@example.com", Instant.now().plusSeconds(1));
+                    return before;
+                })
+                .thenReturn(after);
+
+        // When
+        principalCache.resolve(token);
+        UserDetails principal = principalCache.resolve(token);
+
+        // Then
+        assertThat(principal).isSameAs(after);
+    }
+
+    @Test
+    @DisplayName("Should reject tokens with an invalid signature")
+    void shouldRejectForgedTokens() {
+        // Given
+        JwtService otherKey = new JwtService("5A7134743777217A25432A462D4A614E645267556B58703272357538782F413F", 60_000);
+        String token = otherKey.generateToken(user("user@example.com", "ROLE_USER"));
+
+        // When / Then
+        assertThatThrownBy(() -> principalCache.resolve(token)).isInstanceOf(JwtException.class);
+    }
+
+    private static UserDetails user(String email, String authority) {
+        return User.builder().username(email).password("hash").authorities(authority).build();
+    }
+}
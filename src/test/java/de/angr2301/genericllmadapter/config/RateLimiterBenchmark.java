@@ -0,0 +1,83 @@
+package de.angr2301.genericllmadapter.config;
+
+import de.angr2301.genericllmadapter.config.RateLimiter.EndpointGroup;
+import de.angr2301.genericllmadapter.config.RateLimiter.Tier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: per-request cost of the rate limiter (bucket lookup plus consumption) with many
+ * live buckets, against the previous unbounded map of buckets as baseline.
+ * Identities are visited round robin, the cache-unfriendly worst case.
+ *
+ * mvn -P benchmark -DskipTests verify -Djmh.args="RateLimiterBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    /** Distinct identities with a live bucket */
+    @Param({"1000", "100000"})
+    public int identities;
+
+    private final Map<String, Bucket> unbounded = new ConcurrentHashMap<>();
+    private RateLimiter rateLimiter;
+    private String[] names;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(identities * 2L);
+        properties.setIdleExpiry(Duration.ofHours(1));
+        // High limit so the benchmark measures the consuming path, not rejections
+        properties.getTiers().get(Tier.USER).put(EndpointGroup.DEFAULT, Integer.MAX_VALUE);
+        rateLimiter = new RateLimiter(properties);
+        names = new String[identities];
+        for (int i = 0; i < identities; i++) {
+            names[i] = "user" + i + "@example.com";
+            rateLimiter.tryConsume(names[i], Tier.USER, EndpointGroup.DEFAULT);
+        }
+    }
+
+    @Benchmark
+    public boolean tryConsume() {
+        return rateLimiter.tryConsume(nextIdentity(), Tier.USER, EndpointGroup.DEFAULT).isConsumed();
+    }
+
+    @Benchmark
+    public boolean unboundedMap() {
+        return unbounded.computeIfAbsent(nextIdentity(), key -> Bucket.builder()
+                        .addLimit(Bandwidth.builder().capacity(Integer.MAX_VALUE)
+                                .refillGreedy(Integer.MAX_VALUE, Duration.ofMinutes(1)).build())
+                        .build())
+                .tryConsume(1);
+    }
+
+    private String nextIdentity() {
+        String identity = names[next];
+        next = next + 1 == names.length ? 0 : next + 1;
+        return identity;
+    }
+}
@@ -0,0 +1,130 @@
+package de.angr2301.genericllmadapter.config;
+
+import de.angr2301.genericllmadapter.config.RateLimiter.EndpointGroup;
+import de.angr2301.genericllmadapter.config.RateLimiter.Tier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit Tests für RateLimiter
+ * Testet Limits pro Tier und Endpoint-Gruppe sowie getrennte Buckets pro Identität
+ * und dass der RateLimitFilter einen Provider-Vergleich einmal berechnet, ohne den Body zu lesen
+ */
+@DisplayName("RateLimiter - Unit Tests")
+class RateLimiterTest {
+
+    @Test
+    @DisplayName("Should reject requests beyond the tier limit per identity")
+    void shouldLimitPerIdentity() {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter(new RateLimitProperties());
+
+        // When
+        long allowed = IntStream.range(0, 25)
+                .filter(i -> rateLimiter.tryConsume("10.0.0.1", Tier.ANONYMOUS, EndpointGroup.DEFAULT).isConsumed())
+                .count();
+
+        // Then
+        assertThat(allowed).isEqualTo(20);
+        assertThat(rateLimiter.tryConsume("10.0.0.2", Tier.ANONYMOUS, EndpointGroup.DEFAULT).isConsumed()).isTrue();
+        assertThat(rateLimiter.tryConsume("10.0.0.1", Tier.ANONYMOUS, EndpointGroup.AUTH).isConsumed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should bind tier limits and fall back to the tier default group")
+    void shouldBindTiers() {
+        // Given
+        RateLimitProperties properties = new Binder(new MapConfigurationPropertySource(Map.of(
+                "rate-limit.tiers.super-user.default", "100",
+                "rate-limit.tiers.super-user.llm", "5")))
+                .bind("rate-limit", RateLimitProperties.class)
+                .get();
+
+        // When
+        RateLimiter rateLimiter = new RateLimiter(properties);
+
+        // Then
+        assertThat(rateLimiter.limit(Tier.SUPER_USER, EndpointGroup.LLM)).isEqualTo(5);
+        assertThat(rateLimiter.limit(Tier.SUPER_USER, EndpointGroup.AUTH)).isEqualTo(100);
+        assertThat(rateLimiter.limit(Tier.USER, EndpointGroup.LLM)).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Should classify endpoints into groups")
+    void shouldClassifyEndpoints() {
+        assertThat(EndpointGroup.of("POST", "/auth/login")).isEqualTo(EndpointGroup.AUTH);
+        assertThat(EndpointGroup.of("POST", "/api/chat/sessions/42/messages")).isEqualTo(EndpointGroup.LLM);
+        assertThat(EndpointGroup.of("POST", "/api/chat/sessions/42/compare")).isEqualTo(EndpointGroup.LLM);
+        assertThat(EndpointGroup.of("GET", "/api/chat/sessions/42/messages")).isEqualTo(EndpointGroup.DEFAULT);
+    }
+
+    @Test
+    @DisplayName("Should charge a comparison one LLM token without reading its body")
+    void shouldChargeComparisonOnceInFilter() throws Exception {
+        // Given: 20 LLM calls per minute for users
+        RateLimiter rateLimiter = new RateLimiter(new RateLimitProperties());
+        RateLimitFilter filter = new RateLimitFilter(rateLimiter);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice@example.com", null, List.of()));
+        String body = "{\"prompt\":\"Hi\",\"providers\":[\"openai\",\"deepseek\",\"huggingface\"]}";
+        List<String> forwarded = new ArrayList<>();
+        FilterChain chain = (request, response) ->
+                forwarded.add(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/chat/sessions/42/compare");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            // When: ChatService charges the further providers once the body is parsed
+            filter.doFilter(request, response, chain);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("19");
+            assertThat(forwarded).containsExactly(body);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    @DisplayName("Should limit per instance when the shared buckets cannot be reached")
+    void shouldFailOpenToLocalBucketInClusterMode() throws Exception {
+        // Given: every connection attempt fails
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMode(RateLimitProperties.Mode.CLUSTER);
+        properties.getCluster().setMaxUnsynchronizedTokens(0);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimiter rateLimiter = new RateLimiter(properties, new ClusterBucketStore(dataSource, properties), registry);
+
+        // When
+        long allowed = IntStream.range(0, 25)
+                .filter(i -> rateLimiter.tryConsume("10.0.0.1", Tier.ANONYMOUS, EndpointGroup.DEFAULT).isConsumed())
+                .count();
+
+        // Then
+        assertThat(allowed).isEqualTo(20);
+        assertThat(registry.get("rate_limit.cluster.fallbacks").counter().count()).isEqualTo(25);
+    }
+}
@@ -0,0 +1,121 @@
+package de.angr2301.genericllmadapter.config;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für RecentTraces
+ * Testet das Zusammenfassen von Spans zu Requests, die Sortierung nach Dauer und die Größenbegrenzung
+ */
+@DisplayName("RecentTraces - Unit Tests")
+class RecentTracesTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private RecentTraces recentTraces;
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        recentTraces = new RecentTraces(3, 2, 100, Duration.ofMinutes(1));
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(recentTraces).build();
+        tracer = tracerProvider.get("test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    @DisplayName("Should record a request with its stages relative to the request start")
+    void shouldRecordStageBreakdown() {
+        // Given
+        Span request = server("POST /api/chat/sessions/{id}/messages", 0);
+
+        // When
+        child(request, "session", 1, 3);
+        child(request, "llm", 5, 905);
+        request.end(T0.plusMillis(1000));
+
+        // Then
+        List<RecentTraces.Trace> traces = recentTraces.slowest(10);
+        assertThat(traces).hasSize(1);
+        RecentTraces.Trace trace = traces.get(0);
+        assertThat(trace.traceId()).isEqualTo(request.getSpanContext().getTraceId());
+        assertThat(trace.durationMs()).isEqualTo(1000.0);
+        assertThat(trace.stages()).extracting(RecentTraces.Stage::name).containsExactly("session", "llm");
+        assertThat(trace.stages().get(1).offsetMs()).isEqualTo(5.0);
+        assertThat(trace.stages().get(1).durationMs()).isEqualTo(900.0);
+        assertThat(recentTraces.find(trace.traceId())).isEqualTo(trace);
+    }
+
+    @Test
+    @DisplayName("Should list the slowest requests first and keep only the most recent ones")
+    void shouldKeepMostRecentAndSortByDuration() {
+        // Given / When
+        long[] durations = {500, 10, 300, 20};
+        for (long duration : durations) {
+            server("GET /api/chat/sessions", 0).end(T0.plusMillis(duration));
+        }
+
+        // Then: the first (slowest) request fell out of the ring of three
+        assertThat(recentTraces.slowest(10)).extracting(RecentTraces.Trace::durationMs)
+                .containsExactly(300.0, 20.0, 10.0);
+        assertThat(recentTraces.slowest(1)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore background work and cap the spans kept per request")
+    void shouldIgnoreNonServerRootsAndCapSpans() {
+        // Given
+        Span job = tracer.spanBuilder("tasks.scheduled.execution").setStartTimestamp(T0).startSpan();
+        child(job, "query", 0, 1);
+        job.end(T0.plusMillis(2));
+
+        Span request = server("GET /api/users/me", 0);
+        for (int i = 0; i < 5; i++) {
+            child(request, "query", i, i + 1);
+        }
+        request.end(T0.plusMillis(10));
+
+        // Then
+        List<RecentTraces.Trace> traces = recentTraces.slowest(10);
+        assertThat(traces).hasSize(1);
+        assertThat(traces.get(0).name()).isEqualTo("GET /api/users/me");
+        assertThat(traces.get(0).stages()).hasSize(2);
+    }
+
+    private Span server(String name, long startMillis) {
+        return tracer.spanBuilder(name)
+                .setSpanKind(SpanKind.SERVER)
+                .setNoParent()
+                .setStartTimestamp(T0.plusMillis(startMillis))
+                .startSpan();
+    }
+
+    private void child(Span parent, String name, long startMillis, long endMillis) {
+        try (Scope ignored = parent.makeCurrent()) {
+            Span span = tracer.spanBuilder(name)
+                    .setParent(Context.current())
+                    .setStartTimestamp(T0.plusMillis(startMillis))
+                    .startSpan();
+            span.end(T0.plusMillis(endMillis));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package de.angr2301.genericllmadapter.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.angr2301.genericllmadapter.config.RateLimitExceededException;
+import de.angr2301.genericllmadapter.domain.chat.ChatExportService;
+import de.angr2301.genericllmadapter.domain.chat.ChatService;
+import de.angr2301.genericllmadapter.domain.chat.InteractionLog;
+import de.angr2301.genericllmadapter.domain.chat.LlmHealthCheckService;
+import de.angr2301.genericllmadapter.domain.chat.TrafficCapture;
+import de.angr2301.genericllmadapter.domain.prompt.SystemPromptService;
+import de.angr2301.genericllmadapter.domain.user.UserService;
+import de.angr2301.genericllmadapter.dto.chat.CompareCandidate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit Tests für ChatController
+ * Testet bedingte Abfragen (ETag), den after-Cursor und den gestreamten Provider-Vergleich
+ * samt 429, wenn die weiteren Provider nicht mehr ins Rate-Limit passen
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChatController - Unit Tests")
+class ChatControllerTest {
+
+    private static final String EMAIL = "alice@example.com";
+    private static final String ETAG = "\"18f3a-4\"";
+
+    @Mock
+    private ChatService chatService;
+    @Mock
+    private ChatExportService chatExportService;
+    @Mock
+    private LlmHealthCheckService llmHealthCheckService;
+    @Mock
+    private TrafficCapture trafficCapture;
+    @Mock
+    private SystemPromptService systemPromptService;
+    @Mock
+    private UserService userService;
+
+    private MockMvc mockMvc;
+    private final UUID sessionId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new ChatController(chatService, chatExportService, llmHealthCheckService, trafficCapture,
+                        new ObjectMapper(), systemPromptService, userService))
+                .setControllerAdvice(new ApiExceptionHandler())
+                .build();
+        User principal = new User(EMAIL, "", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should return the messages with an ETag")
+    void shouldReturnMessagesWithETag() throws Exception {
+        // Given
+        when(chatService.getMessagesETag(sessionId, EMAIL)).thenReturn(ETAG);
+        when(chatService.getMessages(sessionId, EMAIL, null))
+                .thenReturn(List.of(InteractionLog.builder().role("USER").content("Hello").build()));
+
+        // When / Then
+        mockMvc.perform(get("/api/chat/sessions/{id}/messages", sessionId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$[0].content").value("Hello"));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 without loading messages when the ETag matches")
+    void shouldAnswerNotModified() throws Exception {
+        // Given
+        when(chatService.getMessagesETag(sessionId, EMAIL)).thenReturn(ETAG);
+
+        // When / Then: also the weak form Tomcat sends for gzip-compressed responses
+        for (String ifNoneMatch : List.of(ETAG, "W/" + ETAG)) {
+            mockMvc.perform(get("/api/chat/sessions/{id}/messages", sessionId)
+                            .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                    .andExpect(content().string(""));
+        }
+        verify(chatService, never()).getMessages(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should pass the after cursor on when the ETag changed")
+    void shouldPassAfterCursor() throws Exception {
+        // Given
+        when(chatService.getMessagesETag(sessionId, EMAIL)).thenReturn("\"18f3b-6\"");
+        when(chatService.getMessages(sessionId, EMAIL, 41L)).thenReturn(List.of());
+
+        // When / Then
+        mockMvc.perform(get("/api/chat/sessions/{id}/messages", sessionId)
+                        .param("after", "41")
+                        .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+        verify(chatService).getMessages(sessionId, EMAIL, 41L);
+    }
+
+    @Test
+    @DisplayName("Should stream one line per candidate and the turn id last")
+    void shouldStreamComparison() throws Exception {
+        // Given
+        UUID turnId = UUID.randomUUID();
+        when(chatService.startComparison(sessionId, "Hi", List.of("OPENAI", "DEEPSEEK"), EMAIL))
+                .thenReturn(onCandidate -> {
+                    onCandidate.accept(new CompareCandidate("DEEPSEEK", "ok", "Hello", null, null, 120, null));
+                    onCandidate.accept(new CompareCandidate("OPENAI", "timeout", null, null, null, 60000,
+                            "No answer within the deadline"));
+                    return turnId;
+                });
+
+        // When
+        MvcResult started = mockMvc.perform(post("/api/chat/sessions/{id}/compare", sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"prompt\":\"Hi\",\"providers\":[\"OPENAI\",\"DEEPSEEK\"]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertThat(body.lines().toList()).hasSize(3);
+        assertThat(body.lines().toList().get(0)).contains("\"provider\":\"DEEPSEEK\"", "\"status\":\"ok\"");
+        assertThat(body.lines().toList().get(1)).contains("\"status\":\"timeout\"");
+        assertThat(body.lines().toList().get(2)).isEqualTo("{\"turnId\":\"" + turnId + "\"}");
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After when the further providers exceed the rate limit")
+    void shouldRejectComparisonBeyondRateLimit() throws Exception {
+        // Given
+        when(chatService.startComparison(sessionId, "Hi", List.of("OPENAI", "DEEPSEEK"), EMAIL))
+                .thenThrow(new RateLimitExceededException("Too many requests - please slow down.",
+                        Duration.ofMillis(2500)));
+
+        // When / Then
+        mockMvc.perform(post("/api/chat/sessions/{id}/compare", sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"prompt\":\"Hi\",\"providers\":[\"OPENAI\",\"DEEPSEEK\"]}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(jsonPath("$.retryAfterSeconds").value(3));
+    }
+}
@@ -0,0 +1,114 @@
+package de.angr2301.genericllmadapter.domain.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für AdmissionScheduler
+ * Testet Kapazität, Warteschlange und Ablehnung pro Provider
+ */
+@DisplayName("AdmissionScheduler - Unit Tests")
+class AdmissionSchedulerTest {
+
+    private AdmissionProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AdmissionProperties();
+        properties.setMaxConcurrent(1);
+        properties.setMaxQueued(1);
+        properties.setMaxWait(Duration.ofSeconds(5));
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should admit a waiting call when a permit is closed")
+    void shouldAdmitOnRelease() throws Exception {
+        // Given
+        AdmissionScheduler scheduler = new AdmissionScheduler(properties, registry, null);
+        UUID user = UUID.randomUUID();
+        AdmissionScheduler.Permit first = scheduler.acquire("openai", null, user, Lane.INTERACTIVE, 10);
+        CompletableFuture<AdmissionScheduler.Permit> second = CompletableFuture.supplyAsync(
+                () -> scheduler.acquire("openai", null, UUID.randomUUID(), Lane.INTERACTIVE, 10));
+        await(() -> registry.get("llm.admission.queued").tag("lane", "interactive").gauge().value() == 1);
+
+        // When
+        first.close();
+        first.close();
+
+        // Then
+        second.get(5, TimeUnit.SECONDS).close();
+        assertThat(registry.get("llm.admission.inflight").gauge().value()).isZero();
+        assertThat(registry.get("llm.admission.wait").tag("outcome", "admitted").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject when the queue is full and keep providers apart")
+    void shouldRejectWhenQueueFull() throws Exception {
+        // Given
+        AdmissionScheduler scheduler = new AdmissionScheduler(properties, registry, null);
+        scheduler.acquire("openai", null, UUID.randomUUID(), Lane.INTERACTIVE, 10);
+        CompletableFuture.runAsync(() -> scheduler.acquire("openai", null, UUID.randomUUID(), Lane.INTERACTIVE, 10));
+        await(() -> registry.get("llm.admission.queued").tag("lane", "interactive").gauge().value() == 1);
+
+        // Then
+        assertThatThrownBy(() -> scheduler.acquire("openai", null, UUID.randomUUID(), Lane.BATCH, 10))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(((AdmissionRejectedException) e).getRetryAfter())
+                        .isEqualTo(Duration.ofSeconds(1)));
+        assertThatCode(() -> scheduler.acquire("local-vllm", null, UUID.randomUUID(), Lane.BATCH, 10).close())
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should give up after max-wait and use the per-provider limit")
+    void shouldTimeOut() {
+        // Given
+        properties.setMaxConcurrent(5);
+        properties.setProviders(Map.of("local-vllm", 1));
+        properties.setMaxWait(Duration.ofMillis(50));
+        AdmissionScheduler scheduler = new AdmissionScheduler(properties, registry, null);
+        scheduler.acquire("LOCAL_VLLM", null, UUID.randomUUID(), Lane.INTERACTIVE, 10);
+
+        // Then
+        assertThatThrownBy(() -> scheduler.acquire("LOCAL_VLLM", null, UUID.randomUUID(), Lane.INTERACTIVE, 10))
+                .isInstanceOf(AdmissionRejectedException.class);
+        assertThat(registry.get("llm.admission.wait").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+        assertThat(registry.get("llm.admission.queued").tag("lane", "interactive").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not queue anything when disabled")
+    void shouldPassThroughWhenDisabled() {
+        // Given
+        properties.setEnabled(false);
+        AdmissionScheduler scheduler = new AdmissionScheduler(properties, registry, null);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            scheduler.acquire("openai", null, UUID.randomUUID(), Lane.INTERACTIVE, 10);
+        }
+
+        // Then
+        assertThat(registry.find("llm.admission.inflight").gauge()).isNull();
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 5s").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package de.angr2301.genericllmadapter.domain.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für FairQueue
+ * Testet die Reihenfolge der Zulassung nach Lane, Mandant und Benutzer
+ */
+@DisplayName("FairQueue - Unit Tests")
+class FairQueueTest {
+
+    private static final Map<Lane, Integer> LANES = Map.of(Lane.INTERACTIVE, 9, Lane.BATCH, 1);
+
+    @Test
+    @DisplayName("Should interleave a light user with a heavy user's backlog")
+    void shouldShareBetweenUsers() {
+        // Given
+        FairQueue queue = new FairQueue(100, LANES);
+        UUID heavy = UUID.randomUUID();
+        UUID light = UUID.randomUUID();
+        for (int i = 0; i < 50; i++) {
+            queue.add(ticket(heavy, heavy, Lane.INTERACTIVE, 100, 1));
+        }
+        queue.add(ticket(light, light, Lane.INTERACTIVE, 100, 1));
+
+        // When
+        List<UUID> order = drain(queue, 3);
+
+        // Then
+        assertThat(order).containsExactly(heavy, light, heavy);
+    }
+
+    @Test
+    @DisplayName("Should share between tenants by weight, not by number of users")
+    void shouldShareBetweenTenantsByWeight() {
+        // Given: tenant a (weight 1) with three busy users, tenant b (weight 3) with one
+        FairQueue queue = new FairQueue(100, LANES);
+        UUID tenantA = UUID.randomUUID();
+        UUID tenantB = UUID.randomUUID();
+        List<UUID> usersA = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        UUID userB = UUID.randomUUID();
+        for (int i = 0; i < 100; i++) {
+            usersA.forEach(user -> queue.add(ticket(tenantA, user, Lane.INTERACTIVE, 10, 1)));
+            queue.add(ticket(tenantB, userB, Lane.INTERACTIVE, 10, 3));
+        }
+
+        // When
+        List<FairQueue.Ticket> admitted = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            admitted.add(queue.poll());
+        }
+
+        // Then
+        long b = admitted.stream().filter(ticket -> ticket.tenant.equals(tenantB)).count();
+        assertThat(b).isBetween(85L, 95L);
+    }
+
+    @Test
+    @DisplayName("Should give the batch lane its weighted share while interactive calls wait")
+    void shouldShareBetweenLanes() {
+        // Given
+        FairQueue queue = new FairQueue(100, LANES);
+        UUID user = UUID.randomUUID();
+        for (int i = 0; i < 100; i++) {
+            queue.add(ticket(user, user, Lane.INTERACTIVE, 100, 1));
+            queue.add(ticket(user, user, Lane.BATCH, 100, 1));
+        }
+
+        // When
+        List<FairQueue.Ticket> admitted = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            admitted.add(queue.poll());
+        }
+
+        // Then
+        assertThat(admitted).filteredOn(ticket -> ticket.lane == Lane.BATCH).hasSize(5);
+        assertThat(queue.size(Lane.BATCH)).isEqualTo(95);
+    }
+
+    @Test
+    @DisplayName("Should not let a lane that was idle catch up on its unused share")
+    void shouldLevelIdleLane() {
+        // Given: only batch calls for a while
+        FairQueue queue = new FairQueue(100, LANES);
+        UUID user = UUID.randomUUID();
+        for (int i = 0; i < 20; i++) {
+            queue.add(ticket(user, user, Lane.BATCH, 100, 1));
+        }
+        drain(queue, 10);
+
+        // When: interactive calls arrive
+        for (int i = 0; i < 20; i++) {
+            queue.add(ticket(user, user, Lane.INTERACTIVE, 100, 1));
+        }
+        List<FairQueue.Ticket> admitted = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            admitted.add(queue.poll());
+        }
+
+        // Then: batch still gets its share instead of waiting until interactive has served 9 x 1000 tokens
+        assertThat(admitted).filteredOn(ticket -> ticket.lane == Lane.BATCH).hasSizeBetween(1, 3);
+    }
+
+    @Test
+    @DisplayName("Should remove a waiting ticket exactly once")
+    void shouldRemoveTicket() {
+        // Given
+        FairQueue queue = new FairQueue(100, LANES);
+        UUID user = UUID.randomUUID();
+        FairQueue.Ticket first = ticket(user, user, Lane.INTERACTIVE, 100, 1);
+        FairQueue.Ticket second = ticket(user, user, Lane.INTERACTIVE, 100, 1);
+        queue.add(first);
+        queue.add(second);
+
+        // When
+        boolean removed = queue.remove(first);
+        boolean removedAgain = queue.remove(first);
+
+        // Then
+        assertThat(removed).isTrue();
+        assertThat(removedAgain).isFalse();
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.poll()).isSameAs(second);
+        assertThat(queue.poll()).isNull();
+    }
+
+    private static FairQueue.Ticket ticket(UUID tenant, UUID user, Lane lane, long cost, int weight) {
+        return new FairQueue.Ticket(tenant, user, lane, cost, weight);
+    }
+
+    private static List<UUID> drain(FairQueue queue, int count) {
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(queue.poll().user);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,208 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import de.angr2301.genericllmadapter.dto.analysis.AnalysisRequest;
+import de.angr2301.genericllmadapter.dto.analysis.AnalysisResponse;
+import de.angr2301.genericllmadapter.feign.AnalysisClient;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für AnalysisBatcher
+ * Testet das Zusammenfassen gleichzeitiger Analyse-Aufrufe und den Rückfall auf Einzelaufrufe
+ */
+@DisplayName("AnalysisBatcher - Unit Tests")
+class AnalysisBatcherTest {
+
+    private final FakeAnalysisClient client = new FakeAnalysisClient();
+    private AnalysisBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should send concurrent requests as one batch and hand each caller its own result")
+    void shouldCoalesceConcurrentRequests() throws Exception {
+        // Given
+        batcher = batcher(true, Duration.ofMillis(200));
+
+        // When
+        List<AnalysisResponse> responses = analyzeConcurrently(5);
+
+        // Then
+        assertThat(client.batches).hasSize(1);
+        assertThat(client.batches.get(0)).hasSize(5);
+        assertThat(client.singles).isEmpty();
+        for (int i = 0; i < responses.size(); i++) {
+            assertThat(responses.get(i).getNew_role()).isEqualTo("role-" + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Should send a lone request to /analyze")
+    void shouldSendSingleRequestDirectly() {
+        // Given
+        batcher = batcher(true, Duration.ofMillis(5));
+
+        // When
+        AnalysisResponse response = batcher.analyze(request(7));
+
+        // Then
+        assertThat(response.getNew_role()).isEqualTo("role-7");
+        assertThat(client.singles).hasSize(1);
+        assertThat(client.batches).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should fall back to single calls when the batch endpoint is missing")
+    void shouldFallBackWhenBatchEndpointIsMissing() throws Exception {
+        // Given
+        client.batchSupported = false;
+        batcher = batcher(true, Duration.ofMillis(200));
+
+        // When
+        List<AnalysisResponse> first = analyzeConcurrently(3);
+        List<AnalysisResponse> second = analyzeConcurrently(3);
+
+        // Then
+        assertThat(first).extracting(AnalysisResponse::getNew_role).containsExactly("role-0", "role-1", "role-2");
+        assertThat(second).extracting(AnalysisResponse::getNew_role).containsExactly("role-0", "role-1", "role-2");
+        assertThat(client.batchAttempts).isEqualTo(1);
+        assertThat(client.singles).hasSize(6);
+    }
+
+    @Test
+    @DisplayName("Should by default wait long enough for a slow batch call and the single call after it")
+    void shouldWaitForSingleCallAfterMissingBatchEndpoint() throws Exception {
+        // Given: each upstream call takes 300 ms of a 400 ms read timeout, no wait-timeout configured
+        client.batchSupported = false;
+        client.delayMillis = 300;
+        batcher = new AnalysisBatcher(client, new SimpleMeterRegistry(), true, Duration.ofMillis(200), 32,
+                null, 400, Duration.ofMinutes(5), false);
+
+        // When
+        List<AnalysisResponse> responses = analyzeConcurrently(2);
+
+        // Then
+        assertThat(responses).extracting(AnalysisResponse::getNew_role).containsExactly("role-0", "role-1");
+        assertThat(client.singles).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should fail every caller of a batch with the wrong number of results")
+    void shouldFailOnResultCountMismatch() {
+        // Given
+        client.dropLastResult = true;
+        batcher = batcher(true, Duration.ofMillis(200));
+
+        // When / Then
+        assertThatThrownBy(() -> analyzeConcurrently(2))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .rootCause().hasMessageContaining("2 requests answered with 1 results");
+    }
+
+    @Test
+    @DisplayName("Should call the client directly when disabled")
+    void shouldBypassWhenDisabled() throws Exception {
+        // Given
+        batcher = batcher(false, Duration.ofMillis(200));
+
+        // When
+        analyzeConcurrently(3);
+
+        // Then
+        assertThat(client.singles).hasSize(3);
+        assertThat(client.batches).isEmpty();
+    }
+
+    private AnalysisBatcher batcher(boolean enabled, Duration window) {
+        return new AnalysisBatcher(client, new SimpleMeterRegistry(), enabled, window, 32,
+                Duration.ofSeconds(5), 10_000, Duration.ofMinutes(5), false);
+    }
+
+    private List<AnalysisResponse> analyzeConcurrently(int count) throws Exception {
+        try (ExecutorService callers = Executors.newFixedThreadPool(count)) {
+            List<Future<AnalysisResponse>> futures = IntStream.range(0, count)
+                    .mapToObj(i -> callers.submit(() -> batcher.analyze(request(i))))
+                    .toList();
+            List<AnalysisResponse> responses = new ArrayList<>();
+            for (Future<AnalysisResponse> future : futures) {
+                responses.add(future.get());
+            }
+            return responses;
+        }
+    }
+
+    private static AnalysisRequest request(int i) {
+        return new AnalysisRequest("session", "prompt " + i, "reply", "role-" + i);
+    }
+
+    private static AnalysisResponse response(AnalysisRequest request) {
+        AnalysisResponse response = new AnalysisResponse();
+        response.setNew_role(request.getPrev_role());
+        response.setMetrics(Map.of());
+        return response;
+    }
+
+    /** Answers with the request's prev_role as new_role */
+    private static class FakeAnalysisClient implements AnalysisClient {
+
+        final List<AnalysisRequest> singles = new CopyOnWriteArrayList<>();
+        final List<List<AnalysisRequest>> batches = new CopyOnWriteArrayList<>();
+        volatile boolean batchSupported = true;
+        volatile boolean dropLastResult;
+        volatile int batchAttempts;
+        volatile long delayMillis;
+
+        @Override
+        public AnalysisResponse analyze(AnalysisRequest request) {
+            delay();
+            singles.add(request);
+            return response(request);
+        }
+
+        @Override
+        public synchronized List<AnalysisResponse> analyzeBatch(List<AnalysisRequest> requests) {
+            batchAttempts++;
+            delay();
+            if (!batchSupported) {
+                Request request = Request.create(Request.HttpMethod.POST, "http://analysis/analyze_batch",
+                        Map.of(), new byte[0], StandardCharsets.UTF_8, null);
+                throw FeignException.errorStatus("AnalysisClient#analyzeBatch", Response.builder()
+                        .status(404).reason("Not Found").request(request).headers(Map.of()).build());
+            }
+            batches.add(requests);
+            List<AnalysisResponse> responses = requests.stream().map(AnalysisBatcherTest::response).toList();
+            return dropLastResult ? responses.subList(0, responses.size() - 1) : responses;
+        }
+
+        private void delay() {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
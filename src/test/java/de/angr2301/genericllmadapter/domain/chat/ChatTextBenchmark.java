@@ -0,0 +1,94 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JMH: text handling per chat turn, the think block split in ChatService and LlmMessage.getText.
+ * compileEachCall is splitReasoning as it was before the pattern became a constant (same work otherwise);
+ * joined is getText built with a StringBuilder as reference for the stream reduce.
+ *
+ * mvn -P benchmark -DskipTests verify -Djmh.args="ChatTextBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatTextBenchmark {
+
+    /** Parts of the message passed to getText */
+    @Param({"1", "8"})
+    public int parts;
+
+    private String replyWithThink;
+    private String plainReply;
+    private LlmMessage message;
+
+    @Setup
+    public void setUp() {
+        String answer = "Here is the answer with some detail. ".repeat(30);
+        replyWithThink = "<think>\n" + "Weighing the options step by step. ".repeat(60) + "\n</think>\n\n" + answer;
+        plainReply = answer;
+        List<LlmMessage.Part> list = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            list.add(new LlmMessage.Part("Part " + i + " of the message. ".repeat(20)));
+        }
+        message = new LlmMessage("user", list);
+    }
+
+    @Benchmark
+    public ChatService.SplitReply splitReasoning() {
+        return ChatService.splitReasoning(replyWithThink);
+    }
+
+    @Benchmark
+    public ChatService.SplitReply splitWithoutReasoning() {
+        return ChatService.splitReasoning(plainReply);
+    }
+
+    @Benchmark
+    public ChatService.SplitReply compileEachCall() {
+        Matcher matcher = Pattern.compile("<think>(.*?)</think>", Pattern.DOTALL).matcher(replyWithThink);
+        if (!matcher.find()) {
+            return new ChatService.SplitReply(replyWithThink, null);
+        }
+        return new ChatService.SplitReply(replyWithThink.replace(matcher.group(0), "").trim(),
+                matcher.group(1).trim());
+    }
+
+    @Benchmark
+    public String getText() {
+        return message.getText();
+    }
+
+    @Benchmark
+    public String joined() {
+        StringBuilder text = new StringBuilder();
+        for (LlmMessage.Part part : message.getParts()) {
+            if (part.getText() != null && !part.getText().isEmpty()) {
+                if (!text.isEmpty()) {
+                    text.append('\n');
+                }
+                text.append(part.getText());
+            }
+        }
+        return text.toString();
+    }
+}
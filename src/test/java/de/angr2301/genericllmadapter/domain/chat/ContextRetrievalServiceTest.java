@@ -0,0 +1,166 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import de.angr2301.genericllmadapter.domain.embedding.EmbeddingClient;
+import de.angr2301.genericllmadapter.domain.embedding.EmbeddingClientFactory;
+import de.angr2301.genericllmadapter.domain.user.User;
+import de.angr2301.genericllmadapter.domain.vector.ContextVectorIndex;
+import de.angr2301.genericllmadapter.domain.vector.VectorHit;
+import de.angr2301.genericllmadapter.repository.ContextContent;
+import de.angr2301.genericllmadapter.repository.ContextVectorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit Tests für ContextRetrievalService
+ * Testet die Freigabe der Embeddings je Provider, das Packen ins Token-Budget und das Einfügen des Kontexts
+ */
+@DisplayName("ContextRetrievalService - Unit Tests")
+class ContextRetrievalServiceTest {
+
+    private final EmbeddingClientFactory embeddingClientFactory = mock(EmbeddingClientFactory.class);
+    private final ContextVectorIndex contextVectorIndex = mock(ContextVectorIndex.class);
+    private final ContextVectorRepository contextVectorRepository = mock(ContextVectorRepository.class);
+    private ContextRetrievalService service;
+    private Session session;
+
+    @BeforeEach
+    void setUp() {
+        service = new ContextRetrievalService(contextVectorRepository, embeddingClientFactory,
+                contextVectorIndex, mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class),
+                List.of("openai", "local-vllm"));
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "scope", "session");
+        ReflectionTestUtils.setField(service, "topK", 5);
+        ReflectionTestUtils.setField(service, "tokenBudget", 10);
+        ReflectionTestUtils.setField(service, "maxDistance", 0.5);
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        session = Session.builder().id(UUID.randomUUID()).user(user).build();
+    }
+
+    @Test
+    @DisplayName("Should embed the message for a provider in rag.providers")
+    void shouldRetrieveForAllowedProvider() {
+        // Given
+        EmbeddingClient embeddingClient = mock(EmbeddingClient.class);
+        when(embeddingClientFactory.createEmbeddingClient("key")).thenReturn(embeddingClient);
+        when(embeddingClient.embed("Hello")).thenReturn(new float[]{1f, 0f});
+        when(contextVectorIndex.isReady()).thenReturn(true);
+        when(contextVectorIndex.searchSession(eq(session.getId()), any(), anyInt())).thenReturn(List.of());
+
+        // When
+        ContextRetrievalService.Retrieval retrieval = service.retrieve(session, "Hello", "LOCAL_VLLM", "key");
+
+        // Then
+        assertThat(retrieval.embedding()).containsExactly(1f, 0f);
+        assertThat(retrieval.hasContext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should not send the message to the embedding endpoint for other providers")
+    void shouldSkipRetrievalForOtherProviders() {
+        // When
+        ContextRetrievalService.Retrieval single = service.retrieve(session, "Hello", "DEEPSEEK", "key");
+        ContextRetrievalService.Retrieval compared = service.retrieve(session, "Hello",
+                List.of("OPENAI", "DEEPSEEK"), "key");
+
+        // Then
+        assertThat(single.embedding()).isNull();
+        assertThat(compared.embedding()).isNull();
+        verifyNoInteractions(embeddingClientFactory);
+    }
+
+    @Test
+    @DisplayName("Should skip index hits whose row has no content")
+    void shouldSkipHitsWithoutContent() {
+        // Given
+        UUID empty = UUID.randomUUID();
+        UUID filled = UUID.randomUUID();
+        EmbeddingClient embeddingClient = mock(EmbeddingClient.class);
+        when(embeddingClientFactory.createEmbeddingClient("key")).thenReturn(embeddingClient);
+        when(embeddingClient.embed("Hello")).thenReturn(new float[]{1f, 0f});
+        when(contextVectorIndex.isReady()).thenReturn(true);
+        when(contextVectorIndex.searchSession(eq(session.getId()), any(), anyInt()))
+                .thenReturn(List.of(new VectorHit(empty, 0.1f), new VectorHit(filled, 0.2f)));
+        when(contextVectorRepository.findContentByIdIn(List.of(empty, filled)))
+                .thenReturn(List.of(content(empty, null), content(filled, "fact")));
+
+        // When
+        ContextRetrievalService.Retrieval retrieval = service.retrieve(session, "Hello", "OPENAI", "key");
+
+        // Then
+        assertThat(retrieval.snippets()).containsExactly("fact");
+    }
+
+    @Test
+    @DisplayName("Should pack the closest snippets that fit the token budget")
+    void shouldPackWithinBudget() {
+        // Given: 10 tokens, max distance 0.5
+        List<ContextRetrievalService.Match> matches = List.of(
+                new ContextRetrievalService.Match("short one", 0.1),
+                new ContextRetrievalService.Match("a much longer snippet that does not fit at all", 0.2),
+                new ContextRetrievalService.Match("tiny", 0.3),
+                new ContextRetrievalService.Match("far", 0.6));
+
+        // When
+        List<String> snippets = service.pack(matches);
+
+        // Then
+        assertThat(snippets).containsExactly("short one", "tiny");
+    }
+
+    @Test
+    @DisplayName("Should insert the context directly before the latest user message")
+    void shouldInjectBeforeLatestMessage() {
+        // Given
+        List<LlmMessage> messages = List.of(LlmMessage.user("First"), LlmMessage.assistant("Answer"),
+                LlmMessage.user("Second"));
+        ContextRetrievalService.Retrieval retrieval = new ContextRetrievalService.Retrieval(
+                new float[]{1f}, List.of("earlier fact"));
+
+        // When
+        List<LlmMessage> result = service.inject(messages, retrieval);
+
+        // Then
+        assertThat(result).hasSize(4);
+        assertThat(result.subList(0, 2)).isEqualTo(messages.subList(0, 2));
+        assertThat(result.get(2).getRole()).isEqualTo("system");
+        assertThat(result.get(2).getText()).endsWith("\n- earlier fact");
+        assertThat(result.get(3).getText()).isEqualTo("Second");
+    }
+
+    @Test
+    @DisplayName("Should leave the messages alone without context")
+    void shouldNotInjectWithoutContext() {
+        // Given
+        List<LlmMessage> messages = List.of(LlmMessage.user("Hello"));
+
+        // When / Then
+        assertThat(service.inject(messages, ContextRetrievalService.Retrieval.EMPTY)).isSameAs(messages);
+    }
+
+    private static ContextContent content(UUID id, String content) {
+        return new ContextContent() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getContent() {
+                return content;
+            }
+        };
+    }
+}
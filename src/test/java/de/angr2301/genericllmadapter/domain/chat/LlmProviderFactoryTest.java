@@ -7,6 +7,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.*;
@@ -19,6 +20,9 @@ import static org.assertj.core.api.Assertions.*;
 @DisplayName("LlmProviderFactory - Unit Tests")
 class LlmProviderFactoryTest {
 
+    @Mock
+    private LlmTelemetry telemetry;
+
     @InjectMocks
     private LlmProviderFactory factory;
 
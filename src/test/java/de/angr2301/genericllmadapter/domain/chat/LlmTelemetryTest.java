@@ -0,0 +1,122 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für LlmTelemetry
+ * Testet die Metriken und JFR-Events eines OpenAI-kompatiblen Clients gegen einen lokalen HTTP-Stub
+ */
+@DisplayName("LlmTelemetry - Unit Tests")
+class LlmTelemetryTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private HttpServer server;
+    private OpenAiCompatibleClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = (status.get() == 200
+                    ? "{\"choices\":[{\"message\":{\"content\":\"Hi\"}}],\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":30}}"
+                    : "{\"error\":\"overloaded\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+        client = new OpenAiCompatibleClient(baseUrl, "test-model", "key",
+                new LlmTelemetry(registry).forProvider("OPENAI", "test-model"),
+                HttpClient.newHttpClient());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should record latency, first byte, sizes and token throughput of successful calls")
+    void shouldRecordSuccessfulCall() {
+        // When
+        LlmResponse response = client.generateContent(List.of(new LlmMessage("user", List.of(new LlmMessage.Part("Hello")))));
+
+        // Then
+        assertThat(response.getUsage().getTotalTokens()).isEqualTo(42);
+        assertThat(registry.get("llm.requests").tags("provider", "OPENAI", "model", "test-model", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("llm.time.to.first.token").timer().count()).isEqualTo(1);
+        assertThat(registry.get("llm.request.size").summary().totalAmount()).isPositive();
+        assertThat(registry.get("llm.response.size").summary().totalAmount()).isPositive();
+        assertThat(registry.get("llm.output.tokens.per.second").summary().count()).isEqualTo(1);
+        assertThat(registry.get("llm.tokens").tag("type", "completion").counter().count()).isEqualTo(30);
+        assertThat(registry.get("llm.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should count errors by status code")
+    void shouldRecordErrorStatus() {
+        // Given
+        status.set(503);
+
+        // When / Then
+        assertThatThrownBy(() -> client.generateContent(List.of(new LlmMessage("user", List.of(new LlmMessage.Part("Hello"))))))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(registry.get("llm.errors").tag("status", "503").counter().count()).isEqualTo(1);
+        assertThat(registry.get("llm.requests").tags("outcome", "error", "status", "503").timer().count()).isEqualTo(1);
+        assertThat(registry.get("llm.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should emit a JFR event per call while a recording is running")
+    void shouldEmitFlightRecorderEvent() throws IOException {
+        // Given
+        Path file = Files.createTempFile("llm-call", ".jfr");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("de.angr2301.genericllmadapter.LlmCall");
+            recording.start();
+
+            // When
+            client.generateContent(List.of(new LlmMessage("user", List.of(new LlmMessage.Part("Hello")))));
+
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // Then
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("provider")).isEqualTo("OPENAI");
+        assertThat(event.getString("model")).isEqualTo("test-model");
+        assertThat(event.getString("status")).isEqualTo("200");
+        assertThat(event.getLong("requestBytes")).isPositive();
+        assertThat(event.getInt("completionTokens")).isEqualTo(30);
+        assertThat(event.getDuration("timeToFirstByte")).isPositive();
+    }
+}
@@ -0,0 +1,133 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integrationstest für den Nachrichten-Cursor (interaction_logs.seq, V14)
+ * Testet, dass ein pollender Client bei zwei überlappenden Turns keine Nachricht überspringt:
+ * ChatService sperrt die Session-Zeile, bevor ein Turn geschrieben wird (SessionRepository.findWithLockById).
+ *
+ * Benötigt eine lokale Postgres-Datenbank, z.B.:
+ * CHAT_TEST_JDBC_URL=jdbc:postgresql://127.0.0.1:5432/postgres?user=postgres&password=postgres mvn test
+ */
+@EnabledIfEnvironmentVariable(named = "CHAT_TEST_JDBC_URL", matches = ".+")
+@DisplayName("Message cursor - Integration Tests")
+class MessageCursorTest {
+
+    private static final String SCHEMA = "message_cursor_test";
+
+    @BeforeAll
+    static void createTables() throws IOException {
+        // interaction_logs as before V14, then V14 itself
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource());
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("CREATE TABLE " + SCHEMA + ".sessions (id UUID PRIMARY KEY)");
+        jdbc.execute("CREATE TABLE " + SCHEMA + ".interaction_logs (id UUID PRIMARY KEY, session_id UUID, "
+                + "role TEXT NOT NULL, timestamp TIMESTAMP)");
+        try (InputStream in = MessageCursorTest.class.getResourceAsStream("/db/migration/V14__Interaction_Log_Seq.sql")) {
+            jdbc.execute(new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("log_data.", SCHEMA + "."));
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand a polling client every message of two overlapping turns")
+    void shouldNotSkipMessagesOfOverlappingTurns() throws Exception {
+        // Given
+        UUID sessionId = UUID.randomUUID();
+        new JdbcTemplate(dataSource()).update("INSERT INTO " + SCHEMA + ".sessions VALUES (?)", sessionId);
+        LocalDateTime receivedA = LocalDateTime.now().minusSeconds(90);
+        LocalDateTime receivedB = LocalDateTime.now();
+        List<String> seen = new ArrayList<>();
+        long cursor = poll(sessionId, 0, seen);
+
+        // When: turn A (a slow comparison) writes first but has not committed yet
+        try (Connection turnA = dataSource().getConnection()) {
+            turnA.setAutoCommit(false);
+            lockSession(turnA, sessionId);
+            insert(turnA, sessionId, "USER-A", receivedA);
+            insert(turnA, sessionId, "CANDIDATE-A", null);
+
+            // turn B arrived later and finished its reply meanwhile
+            CompletableFuture<Void> turnB = CompletableFuture.runAsync(() -> {
+                try (Connection connection = dataSource().getConnection()) {
+                    connection.setAutoCommit(false);
+                    lockSession(connection, sessionId);
+                    insert(connection, sessionId, "USER-B", receivedB);
+                    insert(connection, sessionId, "ASSISTANT-B", null);
+                    connection.commit();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Thread.sleep(200);
+            assertThat(turnB).isNotDone();
+            cursor = poll(sessionId, cursor, seen);
+
+            turnA.commit();
+            turnB.get(5, TimeUnit.SECONDS);
+        }
+        poll(sessionId, cursor, seen);
+
+        // Then: A's user message is older than B's, a timestamp cursor would have skipped it
+        assertThat(seen).containsExactly("USER-A", "CANDIDATE-A", "USER-B", "ASSISTANT-B");
+    }
+
+    /** GET .../messages?after=cursor; returns the new cursor */
+    private static long poll(UUID sessionId, long after, List<String> seen) {
+        List<Long> seqs = new ArrayList<>();
+        new JdbcTemplate(dataSource()).query("SELECT seq, role FROM " + SCHEMA + ".interaction_logs "
+                + "WHERE session_id = ? AND seq > ? ORDER BY seq", rs -> {
+            seqs.add(rs.getLong("seq"));
+            seen.add(rs.getString("role"));
+        }, sessionId, after);
+        return seqs.isEmpty() ? after : seqs.get(seqs.size() - 1);
+    }
+
+    private static void lockSession(Connection connection, UUID sessionId) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement(
+                "SELECT id FROM " + SCHEMA + ".sessions WHERE id = ? FOR UPDATE")) {
+            lock.setObject(1, sessionId);
+            lock.executeQuery().close();
+        }
+    }
+
+    private static void insert(Connection connection, UUID sessionId, String role, LocalDateTime timestamp)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + SCHEMA
+                + ".interaction_logs (id, session_id, role, timestamp) VALUES (?, ?, ?, ?)")) {
+            insert.setObject(1, UUID.randomUUID());
+            insert.setObject(2, sessionId);
+            insert.setString(3, role);
+            insert.setTimestamp(4, Timestamp.valueOf(timestamp == null ? LocalDateTime.now() : timestamp));
+            insert.executeUpdate();
+        }
+    }
+
+    private static PGSimpleDataSource dataSource() {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(System.getenv("CHAT_TEST_JDBC_URL"));
+        return dataSource;
+    }
+}
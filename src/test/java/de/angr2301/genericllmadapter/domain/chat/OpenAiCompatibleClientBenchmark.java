@@ -0,0 +1,78 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: request encoding and response parsing of the OpenAI-compatible client, without the HTTP call.
+ * Histories alternate user and assistant turns of about 600 characters.
+ *
+ * mvn -P benchmark -DskipTests verify -Djmh.args="OpenAiCompatibleClientBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OpenAiCompatibleClientBenchmark {
+
+    /** Messages in the request history */
+    @Param({"4", "32"})
+    public int messages;
+
+    private OpenAiCompatibleClient client;
+    private List<LlmMessage> history;
+    private byte[] responseBody;
+
+    @Setup
+    public void setUp() {
+        // Production logs at INFO; the default test configuration would log every parse at DEBUG
+        ((Logger) LoggerFactory.getLogger(OpenAiCompatibleClient.class)).setLevel(Level.INFO);
+        client = new OpenAiCompatibleClient("http://localhost/v1", "gpt-4o-mini", "key",
+                new LlmTelemetry(new SimpleMeterRegistry()).forProvider("OPENAI", "gpt-4o-mini"),
+                HttpClient.newHttpClient());
+        history = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            String text = ("Turn " + i + ": the quick brown fox jumps over the lazy dog, \"quoted\" and ünïcödé. ").repeat(7);
+            history.add(i % 2 == 0 ? LlmMessage.user(text) : LlmMessage.assistant(text));
+        }
+        String reply = "<think>" + "Weighing the options step by step. ".repeat(30) + "</think>"
+                + "Here is the answer with a line break\\nand some detail. ".repeat(20);
+        responseBody = ("{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1700000000,"
+                + "\"model\":\"gpt-4o-mini\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+                + "\"content\":\"" + reply + "\"},\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":1200,\"completion_tokens\":450,\"total_tokens\":1650}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeRequest() throws IOException {
+        return client.encodeRequest(history);
+    }
+
+    @Benchmark
+    public LlmResponse parseResponse() throws IOException {
+        return client.parseResponse(responseBody);
+    }
+}
@@ -0,0 +1,104 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für ProviderFanOut
+ * Testet parallele Provider-Aufrufe mit Fristen
+ */
+@DisplayName("ProviderFanOut - Unit Tests")
+class ProviderFanOutTest {
+
+    private static final Map<String, Long> DELAYS = Map.of("OPENAI", 300L, "DEEPSEEK", 100L, "LOCAL_VLLM", 200L);
+
+    @Test
+    @DisplayName("Should take as long as the slowest provider and report in finishing order")
+    void shouldRunConcurrently() throws Exception {
+        // Given
+        List<ProviderFanOut.Outcome<String>> outcomes = new ArrayList<>();
+        long start = System.nanoTime();
+
+        // When
+        ProviderFanOut.run(List.of("OPENAI", "DEEPSEEK", "LOCAL_VLLM"), this::answerAfterDelay,
+                provider -> Duration.ofSeconds(5), Thread.ofVirtual().factory(), outcomes::add);
+
+        // Then
+        long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        assertThat(millis).isBetween(300L, 550L);
+        assertThat(outcomes).extracting(ProviderFanOut.Outcome::provider)
+                .containsExactly("DEEPSEEK", "LOCAL_VLLM", "OPENAI");
+        assertThat(outcomes).extracting(ProviderFanOut.Outcome::result)
+                .containsExactly("DEEPSEEK answer", "LOCAL_VLLM answer", "OPENAI answer");
+    }
+
+    @Test
+    @DisplayName("Should interrupt a call at its provider's deadline and report it as timed out")
+    void shouldCutOffAtDeadline() throws Exception {
+        // Given
+        List<ProviderFanOut.Outcome<String>> outcomes = new ArrayList<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        // When
+        ProviderFanOut.run(List.of("OPENAI", "DEEPSEEK"), provider -> {
+                    if (provider.equals("OPENAI")) {
+                        try {
+                            Thread.sleep(10_000);
+                        } catch (InterruptedException e) {
+                            interrupted.set(true);
+                        }
+                    }
+                    return answerAfterDelay(provider);
+                },
+                provider -> provider.equals("OPENAI") ? Duration.ofMillis(150) : Duration.ofSeconds(5),
+                Thread.ofVirtual().factory(), outcomes::add);
+
+        // Then
+        assertThat(outcomes).hasSize(2);
+        assertThat(outcomes.get(0).provider()).isEqualTo("DEEPSEEK");
+        assertThat(outcomes.get(1).provider()).isEqualTo("OPENAI");
+        assertThat(outcomes.get(1).timedOut()).isTrue();
+        assertThat(outcomes.get(1).result()).isNull();
+        Thread.sleep(50);
+        assertThat(interrupted).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should report a failing provider without affecting the others")
+    void shouldReportErrors() throws Exception {
+        // Given
+        List<ProviderFanOut.Outcome<String>> outcomes = new ArrayList<>();
+
+        // When
+        ProviderFanOut.run(List.of("HUGGINGFACE", "DEEPSEEK"), provider -> {
+                    if (provider.equals("HUGGINGFACE")) {
+                        throw new IllegalStateException("API error: 503");
+                    }
+                    return answerAfterDelay(provider);
+                },
+                provider -> Duration.ofSeconds(5), Thread.ofPlatform().factory(), outcomes::add);
+
+        // Then
+        assertThat(outcomes).extracting(ProviderFanOut.Outcome::provider).containsExactly("HUGGINGFACE", "DEEPSEEK");
+        assertThat(outcomes.get(0).error()).hasMessage("API error: 503");
+        assertThat(outcomes.get(0).timedOut()).isFalse();
+        assertThat(outcomes.get(1).result()).isEqualTo("DEEPSEEK answer");
+    }
+
+    private String answerAfterDelay(String provider) {
+        try {
+            Thread.sleep(DELAYS.get(provider));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return provider + " answer";
+    }
+}
@@ -0,0 +1,89 @@
+package de.angr2301.genericllmadapter.domain.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für TrafficCapture
+ * Testet das anonymisierte Mitschreiben der Chat-Anfragen
+ */
+@DisplayName("TrafficCapture - Unit Tests")
+class TrafficCaptureTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should write one line per message without prompts, emails or session ids")
+    void shouldWriteAnonymizedLines() throws Exception {
+        // Given
+        Path file = directory.resolve("capture/traffic.jsonl");
+        TrafficCapture capture = new TrafficCapture(true, file.toString(), "test-salt", 100);
+        UUID sessionId = UUID.randomUUID();
+
+        // When
+        capture.record(sessionId, "alice@example.com", "OPENAI", "What is my secret plan?");
+        capture.record(sessionId, "alice@example.com", "OPENAI", "What is my secret plan?");
+        capture.record(UUID.randomUUID(), "bob@example.com", "LOCAL_VLLM", "Hi");
+        capture.close();
+
+        // Then
+        String content = Files.readString(file);
+        assertThat(content).doesNotContain("secret", "alice", "bob", sessionId.toString());
+        List<JsonNode> lines = content.lines().map(this::parse).toList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0).path("promptChars").asInt()).isEqualTo(23);
+        assertThat(lines.get(0).path("provider").asText()).isEqualTo("OPENAI");
+        assertThat(lines.get(1).path("session").asText()).isEqualTo(lines.get(0).path("session").asText());
+        assertThat(lines.get(1).path("promptHash").asText()).isEqualTo(lines.get(0).path("promptHash").asText());
+        assertThat(lines.get(2).path("user").asText()).isNotEqualTo(lines.get(0).path("user").asText());
+        assertThat(lines.get(2).path("gapMs").asLong()).isNotNegative();
+    }
+
+    @Test
+    @DisplayName("Should not derive the same keys with a different salt")
+    void shouldKeyHashesWithSalt() {
+        // Given
+        TrafficCapture first = new TrafficCapture(false, directory.resolve("a.jsonl").toString(), "one", 10);
+        TrafficCapture second = new TrafficCapture(false, directory.resolve("b.jsonl").toString(), "two", 10);
+
+        // Then
+        assertThat(first.key("alice@example.com")).isEqualTo(first.key("alice@example.com"));
+        assertThat(first.key("alice@example.com")).isNotEqualTo(second.key("alice@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should not write anything when disabled")
+    void shouldDoNothingWhenDisabled() throws Exception {
+        // Given
+        Path file = directory.resolve("traffic.jsonl");
+        TrafficCapture capture = new TrafficCapture(false, file.toString(), "", 10);
+
+        // When
+        capture.record(UUID.randomUUID(), "alice@example.com", "OPENAI", "Hello");
+        capture.close();
+
+        // Then
+        assertThat(file).doesNotExist();
+    }
+
+    private JsonNode parse(String line) {
+        try {
+            return JSON.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
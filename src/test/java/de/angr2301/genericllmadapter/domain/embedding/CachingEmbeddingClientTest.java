@@ -0,0 +1,88 @@
+package de.angr2301.genericllmadapter.domain.embedding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit Tests für CachingEmbeddingClient
+ * Testet Normalisierung, Deduplizierung und dass nur Cache-Misses eingebettet werden
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingEmbeddingClient - Unit Tests")
+class CachingEmbeddingClientTest {
+
+    @Mock
+    private EmbeddingClient delegate;
+
+    @Mock
+    private EmbeddingCache cache;
+
+    private CachingEmbeddingClient client;
+
+    @BeforeEach
+    void setUp() {
+        when(delegate.getModelName()).thenReturn("test-model");
+        client = new CachingEmbeddingClient(delegate, cache, 3);
+    }
+
+    @Test
+    @DisplayName("Should hash texts that only differ in whitespace identically")
+    void shouldNormalizeBeforeHashing() {
+        // When / Then
+        assertThat(CachingEmbeddingClient.hash("  hello \n\t world "))
+                .isEqualTo(CachingEmbeddingClient.hash("hello world"))
+                .hasSize(64);
+        assertThat(CachingEmbeddingClient.hash("hello world")).isNotEqualTo(CachingEmbeddingClient.hash("Hello world"));
+    }
+
+    @Test
+    @DisplayName("Should embed only uncached texts once and keep input order")
+    @SuppressWarnings("unchecked")
+    void shouldEmbedOnlyMisses() {
+        // Given
+        float[] cached = {1f, 0f, 0f};
+        float[] computed = {0f, 1f, 0f};
+        String cachedHash = CachingEmbeddingClient.hash("cached");
+        when(cache.getAll(eq("test-model:3"), anyCollection())).thenReturn(Map.of(cachedHash, cached));
+        when(delegate.embedAll(List.of("new"))).thenReturn(List.of(computed));
+
+        // When
+        List<float[]> vectors = client.embedAll(List.of("new", "cached", "new "));
+
+        // Then
+        assertThat(vectors).containsExactly(computed, cached, computed);
+        verify(delegate).embedAll(List.of("new"));
+        ArgumentCaptor<Map<String, float[]>> stored = ArgumentCaptor.forClass(Map.class);
+        verify(cache).putAll(eq("test-model:3"), stored.capture());
+        assertThat(stored.getValue()).containsOnlyKeys(CachingEmbeddingClient.hash("new"));
+    }
+
+    @Test
+    @DisplayName("Should not call the provider when every text is cached")
+    void shouldServeFullHitsFromCache() {
+        // Given
+        float[] cached = {1f, 0f, 0f};
+        when(cache.getAll(eq("test-model:3"), anyCollection()))
+                .thenReturn(Map.of(CachingEmbeddingClient.hash("cached"), cached));
+
+        // When
+        List<float[]> vectors = client.embedAll(List.of("cached"));
+
+        // Then
+        assertThat(vectors).containsExactly(cached);
+        verify(delegate, never()).embedAll(anyList());
+        verify(cache, never()).putAll(anyString(), anyMap());
+    }
+}
@@ -0,0 +1,59 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für PgBinaryCopyWriter
+ * Testet das Binärformat von COPY inklusive pgvector-Feld
+ */
+@DisplayName("PgBinaryCopyWriter - Unit Tests")
+class PgBinaryCopyWriterTest {
+
+    @Test
+    @DisplayName("Should encode header, fields and trailer in PostgreSQL binary COPY format")
+    void shouldEncodeBinaryCopy() throws Exception {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UUID id = new UUID(1L, 2L);
+
+        // When
+        try (PgBinaryCopyWriter writer = new PgBinaryCopyWriter(bytes)) {
+            writer.startRow(4);
+            writer.writeUuid(id);
+            writer.writeText("ä");
+            writer.writeVector(new float[]{1.5f, -2f});
+            writer.writeTimestamp(OffsetDateTime.of(2000, 1, 1, 0, 0, 1, 0, ZoneOffset.UTC));
+        }
+
+        // Then
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        byte[] signature = new byte[11];
+        buffer.get(signature);
+        assertThat(signature).isEqualTo(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+        assertThat(buffer.getInt()).isZero();
+        assertThat(buffer.getInt()).isZero();
+        assertThat(buffer.getShort()).isEqualTo((short) 4);
+        assertThat(buffer.getInt()).isEqualTo(16);
+        assertThat(new UUID(buffer.getLong(), buffer.getLong())).isEqualTo(id);
+        assertThat(buffer.getInt()).isEqualTo(2); // UTF-8 bytes
+        buffer.position(buffer.position() + 2);
+        assertThat(buffer.getInt()).isEqualTo(4 + 2 * 4);
+        assertThat(buffer.getShort()).isEqualTo((short) 2); // dimensions
+        assertThat(buffer.getShort()).isZero();
+        assertThat(buffer.getFloat()).isEqualTo(1.5f);
+        assertThat(buffer.getFloat()).isEqualTo(-2f);
+        assertThat(buffer.getInt()).isEqualTo(8);
+        assertThat(buffer.getLong()).isEqualTo(1_000_000L);
+        assertThat(buffer.getShort()).isEqualTo((short) -1);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+}
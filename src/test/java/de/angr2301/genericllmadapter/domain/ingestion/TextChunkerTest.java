@@ -0,0 +1,71 @@
+package de.angr2301.genericllmadapter.domain.ingestion;
+
+import de.angr2301.genericllmadapter.domain.chat.TokenEstimator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für TextChunker
+ * Testet Chunk-Größe, Schnittpunkte und Überlappung
+ */
+@DisplayName("TextChunker - Unit Tests")
+class TextChunkerTest {
+
+    @Test
+    @DisplayName("Should keep short text in a single chunk")
+    void shouldKeepShortText() {
+        // Given
+        TextChunker chunker = new TextChunker(100, 10);
+
+        // When
+        List<String> chunks = chunker.chunk("  A short paragraph.  ");
+
+        // Then
+        assertThat(chunks).containsExactly("A short paragraph.");
+    }
+
+    @Test
+    @DisplayName("Should split long text within the token limit at sentence ends with overlap")
+    void shouldSplitLongText() {
+        // Given
+        TextChunker chunker = new TextChunker(50, 10);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("Sentence number ").append(i).append(" talks about vectors. ");
+        }
+
+        // When
+        List<String> chunks = chunker.chunk(text.toString());
+
+        // Then
+        assertThat(chunks).hasSizeGreaterThan(5);
+        assertThat(chunks).allSatisfy(chunk -> {
+            assertThat(TokenEstimator.estimate(chunk)).isLessThanOrEqualTo(50);
+            assertThat(chunk).startsWith("Sentence").endsWith(".");
+        });
+        // Overlap: each chunk repeats the last sentence of its predecessor
+        for (int i = 1; i < chunks.size(); i++) {
+            String previous = chunks.get(i - 1);
+            String lastSentence = previous.substring(previous.lastIndexOf("Sentence"));
+            assertThat(chunks.get(i)).startsWith(lastSentence);
+        }
+    }
+
+    @Test
+    @DisplayName("Should cut text without whitespace at the hard limit")
+    void shouldCutUnbrokenText() {
+        // Given
+        TextChunker chunker = new TextChunker(10, 2);
+
+        // When
+        List<String> chunks = chunker.chunk("x".repeat(100));
+
+        // Then
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(40));
+        assertThat(String.join("", chunks).length()).isGreaterThanOrEqualTo(100);
+    }
+}
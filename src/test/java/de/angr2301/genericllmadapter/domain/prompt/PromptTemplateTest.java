@@ -0,0 +1,88 @@
+package de.angr2301.genericllmadapter.domain.prompt;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für PromptTemplate und die Auswahl des System-Prompts
+ * Testet Kompilieren, Rendern und Default-Auflösung pro Mandant
+ */
+@DisplayName("PromptTemplate - Unit Tests")
+class PromptTemplateTest {
+
+    private static final PromptTemplate.Values VALUES = new PromptTemplate.Values("2026-10-19", "Acme");
+
+    @Test
+    @DisplayName("Should substitute variables and keep the text around them")
+    void shouldRenderVariables() {
+        // Given
+        PromptTemplate template = PromptTemplate.compile("You help {{tenant}} staff. Today is {{ date }}.{{tenant}}");
+
+        // When
+        String rendered = template.render(VALUES);
+
+        // Then
+        assertThat(rendered).isEqualTo("You help Acme staff. Today is 2026-10-19.Acme");
+    }
+
+    @Test
+    @DisplayName("Should render a template without variables to the same string")
+    void shouldReuseConstantText() {
+        // Given
+        PromptTemplate template = PromptTemplate.compile("Answer briefly. Use {braces} freely.");
+
+        // Then
+        assertThat(template.render(VALUES)).isEqualTo("Answer briefly. Use {braces} freely.");
+        assertThat(template.render(VALUES)).isSameAs(template.render(VALUES));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown variables and unclosed braces")
+    void shouldRejectInvalidTemplates() {
+        assertThatThrownBy(() -> PromptTemplate.compile("Hello {{user}}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{{user}}");
+        assertThatThrownBy(() -> PromptTemplate.compile("Hello {{date"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unclosed");
+    }
+
+    @Test
+    @DisplayName("Should resolve the session's choice, then the tenant default, then the global default")
+    void shouldResolveDefaults() {
+        // Given
+        UUID tenant = UUID.randomUUID();
+        UUID otherTenant = UUID.randomUUID();
+        SystemPrompt global = prompt(null, "Global {{date}", true);
+        SystemPrompt tenantDefault = prompt(tenant, "For {{tenant}}", true);
+        SystemPrompt chosen = prompt(null, "Pirate speak", false);
+        SystemPrompt foreign = prompt(otherTenant, "Other tenant", false);
+        SystemPromptService.Snapshot snapshot = SystemPromptService.Snapshot.of("v1",
+                List.of(global, tenantDefault, chosen, foreign), Map.of(tenant, "Acme"));
+
+        // Then
+        assertThat(snapshot.resolve(chosen.getId(), tenant)).isEqualTo(chosen.getId());
+        assertThat(snapshot.resolve(null, tenant)).isEqualTo(tenantDefault.getId());
+        assertThat(snapshot.resolve(foreign.getId(), tenant)).isEqualTo(tenantDefault.getId());
+        assertThat(snapshot.resolve(null, null)).isEqualTo(global.getId());
+        assertThat(snapshot.resolve(null, otherTenant)).isEqualTo(global.getId());
+        // Stored with a broken variable: used as plain text
+        assertThat(snapshot.templates().get(global.getId()).render(VALUES)).isEqualTo("Global {{date}");
+    }
+
+    private static SystemPrompt prompt(UUID tenantId, String text, boolean defaultPrompt) {
+        return SystemPrompt.builder()
+                .id(UUID.randomUUID())
+                .tenantId(tenantId)
+                .name(text)
+                .promptText(text)
+                .defaultPrompt(defaultPrompt)
+                .build();
+    }
+}
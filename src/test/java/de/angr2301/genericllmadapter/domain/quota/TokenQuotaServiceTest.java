@@ -0,0 +1,80 @@
+package de.angr2301.genericllmadapter.domain.quota;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für TokenQuotaService
+ * Testet Reservierung, Abrechnung mit tatsächlicher Nutzung und Retry-After
+ */
+@DisplayName("TokenQuotaService - Unit Tests")
+class TokenQuotaServiceTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Should reject over-budget calls with the time until enough tokens are back")
+    void shouldRejectWithRetryAfter() {
+        // Given: 6000 tokens per minute, 1000 output reserve
+        TokenQuotaService service = new TokenQuotaService(properties(6000, 1_000_000));
+        service.reserve(USER, "OPENAI", 2000);
+
+        // When / Then: 3000 + 3000 used, the next 3000 need half a minute of refill
+        service.reserve(USER, "OPENAI", 2000);
+        assertThatThrownBy(() -> service.reserve(USER, "OPENAI", 2000))
+                .isInstanceOfSatisfying(TokenQuotaExceededException.class, e ->
+                        assertThat(e.getRetryAfter()).isBetween(Duration.ofSeconds(29), Duration.ofSeconds(30)));
+        assertThat(service.reserve(USER, "DEEPSEEK", 2000).getTokens()).isEqualTo(3000);
+        assertThat(service.reserve(UUID.randomUUID(), "OPENAI", 2000).getTokens()).isEqualTo(3000);
+    }
+
+    @Test
+    @DisplayName("Should refund unused tokens and release failed calls")
+    void shouldReconcileWithActualUsage() {
+        // Given
+        TokenQuotaService service = new TokenQuotaService(properties(6000, 1_000_000));
+
+        // When: each call really used only 500 tokens, the failed one none
+        service.reserve(USER, "OPENAI", 2000).reconcile(500);
+        service.reserve(USER, "OPENAI", 2000).reconcile(500);
+        service.reserve(USER, "OPENAI", 2000).release();
+
+        // Then
+        assertThatCode(() -> service.reserve(USER, "OPENAI", 2000)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should refuse requests larger than the budget and apply provider overrides")
+    void shouldRejectOversizedRequests() {
+        // Given
+        TokenQuotaProperties properties = new Binder(new MapConfigurationPropertySource(Map.of(
+                "quota.defaults.tokens-per-minute", "2000",
+                "quota.defaults.tokens-per-day", "100000",
+                "quota.providers.local-vllm.tokens-per-minute", "50000",
+                "quota.providers.local-vllm.tokens-per-day", "100000")))
+                .bind("quota", TokenQuotaProperties.class)
+                .get();
+        TokenQuotaService service = new TokenQuotaService(properties);
+
+        // When / Then
+        assertThatThrownBy(() -> service.reserve(USER, "OPENAI", 10_000))
+                .isInstanceOfSatisfying(TokenQuotaExceededException.class, e ->
+                        assertThat(e.getRetryAfter()).isNull());
+        assertThatCode(() -> service.reserve(USER, "LOCAL_VLLM", 10_000)).doesNotThrowAnyException();
+    }
+
+    private static TokenQuotaProperties properties(long perMinute, long perDay) {
+        TokenQuotaProperties properties = new TokenQuotaProperties();
+        properties.setOutputReserveTokens(1000);
+        properties.setDefaults(new TokenQuotaProperties.Budget(perMinute, perDay));
+        return properties;
+    }
+}
@@ -0,0 +1,53 @@
+package de.angr2301.genericllmadapter.domain.usage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für UsageSummary
+ * Testet die Aggregation der Zähler pro Tag und Provider
+ */
+@DisplayName("UsageSummary - Unit Tests")
+class UsageSummaryTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2024, 3, 1);
+    private static final LocalDate DAY_2 = LocalDate.of(2024, 3, 2);
+
+    @Test
+    @DisplayName("Should add up counter rows in total, per provider and per day")
+    void shouldAggregateRows() {
+        // Given
+        List<UsageSummary.Row> rows = List.of(
+                new UsageSummary.Row(DAY_2, "OPENAI", 2, 300, 100),
+                new UsageSummary.Row(DAY_1, "OPENAI", 1, 100, 50),
+                new UsageSummary.Row(DAY_1, "LOCAL_VLLM", 4, 1000, 400));
+
+        // When
+        UsageSummary summary = UsageSummary.of(DAY_1, DAY_2, rows);
+
+        // Then
+        assertThat(summary.total()).isEqualTo(new UsageSummary.Counts(7, 1400, 550, 1950));
+        assertThat(summary.providers()).containsOnlyKeys("LOCAL_VLLM", "OPENAI");
+        assertThat(summary.providers().get("OPENAI")).isEqualTo(new UsageSummary.Counts(3, 400, 150, 550));
+        assertThat(summary.days()).extracting(UsageSummary.Day::day).containsExactly(DAY_1, DAY_2);
+        assertThat(summary.days().get(0).counts()).isEqualTo(new UsageSummary.Counts(5, 1100, 450, 1550));
+    }
+
+    @Test
+    @DisplayName("Should report zero usage for a range without counters")
+    void shouldHandleNoUsage() {
+        // When
+        UsageSummary summary = UsageSummary.of(DAY_1, DAY_2, List.of());
+
+        // Then
+        assertThat(summary.total().totalTokens()).isZero();
+        assertThat(summary.providers()).isEmpty();
+        assertThat(summary.days()).isEmpty();
+        assertThat(summary.from()).isEqualTo(DAY_1);
+    }
+}
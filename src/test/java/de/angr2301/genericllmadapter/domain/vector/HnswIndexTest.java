@@ -0,0 +1,219 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für HnswIndex
+ * Testet Recall gegen exakte Suche (auch quantisiert), Session-Filter und Snapshot/Restore
+ */
+@DisplayName("HnswIndex - Unit Tests")
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should reach high recall@10 compared to exact search")
+    void shouldReachHighRecall() {
+        // Given
+        Random random = new Random(42);
+        List<float[]> vectors = randomVectors(random, 2000);
+        List<UUID> ids = new ArrayList<>();
+        HnswIndex index = new HnswIndex(new OffHeapVectorStore(DIMENSIONS, null, 0), 16, 100, 1L);
+        for (float[] vector : vectors) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            index.insert(id, null, null, vector);
+        }
+
+        // When
+        double recall = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVectors(random, 1).get(0);
+            Set<UUID> expected = exactTopK(vectors, ids, query, 10);
+            Set<UUID> actual = index.search(query, 10, 64).stream().map(VectorHit::id).collect(Collectors.toSet());
+            actual.retainAll(expected);
+            recall += actual.size() / 10.0;
+        }
+
+        // Then
+        assertThat(recall / queries).isGreaterThan(0.9);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = VectorEncoding.class, names = {"INT8", "BINARY"})
+    @DisplayName("Should keep recall and exact distances with quantized candidate search")
+    void shouldRerankQuantizedCandidates(VectorEncoding encoding) {
+        // Given
+        // Sign bits need more dimensions (and clustered data like real embeddings) to carry information
+        int dimensions = 256;
+        Random random = new Random(42);
+        List<float[]> vectors = clusteredVectors(random, 2000, dimensions);
+        List<UUID> ids = new ArrayList<>();
+        HnswIndex index = new HnswIndex(new OffHeapVectorStore(dimensions, null, 0), 16, 100, 1L, encoding, 10);
+        for (float[] vector : vectors) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            index.insert(id, null, null, vector);
+        }
+
+        // When
+        double recall = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = clusteredVectors(random, 1, dimensions).get(0);
+            Set<UUID> expected = exactTopK(vectors, ids, query, 10);
+            List<VectorHit> hits = index.search(query, 10, 64);
+            VectorHit best = hits.get(0);
+            // Re-ranked distances are full precision, not the quantized estimate
+            assertThat(best.distance()).isCloseTo(cosineDistance(vectors.get(ids.indexOf(best.id())), query), within(1e-4f));
+            assertThat(hits).extracting(VectorHit::distance).isSorted();
+            Set<UUID> actual = hits.stream().map(VectorHit::id).collect(Collectors.toSet());
+            actual.retainAll(expected);
+            recall += actual.size() / 10.0;
+        }
+
+        // Then
+        assertThat(recall / queries).isGreaterThan(0.8);
+        assertThat(index.candidateBytes()).isLessThan(index.offHeapBytes() / 3);
+    }
+
+    @Test
+    @DisplayName("Should only return vectors of the requested session")
+    void shouldFilterBySession() {
+        // Given
+        Random random = new Random(7);
+        UUID sessionA = UUID.randomUUID();
+        UUID sessionB = UUID.randomUUID();
+        HnswIndex index = new HnswIndex(new OffHeapVectorStore(DIMENSIONS, null, 0), 8, 50, 1L);
+        List<UUID> inSessionA = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            UUID id = UUID.randomUUID();
+            UUID session = i % 2 == 0 ? sessionA : sessionB;
+            if (session == sessionA) {
+                inSessionA.add(id);
+            }
+            index.insert(id, session, null, randomVectors(random, 1).get(0));
+        }
+
+        // When
+        List<VectorHit> hits = index.searchSession(sessionA, randomVectors(random, 1).get(0), 5);
+
+        // Then
+        assertThat(hits).hasSize(5);
+        assertThat(hits).extracting(VectorHit::id).allMatch(inSessionA::contains);
+        assertThat(hits).extracting(VectorHit::distance).isSorted();
+    }
+
+    @Test
+    @DisplayName("Should restore identical search results from a snapshot")
+    void shouldRestoreFromSnapshot() throws Exception {
+        // Given
+        Random random = new Random(3);
+        HnswIndex index = new HnswIndex(new OffHeapVectorStore(DIMENSIONS, tempDir, 0), 8, 50, 1L);
+        for (int i = 0; i < 500; i++) {
+            index.insert(UUID.randomUUID(), UUID.randomUUID(), null, randomVectors(random, 1).get(0));
+        }
+        float[] query = randomVectors(random, 1).get(0);
+        List<VectorHit> before = index.search(query, 10, 32);
+        index.save(tempDir.resolve("index.snapshot"));
+        index.close();
+
+        // When
+        HnswIndex restored = HnswIndex.load(tempDir.resolve("index.snapshot"), tempDir, 2L);
+
+        // Then
+        assertThat(restored.size()).isEqualTo(500);
+        assertThat(restored.search(query, 10, 32)).isEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("Should ignore duplicate inserts of the same id")
+    void shouldIgnoreDuplicateIds() {
+        // Given
+        HnswIndex index = new HnswIndex(new OffHeapVectorStore(DIMENSIONS, null, 0), 8, 50, 1L);
+        UUID id = UUID.randomUUID();
+        float[] vector = randomVectors(new Random(1), 1).get(0);
+
+        // When
+        boolean first = index.insert(id, null, null, vector);
+        boolean second = index.insert(id, null, null, vector);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    static List<float[]> randomVectors(Random random, int count) {
+        return randomVectors(random, count, DIMENSIONS);
+    }
+
+    static List<float[]> randomVectors(Random random, int count, int dimensions) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[dimensions];
+            for (int d = 0; d < dimensions; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    private static List<float[]> clusteredVectors(Random random, int count, int dimensions) {
+        List<float[]> centroids = randomVectors(new Random(1), 20, dimensions);
+        List<float[]> vectors = randomVectors(random, count, dimensions);
+        for (float[] vector : vectors) {
+            float[] centroid = centroids.get(random.nextInt(centroids.size()));
+            for (int d = 0; d < dimensions; d++) {
+                vector[d] = centroid[d] + 0.5f * vector[d];
+            }
+        }
+        return vectors;
+    }
+
+    private static float cosineDistance(float[] vector, float[] query) {
+        float[] v = HnswIndex.normalize(vector);
+        float[] q = HnswIndex.normalize(query);
+        float dot = 0;
+        for (int d = 0; d < q.length; d++) {
+            dot += v[d] * q[d];
+        }
+        return 1f - dot;
+    }
+
+    private static Set<UUID> exactTopK(List<float[]> vectors, List<UUID> ids, float[] query, int k) {
+        float[] q = HnswIndex.normalize(query);
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            order.add(i);
+        }
+        float[] scores = new float[vectors.size()];
+        for (int i = 0; i < vectors.size(); i++) {
+            float[] v = HnswIndex.normalize(vectors.get(i));
+            for (int d = 0; d < q.length; d++) {
+                scores[i] += v[d] * q[d];
+            }
+        }
+        order.sort((a, b) -> Float.compare(scores[b], scores[a]));
+        return order.subList(0, k).stream().map(ids::get).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,236 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Recall/latency benchmark: in-process HNSW hot tier vs. exact search vs. pgvector HNSW,
+ * each with full-precision and quantized candidate search (re-ranked in full precision).
+ *
+ * Uses clustered Gaussian vectors (closer to real embeddings than uniform noise).
+ * The pgvector part only runs when a JDBC url is given.
+ *
+ * Run from the project root after test-compile (MAVEN_OPTS enables the SIMD kernels in the Maven JVM):
+ * MAVEN_OPTS="--add-modules jdk.incubator.vector" mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.angr2301.genericllmadapter.domain.vector.HnswRecallBenchmark \
+ *     -Dbench.vectors=20000 -Dbench.queries=200 \
+ *     -Dpgvector.url=jdbc:postgresql://localhost:5432/postgres -Dpgvector.user=postgres -Dpgvector.password=password
+ */
+public class HnswRecallBenchmark {
+
+    private static final int K = 10;
+
+    public static void main(String[] args) throws Exception {
+        int dimensions = Integer.getInteger("bench.dimensions", 1536);
+        int count = Integer.getInteger("bench.vectors", 10000);
+        int queryCount = Integer.getInteger("bench.queries", 200);
+        int m = Integer.getInteger("bench.m", 16);
+        int efConstruction = Integer.getInteger("bench.efConstruction", 100);
+        int efSearch = Integer.getInteger("bench.efSearch", 64);
+        int rerankFactor = Integer.getInteger("bench.rerankFactor", 10);
+
+        Random random = new Random(42);
+        float[][] vectors = clustered(random, count, dimensions, 50);
+        float[][] queries = clustered(random, queryCount, dimensions, 50);
+        UUID[] ids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = new UUID(0L, i);
+        }
+
+        System.out.printf("vectors=%d dims=%d queries=%d m=%d efConstruction=%d efSearch=%d%n",
+                count, dimensions, queryCount, m, efConstruction, efSearch);
+
+        // Ground truth
+        List<Set<Integer>> truth = new ArrayList<>();
+        long[] exactLatencies = new long[queryCount];
+        for (int q = 0; q < queryCount; q++) {
+            long start = System.nanoTime();
+            truth.add(exactTopK(vectors, queries[q]));
+            exactLatencies[q] = System.nanoTime() - start;
+        }
+        report("exact (heap scan)", 1.0, exactLatencies, 0);
+
+        // In-process HNSW, one index per candidate encoding
+        long fullBytes = (long) count * VectorEncoding.FLOAT32.bytesPerVector(dimensions);
+        for (VectorEncoding encoding : VectorEncoding.values()) {
+            long buildStart = System.nanoTime();
+            HnswIndex index = new HnswIndex(new OffHeapVectorStore(dimensions, null, 0), m, efConstruction, 1L,
+                    encoding, rerankFactor);
+            for (int i = 0; i < count; i++) {
+                index.insert(ids[i], null, null, vectors[i]);
+            }
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+            long[] latencies = new long[queryCount];
+            double recall = 0;
+            for (int round = 0; round < 2; round++) { // first round warms up the JIT
+                recall = 0;
+                for (int q = 0; q < queryCount; q++) {
+                    long start = System.nanoTime();
+                    List<VectorHit> hits = index.search(queries[q], K, efSearch);
+                    latencies[q] = System.nanoTime() - start;
+                    Set<Integer> found = new HashSet<>();
+                    hits.forEach(hit -> found.add((int) hit.id().getLeastSignificantBits()));
+                    found.retainAll(truth.get(q));
+                    recall += found.size() / (double) K;
+                }
+            }
+            report("in-process hnsw " + encoding, recall / queryCount, latencies, buildMillis);
+            long scanned = encoding == VectorEncoding.FLOAT32
+                    ? fullBytes : (long) count * encoding.bytesPerVector(dimensions);
+            System.out.printf("  candidate data %d MB (%.1f%% of float32, %.1f MB saved in hot memory)%n",
+                    scanned >> 20, 100.0 * scanned / fullBytes, (fullBytes - scanned) / 1048576.0);
+            index.close();
+        }
+
+        String url = System.getProperty("pgvector.url");
+        if (url != null) {
+            benchmarkPgvector(url, vectors, queries, truth, m, efConstruction, efSearch, rerankFactor);
+        } else {
+            System.out.println("pgvector: skipped (set -Dpgvector.url to compare)");
+        }
+    }
+
+    private static void benchmarkPgvector(String url, float[][] vectors, float[][] queries, List<Set<Integer>> truth,
+                                          int m, int efConstruction, int efSearch, int rerankFactor) throws Exception {
+        int dimensions = vectors[0].length;
+        try (Connection connection = DriverManager.getConnection(url,
+                System.getProperty("pgvector.user", "postgres"), System.getProperty("pgvector.password", "postgres"))) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+                statement.execute("DROP TABLE IF EXISTS hnsw_benchmark");
+                statement.execute("CREATE TABLE hnsw_benchmark (id INT PRIMARY KEY, embedding vector(" + dimensions + "))");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO hnsw_benchmark (id, embedding) VALUES (?, cast(? AS vector))")) {
+                for (int i = 0; i < vectors.length; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, PgVectorFormat.toLiteral(vectors[i]));
+                    insert.addBatch();
+                    if (i % 500 == 499) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+
+            int candidates = Math.max(K * rerankFactor, efSearch);
+            String[][] variants = {
+                    {"vector", "embedding vector_cosine_ops",
+                            "SELECT id FROM hnsw_benchmark ORDER BY embedding <=> cast(? AS vector) LIMIT " + K},
+                    {"halfvec", "(embedding::halfvec(" + dimensions + ")) halfvec_cosine_ops",
+                            "SELECT id FROM (SELECT id, embedding FROM hnsw_benchmark ORDER BY embedding::halfvec("
+                                    + dimensions + ") <=> cast(? AS halfvec(" + dimensions + ")) LIMIT " + candidates
+                                    + ") c ORDER BY embedding <=> cast(? AS vector) LIMIT " + K},
+                    {"binary", "(binary_quantize(embedding)::bit(" + dimensions + ")) bit_hamming_ops",
+                            "SELECT id FROM (SELECT id, embedding FROM hnsw_benchmark ORDER BY binary_quantize(embedding)::bit("
+                                    + dimensions + ") <~> binary_quantize(cast(? AS vector)) LIMIT " + candidates
+                                    + ") c ORDER BY embedding <=> cast(? AS vector) LIMIT " + K},
+            };
+            for (String[] variant : variants) {
+                long buildStart = System.nanoTime();
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP INDEX IF EXISTS hnsw_benchmark_idx");
+                    statement.execute("CREATE INDEX hnsw_benchmark_idx ON hnsw_benchmark USING hnsw (" + variant[1] + ") " +
+                            "WITH (m = " + m + ", ef_construction = " + efConstruction + ")");
+                    statement.execute("SET hnsw.ef_search = " + efSearch);
+                }
+                long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+                long indexBytes;
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT pg_relation_size('hnsw_benchmark_idx')")) {
+                    rs.next();
+                    indexBytes = rs.getLong(1);
+                }
+
+                long[] latencies = new long[queries.length];
+                double recall = 0;
+                int parameters = (int) variant[2].chars().filter(c -> c == '?').count();
+                try (PreparedStatement search = connection.prepareStatement(variant[2])) {
+                    for (int round = 0; round < 2; round++) {
+                        recall = 0;
+                        for (int q = 0; q < queries.length; q++) {
+                            String literal = PgVectorFormat.toLiteral(queries[q]);
+                            long start = System.nanoTime();
+                            for (int p = 1; p <= parameters; p++) {
+                                search.setString(p, literal);
+                            }
+                            Set<Integer> found = new HashSet<>();
+                            try (ResultSet rs = search.executeQuery()) {
+                                while (rs.next()) {
+                                    found.add(rs.getInt(1));
+                                }
+                            }
+                            latencies[q] = System.nanoTime() - start;
+                            found.retainAll(truth.get(q));
+                            recall += found.size() / (double) K;
+                        }
+                    }
+                }
+                report("pgvector hnsw " + variant[0] + " (incl. round trip)", recall / queries.length, latencies, buildMillis);
+                System.out.printf("  index size %d MB%n", indexBytes >> 20);
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE hnsw_benchmark");
+            }
+        }
+    }
+
+    private static Set<Integer> exactTopK(float[][] vectors, float[] query) {
+        float[] q = HnswIndex.normalize(query);
+        float[] scores = new float[vectors.length];
+        Integer[] order = new Integer[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            float[] v = vectors[i];
+            float dot = 0;
+            float norm = 0;
+            for (int d = 0; d < q.length; d++) {
+                dot += v[d] * q[d];
+                norm += v[d] * v[d];
+            }
+            scores[i] = dot / (float) Math.sqrt(norm);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        return new HashSet<>(Arrays.asList(order).subList(0, K));
+    }
+
+    private static float[][] clustered(Random random, int count, int dimensions, int clusters) {
+        Random centroidRandom = new Random(1);
+        float[][] centroids = new float[clusters][dimensions];
+        for (float[] centroid : centroids) {
+            for (int d = 0; d < dimensions; d++) {
+                centroid[d] = (float) centroidRandom.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][dimensions];
+        for (float[] vector : vectors) {
+            float[] centroid = centroids[random.nextInt(clusters)];
+            for (int d = 0; d < dimensions; d++) {
+                vector[d] = centroid[d] + 0.5f * (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private static void report(String name, double recall, long[] latencies, long buildMillis) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-34s recall@%d=%.3f p50=%.3fms p99=%.3fms build=%dms%n", name, K, recall,
+                sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6, buildMillis);
+    }
+}
@@ -0,0 +1,112 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: scalar vs. Vector API kernels on 1536-dim embeddings.
+ *
+ * mvn -P benchmark -DskipTests verify -Djmh.args="VectorKernelsBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class VectorKernelsBenchmark {
+
+    private static final int DIMENSIONS = 1536;
+
+    @Param({"scalar", "simd"})
+    public String kernel;
+
+    /** Vectors scored per one-to-many call */
+    @Param({"1000"})
+    public int candidates;
+
+    private SimilarityKernel impl;
+    private float[] a;
+    private float[] b;
+    private byte[] codesA;
+    private byte[] codesB;
+    private long[] bitsA;
+    private long[] bitsB;
+    private float[][] matrix;
+    private float[] scores;
+
+    @Setup
+    public void setUp() {
+        impl = "simd".equals(kernel) ? new PanamaSimilarityKernel() : new ScalarSimilarityKernel();
+        Random random = new Random(42);
+        a = randomFloats(random);
+        b = randomFloats(random);
+        codesA = new byte[DIMENSIONS];
+        codesB = new byte[DIMENSIONS];
+        random.nextBytes(codesA);
+        random.nextBytes(codesB);
+        bitsA = random.longs(DIMENSIONS / 64).toArray();
+        bitsB = random.longs(DIMENSIONS / 64).toArray();
+        matrix = new float[candidates][];
+        for (int i = 0; i < candidates; i++) {
+            matrix[i] = randomFloats(random);
+        }
+        scores = new float[candidates];
+    }
+
+    @Benchmark
+    public float dotFloat() {
+        return impl.dot(a, b);
+    }
+
+    @Benchmark
+    public float cosineFloat() {
+        return impl.cosine(a, b);
+    }
+
+    @Benchmark
+    public float l2Float() {
+        return impl.l2Squared(a, b);
+    }
+
+    @Benchmark
+    public int dotInt8() {
+        return impl.dot(codesA, codesB);
+    }
+
+    @Benchmark
+    public float dotFloatInt8() {
+        return impl.dot(a, codesA);
+    }
+
+    @Benchmark
+    public int hammingBinary() {
+        return impl.hamming(bitsA, bitsB);
+    }
+
+    @Benchmark
+    public float[] dotOneToMany() {
+        impl.dotMany(a, matrix, 0, candidates, scores);
+        return scores;
+    }
+
+    private static float[] randomFloats(Random random) {
+        float[] values = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return values;
+    }
+}
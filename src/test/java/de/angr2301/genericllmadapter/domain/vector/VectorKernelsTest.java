@@ -0,0 +1,114 @@
+package de.angr2301.genericllmadapter.domain.vector;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit Tests für VectorKernels
+ * Testet SIMD-Kernel gegen die skalare Referenz und die Top-k-Auswahl
+ */
+@DisplayName("VectorKernels - Unit Tests")
+class VectorKernelsTest {
+
+    // 1536 = typical embedding size, 1000 = not a multiple of any SIMD width (exercises the tails)
+    private static final int[] LENGTHS = {1536, 1000, 3};
+
+    private final SimilarityKernel scalar = new ScalarSimilarityKernel();
+    private final SimilarityKernel simd = new PanamaSimilarityKernel();
+
+    @Test
+    @DisplayName("Should use the Vector API when the module is present")
+    void shouldUseVectorApi() {
+        assertThat(VectorKernels.implementation()).startsWith("Vector API");
+    }
+
+    @Test
+    @DisplayName("Should match scalar results for float vectors")
+    void shouldMatchScalarForFloats() {
+        Random random = new Random(1);
+        for (int length : LENGTHS) {
+            // Given
+            float[] a = randomFloats(random, length);
+            float[] b = randomFloats(random, length);
+
+            // Then
+            assertThat(simd.dot(a, b)).isCloseTo(scalar.dot(a, b), within(1e-2f));
+            assertThat(simd.cosine(a, b)).isCloseTo(scalar.cosine(a, b), within(1e-4f));
+            assertThat(simd.l2Squared(a, b)).isCloseTo(scalar.l2Squared(a, b), withinPercentage(0.01));
+        }
+    }
+
+    @Test
+    @DisplayName("Should match scalar results exactly for int8 and binary vectors")
+    void shouldMatchScalarForInt8AndBinary() {
+        Random random = new Random(2);
+        for (int length : LENGTHS) {
+            // Given
+            byte[] a = randomBytes(random, length);
+            byte[] b = randomBytes(random, length);
+            float[] query = randomFloats(random, length);
+            long[] bitsA = random.longs(length).toArray();
+            long[] bitsB = random.longs(length).toArray();
+
+            // Then
+            assertThat(simd.dot(a, b)).isEqualTo(scalar.dot(a, b));
+            assertThat(simd.l2Squared(a, b)).isEqualTo(scalar.l2Squared(a, b));
+            assertThat(simd.cosine(a, b)).isCloseTo(scalar.cosine(a, b), within(1e-6f));
+            assertThat(simd.dot(query, a)).isCloseTo(scalar.dot(query, a), within(1e-1f));
+            assertThat(simd.hamming(bitsA, bitsB)).isEqualTo(scalar.hamming(bitsA, bitsB));
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the same top-k as a full sort")
+    void shouldReturnTopK() {
+        // Given
+        Random random = new Random(3);
+        float[] query = randomFloats(random, 128);
+        float[][] vectors = new float[1003][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomFloats(random, 128);
+        }
+        float[] l2 = new float[vectors.length];
+        scalar.l2SquaredMany(query, vectors, 0, vectors.length, l2);
+        int[] expected = IntStream.range(0, vectors.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> l2[i]))
+                .limit(10)
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        // When
+        VectorKernels.TopK topK = VectorKernels.topK(query, vectors, 10, VectorKernels.Metric.L2);
+
+        // Then
+        assertThat(topK.indices()).containsExactly(expected);
+        assertThat(topK.scores()).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(VectorKernels.topK(query, Arrays.copyOf(vectors, 4), 10, VectorKernels.Metric.DOT).size())
+                .isEqualTo(4);
+        assertThatThrownBy(() -> VectorKernels.topK(query, vectors, -1, VectorKernels.Metric.DOT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static float[] randomFloats(Random random, int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return values;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] values = new byte[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (byte) (random.nextInt(255) - 127);
+        }
+        return values;
+    }
+}
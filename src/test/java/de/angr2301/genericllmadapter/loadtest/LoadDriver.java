@@ -0,0 +1,323 @@
+package de.angr2301.genericllmadapter.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load driver for the full chat flow against a running adapter.
+ *
+ * Registers and logs in --users users (/auth/register, /auth/login), opens one session each, then sends
+ * chat messages at --rps for --duration, round robin over the users. Requests are scheduled by the clock,
+ * not by responses, and latency counts from the scheduled send time, so a stalled server shows up in the
+ * percentiles instead of silently lowering the load. Results of the warmup period are discarded.
+ *
+ * Start the stub (StubLlmServer) and the adapter with the loadtest profile (src/test/resources/application-loadtest.yml), then:
+ *
+ * mvn -B -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.angr2301.genericllmadapter.loadtest.LoadDriver \
+ *     -Dexec.args="--rps=20 --duration=60 --users=50"
+ *
+ * Options (defaults in brackets):
+ *   --base-url [http://localhost:8080]
+ *   --users [20]            users (and sessions) created before the run
+ *   --rps [10]              target chat messages per second
+ *   --arrivals [constant]   constant | poisson inter-arrival times
+ *   --duration [60]         measured seconds
+ *   --warmup [10]           seconds at the target rate before measuring
+ *   --provider [LOCAL_VLLM]
+ *   --prompt-chars [400]
+ *   --timeout [120]         seconds per request
+ *   --out [target/loadtest-result.json]
+ */
+public class LoadDriver {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final Duration timeout;
+
+    LoadDriver(String baseUrl, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+    }
+
+    record User(String token, String sessionId) {
+    }
+
+    /** Latencies in microseconds and outcomes of one phase */
+    static final class Stats {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final Map<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+
+        void record(long micros, String outcome) {
+            if ("200".equals(outcome)) {
+                latencies.add(micros);
+            }
+            outcomes.computeIfAbsent(outcome, key -> new AtomicLong()).incrementAndGet();
+        }
+
+        ObjectNode report(double seconds) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            long total = outcomes.values().stream().mapToLong(AtomicLong::get).sum();
+            ObjectNode node = JSON.createObjectNode();
+            node.put("requests", total);
+            node.put("ok", sorted.length);
+            if (seconds > 0) {
+                node.put("throughputPerSecond", round(sorted.length / seconds));
+            }
+            ObjectNode byOutcome = node.putObject("outcomes");
+            new TreeMap<>(outcomes).forEach((outcome, count) -> byOutcome.put(outcome, count.get()));
+            ObjectNode millis = node.putObject("latencyMs");
+            if (sorted.length > 0) {
+                millis.put("mean", round(Arrays.stream(sorted).average().orElse(0) / 1000));
+                for (double percentile : PERCENTILES) {
+                    int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+                    millis.put("p" + (percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile)),
+                            round(sorted[Math.max(0, index)] / 1000.0));
+                }
+                millis.put("max", round(sorted[sorted.length - 1] / 1000.0));
+            }
+            return node;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        int users = Integer.parseInt(options.getOrDefault("users", "20"));
+        double rps = Double.parseDouble(options.getOrDefault("rps", "10"));
+        boolean poisson = "poisson".equals(options.getOrDefault("arrivals", "constant"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        String provider = options.getOrDefault("provider", "LOCAL_VLLM");
+        int promptChars = Integer.parseInt(options.getOrDefault("prompt-chars", "400"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "120")));
+        Path out = Path.of(options.getOrDefault("out", "target/loadtest-result.json"));
+
+        LoadDriver driver = new LoadDriver(baseUrl, timeout);
+        Stats auth = new Stats();
+        long setupStart = System.nanoTime();
+        List<User> sessions = driver.setUp(users, auth);
+        double setupSeconds = (System.nanoTime() - setupStart) / 1e9;
+        if (sessions.isEmpty()) {
+            System.err.println("No user could be set up: " + auth.report(setupSeconds));
+            System.exit(1);
+        }
+        System.out.printf("%d users ready in %.1fs; %s arrivals at %.1f/s, %ds warmup, %ds measured%n",
+                sessions.size(), setupSeconds, poisson ? "poisson" : "constant", rps, warmup, duration);
+
+        Stats chat = driver.run(sessions, provider, promptChars, rps, poisson, warmup, duration);
+
+        ObjectNode result = JSON.createObjectNode();
+        ObjectNode config = result.putObject("config");
+        options.forEach(config::put);
+        result.set("auth", auth.report(setupSeconds));
+        result.set("chat", chat.report(duration));
+        String report = JSON.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+        System.out.println(report);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, report);
+        System.out.println("Written to " + out.toAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * Register, log in and open a session for each user, concurrently
+     */
+    private List<User> setUp(int users, Stats auth) throws InterruptedException {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<User> ready = java.util.Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(users, 16))) {
+            for (int i = 0; i < users; i++) {
+                String email = "load-" + run + "-" + i + "@example.com";
+                executor.submit(() -> {
+                    String token = logIn(email, auth);
+                    User user = token != null ? openSession(token, auth) : null;
+                    if (user != null) {
+                        ready.add(user);
+                    }
+                });
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Register (if new) and log in one user
+     *
+     * @return the JWT, or null if that failed (recorded in auth)
+     */
+    String logIn(String email, Stats auth) {
+        try {
+            ObjectNode credentials = JSON.createObjectNode().put("email", email).put("password", "load-test");
+            timed(auth, () -> post("/auth/register", null, credentials));
+            JsonNode login = timed(auth, () -> post("/auth/login", null, credentials));
+            return login != null ? login.path("token").asText() : null;
+        } catch (Exception e) {
+            auth.record(0, e.getClass().getSimpleName());
+            return null;
+        }
+    }
+
+    /**
+     * @return the user with a new chat session, or null if that failed (recorded in auth)
+     */
+    User openSession(String token, Stats auth) {
+        try {
+            JsonNode session = post("/api/chat/sessions", token, JSON.createObjectNode());
+            return new User(token, session.path("id").asText());
+        } catch (HttpStatusException e) {
+            auth.record(0, Integer.toString(e.status));
+        } catch (Exception e) {
+            auth.record(0, e.getClass().getSimpleName());
+        }
+        return null;
+    }
+
+    /**
+     * Send one chat message
+     *
+     * @return the status code, or the exception type if no response arrived
+     */
+    String chat(User user, String provider, String prompt) {
+        ObjectNode body = JSON.createObjectNode()
+                .put("prompt", prompt)
+                .put("provider", provider);
+        return send("/api/chat/sessions/" + user.sessionId() + "/messages", user.token(), body);
+    }
+
+    private Stats run(List<User> users, String provider, int promptChars, double rps, boolean poisson,
+                      int warmupSeconds, int durationSeconds) throws InterruptedException {
+        Stats stats = new Stats();
+        Stats discarded = new Stats();
+        long intervalNanos = (long) (1e9 / rps);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong inFlight = new AtomicLong();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long scheduled = start;
+            for (int i = 0; scheduled < end; i++) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                User user = users.get(i % users.size());
+                long sendAt = scheduled;
+                Stats target = sendAt >= measureFrom ? stats : discarded;
+                inFlight.incrementAndGet();
+                executor.submit(() -> {
+                    try {
+                        String outcome = chat(user, provider, prompt(promptChars));
+                        target.record((System.nanoTime() - sendAt) / 1000, outcome);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+                scheduled += poisson
+                        ? (long) (-intervalNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble()))
+                        : intervalNanos;
+            }
+            System.out.printf("Schedule done, waiting for %d requests in flight%n", inFlight.get());
+        }
+        return stats;
+    }
+
+    private interface Call {
+        JsonNode call() throws Exception;
+    }
+
+    private static JsonNode timed(Stats stats, Call call) throws Exception {
+        long start = System.nanoTime();
+        try {
+            JsonNode result = call.call();
+            stats.record((System.nanoTime() - start) / 1000, result != null ? "200" : "error");
+            return result;
+        } catch (HttpStatusException e) {
+            stats.record((System.nanoTime() - start) / 1000, Integer.toString(e.status));
+            return null;
+        }
+    }
+
+    private static final class HttpStatusException extends RuntimeException {
+        private final int status;
+
+        HttpStatusException(int status) {
+            super("HTTP " + status);
+            this.status = status;
+        }
+    }
+
+    private JsonNode post(String path, String token, JsonNode body) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request(path, token, body), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new HttpStatusException(response.statusCode());
+        }
+        return JSON.readTree(response.body());
+    }
+
+    private String send(String path, String token, JsonNode body) {
+        try {
+            HttpResponse<Void> response = http.send(request(path, token, body), HttpResponse.BodyHandlers.discarding());
+            return Integer.toString(response.statusCode());
+        } catch (IOException e) {
+            return e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private HttpRequest request(String path, String token, JsonNode body) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static String prompt(int chars) {
+        StringBuilder prompt = new StringBuilder("Question " + ThreadLocalRandom.current().nextInt(1_000_000) + ": ");
+        while (prompt.length() < chars) {
+            prompt.append("how would you explain this to a colleague in a few sentences? ");
+        }
+        return prompt.substring(0, chars);
+    }
+
+    static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,25 @@
+package de.angr2301.genericllmadapter.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * --key=value command line options of the load test tools
+ */
+final class Options {
+
+    private Options() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
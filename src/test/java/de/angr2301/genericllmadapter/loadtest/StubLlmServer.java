@@ -0,0 +1,382 @@
+package de.angr2301.genericllmadapter.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Standalone stand-in for the upstream services, for load tests on one machine:
+ * an OpenAI-compatible API (chat completions, blocking and SSE, models, embeddings) and the analysis service.
+ *
+ * A completion takes a sampled time to first token plus completion tokens at the configured token rate.
+ * Errors (500/503) and throttling (429 with Retry-After) are injected at random, and above --max-rps
+ * every request is throttled. Run the adapter with the loadtest profile (src/test/resources/application-loadtest.yml) to point it here.
+ *
+ * mvn -B -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.angr2301.genericllmadapter.loadtest.StubLlmServer \
+ *     -Dexec.args="--port=8089 --ttft=lognormal:300,0.5 --tokens-per-second=80 --error-rate=0.01"
+ *
+ * Options (defaults in brackets):
+ *   --port [8089]
+ *   --ttft [lognormal:300,0.5]        time to first token in ms: fixed:MS | uniform:MIN,MAX | lognormal:MEDIAN,SIGMA | exp:MEAN
+ *   --completion-tokens [uniform:50,300]  tokens per reply, same distributions
+ *   --tokens-per-second [80]          generation rate; 0 = whole reply at once
+ *   --analysis-latency [fixed:20]     /analyze and /analyze_batch latency in ms
+ *   --analysis-batch [true]           serve /analyze_batch; false = 404 as from an older analysis service
+ *   --embedding-latency [fixed:15]    /v1/embeddings latency in ms
+ *   --error-rate [0]                  share of completions failing with 500 or 503
+ *   --throttle-rate [0]               share of completions answered with 429
+ *   --max-rps [0]                     completions per second before every request gets 429; 0 = unlimited
+ *   --retry-after [1]                 seconds, sent with every 429
+ */
+public class StubLlmServer {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String WORDS = "the model answers with plausible filler text while the load test measures latency ";
+
+    private final Distribution ttft;
+    private final Distribution completionTokens;
+    private final double tokensPerSecond;
+    private final Distribution analysisLatency;
+    private final boolean analysisBatch;
+    private final Distribution embeddingLatency;
+    private final double errorRate;
+    private final double throttleRate;
+    private final int maxRps;
+    private final int retryAfter;
+
+    private final AtomicLong windowSecond = new AtomicLong();
+    private final AtomicLong windowCount = new AtomicLong();
+    private final AtomicLong completions = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    StubLlmServer(Map<String, String> options) {
+        this.ttft = Distribution.parse(options.getOrDefault("ttft", "lognormal:300,0.5"));
+        this.completionTokens = Distribution.parse(options.getOrDefault("completion-tokens", "uniform:50,300"));
+        this.tokensPerSecond = Double.parseDouble(options.getOrDefault("tokens-per-second", "80"));
+        this.analysisLatency = Distribution.parse(options.getOrDefault("analysis-latency", "fixed:20"));
+        this.analysisBatch = Boolean.parseBoolean(options.getOrDefault("analysis-batch", "true"));
+        this.embeddingLatency = Distribution.parse(options.getOrDefault("embedding-latency", "fixed:15"));
+        this.errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+        this.throttleRate = Double.parseDouble(options.getOrDefault("throttle-rate", "0"));
+        this.maxRps = Integer.parseInt(options.getOrDefault("max-rps", "0"));
+        this.retryAfter = Integer.parseInt(options.getOrDefault("retry-after", "1"));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Options.parse(args);
+        StubLlmServer stub = new StubLlmServer(options);
+        int port = Integer.parseInt(options.getOrDefault("port", "8089"));
+        HttpServer server = stub.start(port);
+        System.out.printf("Stub LLM server on http://localhost:%d (OpenAI-compatible under /v1, analysis under /analyze)%n",
+                server.getAddress().getPort());
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stub-stats");
+            thread.setDaemon(true);
+            return thread;
+        }).scheduleAtFixedRate(() -> System.out.printf("completions=%d throttled=%d failed=%d%n",
+                stub.completions.get(), stub.throttled.get(), stub.failed.get()), 10, 10, TimeUnit.SECONDS);
+    }
+
+    HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        // Requests mostly sleep; a virtual thread each keeps the stub from becoming the bottleneck
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::chatCompletion));
+        server.createContext("/v1/models", exchange -> handle(exchange, this::models));
+        server.createContext("/v1/embeddings", exchange -> handle(exchange, this::embeddings));
+        server.createContext("/analyze", exchange -> handle(exchange, this::analyze));
+        server.createContext("/analyze_batch", exchange -> handle(exchange, this::analyzeBatch));
+        server.start();
+        return server;
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) {
+        try (exchange) {
+            handler.handle(exchange);
+        } catch (Exception e) {
+            // Client went away mid-stream or a malformed request; nothing to answer
+        }
+    }
+
+    private void chatCompletion(HttpExchange exchange) throws Exception {
+        JsonNode request = JSON.readTree(exchange.getRequestBody());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (overMaxRps() || random.nextDouble() < throttleRate) {
+            throttled.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", Integer.toString(retryAfter));
+            sendJson(exchange, 429, error("Rate limit reached, retry after " + retryAfter + "s", "rate_limit_exceeded"));
+            return;
+        }
+        sleep(ttft.sample());
+        if (random.nextDouble() < errorRate) {
+            failed.incrementAndGet();
+            int status = random.nextBoolean() ? 500 : 503;
+            sendJson(exchange, status, error("Injected failure", "server_error"));
+            return;
+        }
+
+        String model = request.path("model").asText("stub-model");
+        int promptTokens = promptTokens(request.path("messages"));
+        int tokens = Math.max(1, (int) completionTokens.sample());
+        if (request.path("stream").asBoolean(false)) {
+            stream(exchange, model, promptTokens, tokens);
+        } else {
+            // Blocking calls wait for the whole generation
+            sleep(generationMillis(tokens));
+            ObjectNode response = JSON.createObjectNode();
+            response.put("id", "chatcmpl-stub-" + completions.incrementAndGet());
+            response.put("object", "chat.completion");
+            response.put("created", System.currentTimeMillis() / 1000);
+            response.put("model", model);
+            ObjectNode choice = response.putArray("choices").addObject();
+            choice.put("index", 0);
+            ObjectNode message = choice.putObject("message");
+            message.put("role", "assistant");
+            message.put("content", text(tokens));
+            choice.put("finish_reason", "stop");
+            ObjectNode usage = response.putObject("usage");
+            usage.put("prompt_tokens", promptTokens);
+            usage.put("completion_tokens", tokens);
+            usage.put("total_tokens", promptTokens + tokens);
+            sendJson(exchange, 200, response);
+        }
+    }
+
+    /**
+     * Server-sent events, one chunk per token, paced at the token rate, usage in the last chunk
+     */
+    private void stream(HttpExchange exchange, String model, int promptTokens, int tokens) throws Exception {
+        String id = "chatcmpl-stub-" + completions.incrementAndGet();
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        String[] words = WORDS.split(" ");
+        long start = System.nanoTime();
+        for (int i = 0; i < tokens; i++) {
+            ObjectNode chunk = chunk(id, model);
+            ObjectNode delta = ((ObjectNode) chunk.path("choices").get(0)).putObject("delta");
+            if (i == 0) {
+                delta.put("role", "assistant");
+            }
+            delta.put("content", words[i % words.length] + " ");
+            writeEvent(out, chunk);
+            if (tokensPerSecond > 0) {
+                // Pace against the start so slow writes do not add up
+                long due = start + (long) ((i + 1) * 1e9 / tokensPerSecond);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+        }
+        ObjectNode last = chunk(id, model);
+        ((ObjectNode) last.path("choices").get(0)).put("finish_reason", "stop").putObject("delta");
+        ObjectNode usage = last.putObject("usage");
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", tokens);
+        usage.put("total_tokens", promptTokens + tokens);
+        writeEvent(out, last);
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void models(HttpExchange exchange) throws IOException {
+        ObjectNode response = JSON.createObjectNode();
+        response.put("object", "list");
+        ArrayNode data = response.putArray("data");
+        for (String id : new String[] {"gpt-4o", "deepseek-chat", "Qwen/Qwen2.5-0.5B-Instruct"}) {
+            ObjectNode model = data.addObject();
+            model.put("id", id);
+            model.put("object", "model");
+            model.put("owned_by", "stub");
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    /**
+     * Deterministic unit vectors per input text, so identical texts embed identically
+     */
+    private void embeddings(HttpExchange exchange) throws Exception {
+        JsonNode request = JSON.readTree(exchange.getRequestBody());
+        int dimensions = request.path("dimensions").asInt(1536);
+        JsonNode input = request.path("input");
+        sleep(embeddingLatency.sample());
+        ObjectNode response = JSON.createObjectNode();
+        response.put("object", "list");
+        ArrayNode data = response.putArray("data");
+        int tokens = 0;
+        for (int i = 0; i < input.size(); i++) {
+            String text = input.get(i).asText();
+            tokens += estimateTokens(text);
+            ObjectNode item = data.addObject();
+            item.put("object", "embedding");
+            item.put("index", i);
+            ArrayNode embedding = item.putArray("embedding");
+            java.util.Random seeded = new java.util.Random(text.hashCode());
+            double[] values = new double[dimensions];
+            double norm = 0;
+            for (int d = 0; d < dimensions; d++) {
+                values[d] = seeded.nextGaussian();
+                norm += values[d] * values[d];
+            }
+            norm = Math.sqrt(norm);
+            for (double value : values) {
+                embedding.add((float) (value / norm));
+            }
+        }
+        response.put("model", request.path("model").asText("text-embedding-3-small"));
+        response.putObject("usage").put("prompt_tokens", tokens).put("total_tokens", tokens);
+        sendJson(exchange, 200, response);
+    }
+
+    private void analyze(HttpExchange exchange) throws Exception {
+        JsonNode request = JSON.readTree(exchange.getRequestBody());
+        sleep(analysisLatency.sample());
+        sendJson(exchange, 200, analysis(request));
+    }
+
+    /** One latency sample for the whole batch, answers in request order */
+    private void analyzeBatch(HttpExchange exchange) throws Exception {
+        if (!analysisBatch) {
+            sendJson(exchange, 404, error("Not Found", "not_found"));
+            return;
+        }
+        JsonNode requests = JSON.readTree(exchange.getRequestBody());
+        sleep(analysisLatency.sample());
+        ArrayNode responses = JSON.createArrayNode();
+        requests.forEach(request -> responses.add(analysis(request)));
+        sendJson(exchange, 200, responses);
+    }
+
+    private static ObjectNode analysis(JsonNode request) {
+        ObjectNode response = JSON.createObjectNode();
+        ObjectNode metrics = response.putObject("metrics");
+        metrics.put("response_length", request.path("response").asText("").length());
+        metrics.put("sentiment", ThreadLocalRandom.current().nextDouble(-1, 1));
+        response.put("new_role", request.path("prev_role").asText("guide"));
+        response.put("history_length", 1);
+        return response;
+    }
+
+    private boolean overMaxRps() {
+        if (maxRps <= 0) {
+            return false;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long current = windowSecond.get();
+        if (current != second && windowSecond.compareAndSet(current, second)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() > maxRps;
+    }
+
+    private long generationMillis(int tokens) {
+        return tokensPerSecond > 0 ? (long) (tokens * 1000 / tokensPerSecond) : 0;
+    }
+
+    private static int promptTokens(JsonNode messages) {
+        int tokens = 0;
+        for (JsonNode message : messages) {
+            tokens += 4 + estimateTokens(message.path("content").asText(""));
+        }
+        return tokens;
+    }
+
+    private static int estimateTokens(String text) {
+        return (text.length() + 3) / 4;
+    }
+
+    private static String text(int tokens) {
+        String[] words = WORDS.split(" ");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            text.append(words[i % words.length]).append(' ');
+        }
+        return text.toString().trim();
+    }
+
+    private static ObjectNode chunk(String id, String model) {
+        ObjectNode chunk = JSON.createObjectNode();
+        chunk.put("id", id);
+        chunk.put("object", "chat.completion.chunk");
+        chunk.put("created", System.currentTimeMillis() / 1000);
+        chunk.put("model", model);
+        chunk.putArray("choices").addObject().put("index", 0);
+        return chunk;
+    }
+
+    private static ObjectNode error(String message, String code) {
+        ObjectNode body = JSON.createObjectNode();
+        ObjectNode error = body.putObject("error");
+        error.put("message", message);
+        error.put("type", code);
+        error.put("code", code);
+        return body;
+    }
+
+    private static void writeEvent(OutputStream out, JsonNode data) throws IOException {
+        out.write(("data: " + JSON.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = JSON.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(double millis) throws InterruptedException {
+        if (millis > 0) {
+            TimeUnit.MICROSECONDS.sleep((long) (millis * 1000));
+        }
+    }
+
+    /**
+     * Random values in ms (or tokens): fixed:V, uniform:MIN,MAX, lognormal:MEDIAN,SIGMA or exp:MEAN
+     */
+    record Distribution(String type, double a, double b) {
+
+        static Distribution parse(String spec) {
+            String[] typeAndArgs = spec.split(":", 2);
+            String[] args = typeAndArgs.length > 1 ? typeAndArgs[1].split(",") : new String[0];
+            double a = args.length > 0 ? Double.parseDouble(args[0]) : 0;
+            double b = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+            Distribution distribution = new Distribution(typeAndArgs[0], a, b);
+            distribution.sample();
+            return distribution;
+        }
+
+        double sample() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return switch (type) {
+                case "fixed" -> a;
+                case "uniform" -> a + random.nextDouble() * (b - a);
+                case "lognormal" -> a * Math.exp(b * random.nextGaussian());
+                case "exp" -> -a * Math.log(1 - random.nextDouble());
+                default -> throw new IllegalArgumentException("Unknown distribution: " + type
+                        + " (fixed, uniform, lognormal or exp)");
+            };
+        }
+    }
+}
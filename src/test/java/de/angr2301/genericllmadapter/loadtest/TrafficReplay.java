@@ -0,0 +1,259 @@
+package de.angr2301.genericllmadapter.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a chat workload captured with capture.enabled (see TrafficCapture) against a running adapter.
+ *
+ * Every captured user gets a fresh account and every captured session a fresh session of that user, so
+ * per-user rate limits, quotas and history growth behave as recorded. Messages keep their recorded arrival
+ * times (divided by --speed), provider and prompt size; the prompt text is synthesized from the prompt hash,
+ * so repeated prompts stay identical and caches see the recorded hit pattern. Like LoadDriver this is
+ * open-loop: latency counts from the scheduled send time.
+ *
+ * The report puts the burstiness of the capture (inter-arrival spread, busiest second) next to the
+ * replayed latencies, to judge whether a uniform LoadDriver run is representative.
+ *
+ * mvn -B -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.angr2301.genericllmadapter.loadtest.TrafficReplay \
+ *     -Dexec.args="--file=data/capture/traffic.jsonl --speed=2"
+ *
+ * Options (defaults in brackets):
+ *   --file [data/capture/traffic.jsonl]
+ *   --base-url [http://localhost:8080]
+ *   --speed [1]             time scale; 2 replays twice as fast
+ *   --provider []           send every message to this provider instead of the recorded one
+ *   --limit [0]             replay only the first n messages; 0 = all
+ *   --timeout [120]         seconds per request
+ *   --out [target/replay-result.json]
+ */
+public class TrafficReplay {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String[] WORDS = {"how", "would", "you", "explain", "the", "difference", "between",
+            "these", "two", "approaches", "in", "a", "short", "answer", "with", "an", "example", "for", "our",
+            "team", "and", "what", "should", "we", "watch", "out", "when", "using", "it", "in", "production"};
+
+    /** One captured chat message */
+    record Entry(Instant ts, String user, String session, String provider, int promptChars, String promptHash) {
+
+        static Entry parse(JsonNode line) {
+            return new Entry(Instant.parse(line.path("ts").asText()),
+                    line.path("user").asText(),
+                    line.path("session").asText(),
+                    line.path("provider").asText(),
+                    line.path("promptChars").asInt(),
+                    line.path("promptHash").asText());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        Path file = Path.of(options.getOrDefault("file", "data/capture/traffic.jsonl"));
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+        String provider = options.get("provider");
+        int limit = Integer.parseInt(options.getOrDefault("limit", "0"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "120")));
+        Path out = Path.of(options.getOrDefault("out", "target/replay-result.json"));
+
+        List<Entry> entries = read(file, limit);
+        if (entries.isEmpty()) {
+            System.err.println("Nothing to replay in " + file);
+            System.exit(1);
+        }
+        ObjectNode capture = shape(entries, 1);
+        System.out.println("Capture: " + capture);
+
+        LoadDriver driver = new LoadDriver(baseUrl, timeout);
+        LoadDriver.Stats auth = new LoadDriver.Stats();
+        long setupStart = System.nanoTime();
+        Map<String, LoadDriver.User> sessions = setUp(driver, entries, auth);
+        double setupSeconds = (System.nanoTime() - setupStart) / 1e9;
+        System.out.printf("%d sessions ready in %.1fs, replaying %d messages at %.2fx%n",
+                sessions.size(), setupSeconds, entries.size(), speed);
+
+        Map<String, LoadDriver.Stats> byProvider = new ConcurrentHashMap<>();
+        LoadDriver.Stats chat = new LoadDriver.Stats();
+        long started = System.nanoTime();
+        replay(driver, entries, sessions, provider, speed, chat, byProvider);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        ObjectNode result = JSON.createObjectNode();
+        ObjectNode config = result.putObject("config");
+        options.forEach(config::put);
+        result.set("capture", capture);
+        result.set("replayedShape", shape(entries, speed));
+        result.set("auth", auth.report(setupSeconds));
+        result.set("chat", chat.report(seconds));
+        ObjectNode providers = result.putObject("providers");
+        new TreeMap<>(byProvider).forEach((name, stats) -> providers.set(name, stats.report(seconds)));
+        String report = JSON.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+        System.out.println(report);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, report);
+        System.out.println("Written to " + out.toAbsolutePath());
+        System.exit(0);
+    }
+
+    static List<Entry> read(Path file, int limit) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    entries.add(Entry.parse(JSON.readTree(line)));
+                }
+            }
+        }
+        // The writer thread keeps queue order, which may differ slightly from arrival order
+        entries.sort(Comparator.comparing(Entry::ts));
+        return limit > 0 && entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    /**
+     * One account per captured user and one session per captured session, keyed by the captured session
+     */
+    private static Map<String, LoadDriver.User> setUp(LoadDriver driver, List<Entry> entries, LoadDriver.Stats auth)
+            throws InterruptedException {
+        Map<String, List<String>> sessionsByUser = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            List<String> sessions = sessionsByUser.computeIfAbsent(entry.user(), key -> new ArrayList<>());
+            if (!sessions.contains(entry.session())) {
+                sessions.add(entry.session());
+            }
+        }
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        Map<String, LoadDriver.User> ready = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(sessionsByUser.size(), 16))) {
+            sessionsByUser.forEach((user, sessions) -> executor.submit(() -> {
+                String token = driver.logIn("replay-" + run + "-" + user + "@example.com", auth);
+                if (token == null) {
+                    return;
+                }
+                for (String session : sessions) {
+                    LoadDriver.User opened = driver.openSession(token, auth);
+                    if (opened != null) {
+                        ready.put(session, opened);
+                    }
+                }
+            }));
+        }
+        return ready;
+    }
+
+    private static void replay(LoadDriver driver, List<Entry> entries, Map<String, LoadDriver.User> sessions,
+                               String provider, double speed, LoadDriver.Stats chat,
+                               Map<String, LoadDriver.Stats> byProvider) throws InterruptedException {
+        Instant first = entries.get(0).ts();
+        long start = System.nanoTime();
+        AtomicLong inFlight = new AtomicLong();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Entry entry : entries) {
+                long sendAt = start + (long) (Duration.between(first, entry.ts()).toNanos() / speed);
+                long wait = sendAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                String target = provider != null ? provider : entry.provider();
+                LoadDriver.Stats providerStats = byProvider.computeIfAbsent(target, key -> new LoadDriver.Stats());
+                LoadDriver.User user = sessions.get(entry.session());
+                if (user == null) {
+                    chat.record(0, "no-session");
+                    providerStats.record(0, "no-session");
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                executor.submit(() -> {
+                    try {
+                        String outcome = driver.chat(user, target, prompt(entry.promptHash(), entry.promptChars()));
+                        long micros = (System.nanoTime() - sendAt) / 1000;
+                        chat.record(micros, outcome);
+                        providerStats.record(micros, outcome);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+            System.out.printf("Schedule done, waiting for %d requests in flight%n", inFlight.get());
+        }
+    }
+
+    /**
+     * Arrival pattern at the given time scale: rate, inter-arrival spread and the busiest second.
+     * A coefficient of variation of 1 is as bursty as Poisson arrivals, 0 is a constant rate.
+     */
+    static ObjectNode shape(List<Entry> entries, double speed) {
+        ObjectNode node = JSON.createObjectNode();
+        node.put("messages", entries.size());
+        node.put("users", entries.stream().map(Entry::user).distinct().count());
+        node.put("sessions", entries.stream().map(Entry::session).distinct().count());
+        Instant first = entries.get(0).ts();
+        double seconds = Duration.between(first, entries.get(entries.size() - 1).ts()).toMillis() / 1000.0 / speed;
+        node.put("seconds", LoadDriver.round(seconds));
+        if (entries.size() < 2 || seconds <= 0) {
+            return node;
+        }
+        node.put("ratePerSecond", LoadDriver.round((entries.size() - 1) / seconds));
+
+        double[] gaps = new double[entries.size() - 1];
+        Map<Long, Integer> perSecond = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            long offsetMillis = (long) (Duration.between(first, entries.get(i).ts()).toMillis() / speed);
+            perSecond.merge(offsetMillis / 1000, 1, Integer::sum);
+            if (i > 0) {
+                gaps[i - 1] = Duration.between(entries.get(i - 1).ts(), entries.get(i).ts()).toMillis() / speed;
+            }
+        }
+        double mean = 0;
+        for (double gap : gaps) {
+            mean += gap / gaps.length;
+        }
+        double variance = 0;
+        for (double gap : gaps) {
+            variance += (gap - mean) * (gap - mean) / gaps.length;
+        }
+        node.put("meanGapMs", LoadDriver.round(mean));
+        node.put("gapCoefficientOfVariation", mean > 0 ? LoadDriver.round(Math.sqrt(variance) / mean) : 0);
+        node.put("busiestSecond", Collections.max(perSecond.values()));
+        return node;
+    }
+
+    /**
+     * Prompt of the recorded size; the same hash always gives the same text
+     */
+    static String prompt(String hash, int chars) {
+        Random random = new Random(hash.hashCode());
+        StringBuilder prompt = new StringBuilder(chars + 16);
+        while (prompt.length() < chars) {
+            prompt.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return prompt.substring(0, chars);
+    }
+}
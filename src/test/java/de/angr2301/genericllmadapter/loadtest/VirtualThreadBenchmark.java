@@ -0,0 +1,231 @@
+package de.angr2301.genericllmadapter.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.angr2301.genericllmadapter.domain.chat.LlmMessage;
+import de.angr2301.genericllmadapter.domain.chat.LlmProviderFactory;
+import de.angr2301.genericllmadapter.domain.chat.LlmTelemetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatVirtualThreadsWebServerFactoryCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Concurrent in-flight chats and memory per request, with and without spring.threads.virtual.enabled.
+ *
+ * Runs the blocking part of a chat turn in one JVM: embedded Tomcat configured like Spring Boot
+ * (TomcatVirtualThreadsWebServerFactoryCustomizer when --virtual), a servlet calling the LLM through the
+ * production client and shared HttpClient, and StubLlmServer answering after --ttft milliseconds.
+ * --clients requests are opened at once; while they wait for the stub, the peak number of concurrent LLM
+ * calls, live threads, heap and RSS are sampled. A semaphore of --connection-pool permits stands in for Hikari:
+ * with --hold-connection every request keeps its permit during the LLM call, as sendMessage did while it
+ * was one transaction.
+ *
+ * Memory per request is (sample - idle) / in-flight, client side included (same for both modes).
+ * With -XX:NativeMemoryTracking=summary in MAVEN_OPTS the committed thread stacks are reported as well.
+ *
+ * mvn -B -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.angr2301.genericllmadapter.loadtest.VirtualThreadBenchmark \
+ *     -Dexec.args="--virtual=true --clients=2000"
+ *
+ * Options (defaults in brackets):
+ *   --virtual [false]
+ *   --clients [1000]          concurrent chat requests
+ *   --ttft [3000]             upstream time to first token (whole reply) in ms
+ *   --connection-pool [10]    simulated database connections; 0 = unlimited
+ *   --hold-connection [false] keep a connection for the whole request
+ *   --out [target/virtual-threads-result.json]
+ */
+public class VirtualThreadBenchmark {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern NMT_THREAD = Pattern.compile("- +Thread \\(reserved=(\\d+)KB, committed=(\\d+)KB\\)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        boolean virtual = Boolean.parseBoolean(options.getOrDefault("virtual", "false"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int ttft = Integer.parseInt(options.getOrDefault("ttft", "3000"));
+        int pool = Integer.parseInt(options.getOrDefault("connection-pool", "10"));
+        boolean holdConnection = Boolean.parseBoolean(options.getOrDefault("hold-connection", "false"));
+        Path out = Path.of(options.getOrDefault("out", "target/virtual-threads-result.json"));
+
+        var stub = new StubLlmServer(Map.of("ttft", "fixed:" + ttft, "completion-tokens", "fixed:50",
+                "tokens-per-second", "0")).start(0);
+        String upstream = "http://127.0.0.1:" + stub.getAddress().getPort();
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Semaphore connections = new Semaphore(pool > 0 ? pool : Integer.MAX_VALUE);
+        LlmProviderFactory factory = providerFactory(upstream, virtual);
+        Runnable llmCall = () -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                factory.createChatModel("LOCAL_VLLM", null).generateContent(List.of(LlmMessage.user("How are you?")));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+        HttpServlet chat = new HttpServlet() {
+            @Override
+            protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                if (holdConnection) {
+                    withConnection(connections, llmCall);
+                } else {
+                    // Read session and history, call the model, write the turn
+                    withConnection(connections, () -> { });
+                    llmCall.run();
+                    withConnection(connections, () -> { });
+                }
+                response.setContentType("application/json");
+                response.getWriter().write("{\"ok\":true}");
+            }
+        };
+
+        TomcatServletWebServerFactory tomcat = new TomcatServletWebServerFactory(0);
+        if (virtual) {
+            new TomcatVirtualThreadsWebServerFactoryCustomizer().customize(tomcat);
+        }
+        WebServer server = tomcat.getWebServer(context -> context.addServlet("chat", chat).addMapping("/chat"));
+        server.start();
+        URI target = URI.create("http://127.0.0.1:" + server.getPort() + "/chat");
+
+        Sample idle = Sample.take();
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long start = System.nanoTime();
+        Sample loaded;
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                senders.submit(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(target)
+                                        .timeout(Duration.ofMinutes(5))
+                                        .POST(HttpRequest.BodyPublishers.ofString("{}")).build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        (response.statusCode() == 200 ? ok : failed).incrementAndGet();
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            // Every request that can be admitted is now waiting for the stub
+            Thread.sleep(ttft * 2L / 3);
+            loaded = Sample.take();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        server.stop();
+        stub.stop(0);
+
+        int admitted = Math.max(1, peak.get());
+        ObjectNode result = JSON.createObjectNode();
+        ObjectNode config = result.putObject("config");
+        options.forEach(config::put);
+        result.put("mode", virtual ? "virtual" : "platform");
+        result.put("peakInFlight", peak.get());
+        result.put("ok", ok.get());
+        result.put("failed", failed.get());
+        result.put("seconds", LoadDriver.round(seconds));
+        result.put("throughputPerSecond", LoadDriver.round(ok.get() / seconds));
+        result.put("liveThreadsIdle", idle.threads);
+        result.put("liveThreadsLoaded", loaded.threads);
+        result.put("heapKbPerRequest", (loaded.heapBytes - idle.heapBytes) / 1024 / admitted);
+        result.put("rssKbPerRequest", (loaded.rssKb - idle.rssKb) / admitted);
+        if (loaded.threadStacksKb >= 0) {
+            result.put("threadStackKbCommitted", loaded.threadStacksKb);
+            result.put("threadStackKbPerRequest", (loaded.threadStacksKb - idle.threadStacksKb) / admitted);
+        }
+        String report = JSON.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+        System.out.println(report);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, report);
+        System.exit(0);
+    }
+
+    private static LlmProviderFactory providerFactory(String upstream, boolean virtual) {
+        HttpClient.Builder builder = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10));
+        if (virtual) {
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        LlmProviderFactory factory = new LlmProviderFactory(new LlmTelemetry(new SimpleMeterRegistry()), builder.build());
+        ReflectionTestUtils.setField(factory, "vllmUrl", upstream);
+        return factory;
+    }
+
+    private static void withConnection(Semaphore connections, Runnable work) {
+        connections.acquireUninterruptibly();
+        try {
+            work.run();
+        } finally {
+            connections.release();
+        }
+    }
+
+    /** Process state at one point in time */
+    private record Sample(int threads, long heapBytes, long rssKb, long threadStacksKb) {
+
+        static Sample take() {
+            System.gc();
+            return new Sample(ManagementFactory.getThreadMXBean().getThreadCount(),
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                    readRssKb(), readThreadStacksKb());
+        }
+
+        private static long readRssKb() {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // not Linux
+            }
+            return 0;
+        }
+
+        /** Committed thread stacks from Native Memory Tracking, -1 if it is off */
+        private static long readThreadStacksKb() {
+            try {
+                Object summary = ManagementFactory.getPlatformMBeanServer().invoke(
+                        new ObjectName("com.sun.management:type=DiagnosticCommand"), "vmNativeMemory",
+                        new Object[]{new String[]{"summary"}}, new String[]{String[].class.getName()});
+                Matcher matcher = NMT_THREAD.matcher(String.valueOf(summary));
+                return matcher.find() ? Long.parseLong(matcher.group(2)) : -1;
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+    }
+}